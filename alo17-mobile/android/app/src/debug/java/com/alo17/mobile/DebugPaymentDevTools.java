@@ -0,0 +1,172 @@
+package com.alo17.mobile;
+
+import android.content.Intent;
+import android.net.Uri;
+import android.util.Log;
+import android.webkit.WebResourceResponse;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+
+/**
+ * Debug derlemesinin geliştirme araçları: ağ geçidi benzetimi, mikro ölçüm ve yük testi
+ */
+final class DebugPaymentDevTools implements PaymentDevTools {
+
+    private static final String TAG = "PaymentDevTools";
+
+    private final SimulatedGatewayProvider simulatorProvider = new SimulatedGatewayProvider();
+    private final PaymentScheduler scheduler = PaymentScheduler.get();
+    private final PaymentMetrics metrics = PaymentMetrics.get();
+
+    @Override
+    public PaymentProvider simulatorProvider() {
+        return simulatorProvider;
+    }
+
+    @Override
+    public WebResourceResponse interceptRequest(Uri url) {
+        PaymentGatewaySimulator simulator = PaymentGatewaySimulator.active();
+        if (simulator != null && PaymentGatewaySimulator.isSimulatorUrl(url)) {
+            return simulator.servePage(url);
+        }
+        return null;
+    }
+
+    @Override
+    public void runBenchmarks(File baselineFile, boolean updateBaseline, Promise promise) {
+        scheduler.submit(PaymentScheduler.Pool.CPU, PaymentScheduler.Priority.LOW,
+            PaymentScheduler.NO_DEADLINE, () -> {
+                try {
+                    PaymentBenchmark benchmark = PaymentBenchmark.standard();
+                    addResultHandlingWorkloads(benchmark);
+                    WritableArray results = Arguments.createArray();
+                    for (PaymentBenchmark.Result result : benchmark.run(baselineFile, updateBaseline)) {
+                        WritableMap item = Arguments.createMap();
+                        item.putString("name", result.name);
+                        item.putDouble("nsPerOp", result.nsPerOp);
+                        if (result.hasBaseline()) {
+                            item.putDouble("baselineNsPerOp", result.baselineNsPerOp);
+                            item.putDouble("changePercent", result.changePercent());
+                        }
+                        item.putBoolean("regression", result.isRegression());
+                        results.pushMap(item);
+                    }
+                    promise.resolve(results);
+                } catch (Exception e) {
+                    Log.e(TAG, "Benchmark error", e);
+                    promise.reject("BENCHMARK_ERROR", e.getMessage());
+                }
+            });
+    }
+
+    @Override
+    public void configureSimulator(ReadableMap options, Promise promise) {
+        PaymentGatewaySimulator.setActive(options != null ? new PaymentGatewaySimulator(simulatorConfig(options)) : null);
+        promise.resolve(options != null);
+    }
+
+    @Override
+    public void runLoadTest(ReadableMap options, PaymentSessionRegistry sessions, Promise promise) {
+        int sessionCount = optInt(options, "sessions", 2000);
+        // Request codes bound how many sessions can be open at once
+        int concurrency = Math.max(1, Math.min(optInt(options, "concurrency", 256), 4000));
+        int workers = Math.max(1, optInt(options, "workers", 8));
+        boolean cardRead = options != null && options.hasKey("mode") && "nfc".equals(options.getString("mode"));
+        long amountMinor = 14990;
+        PaymentGatewaySimulator simulator = new PaymentGatewaySimulator(simulatorConfig(options));
+        PaymentLoadDriver driver = new PaymentLoadDriver(sessionCount, concurrency, workers,
+            simulatorProvider.defaultTimeoutMs() * 2);
+        scheduler.submit(PaymentScheduler.Pool.CPU, PaymentScheduler.Priority.LOW,
+            PaymentScheduler.NO_DEADLINE, () -> {
+                // Simulated checkouts would otherwise pollute the field latency histograms
+                metrics.setEnabled(false);
+                try {
+                    PaymentLoadDriver.Report report = driver.run((sessionPromise, executor) -> {
+                        PaymentSession session = sessions.open(simulatorProvider, sessionPromise,
+                            simulatorProvider.defaultTimeoutMs());
+                        return simulatorProvider.completeHeadless(simulator, session, amountMinor, cardRead,
+                            executor).kind;
+                    });
+                    WritableMap result = Arguments.createMap();
+                    result.putInt("sessions", report.sessions);
+                    result.putInt("concurrency", report.concurrency);
+                    result.putDouble("elapsedMs", report.elapsedMs);
+                    result.putDouble("throughputPerSec", report.throughputPerSecond());
+                    result.putDouble("p50Ms", report.latency.percentile(50) / 1000.0);
+                    result.putDouble("p99Ms", report.latency.percentile(99) / 1000.0);
+                    result.putDouble("p999Ms", report.latency.percentile(99.9) / 1000.0);
+                    result.putDouble("maxMs", report.latency.max() / 1000.0);
+                    result.putInt("approved", report.approved);
+                    result.putInt("declined", report.declined);
+                    result.putInt("rejected", report.rejected);
+                    result.putInt("openFailures", report.openFailures);
+                    result.putInt("mismatched", report.mismatched);
+                    result.putInt("unsettled", report.unsettled);
+                    result.putInt("settledTwice", report.settledTwice);
+                    result.putBoolean("correct", report.isCorrect());
+                    promise.resolve(result);
+                } catch (Exception e) {
+                    Log.e(TAG, "Load test error", e);
+                    promise.reject("LOAD_TEST_ERROR", e.getMessage());
+                } finally {
+                    metrics.setEnabled(true);
+                }
+            });
+    }
+
+    private static PaymentGatewaySimulator.Config simulatorConfig(ReadableMap options) {
+        PaymentGatewaySimulator.Config config = new PaymentGatewaySimulator.Config();
+        if (options == null) {
+            return config;
+        }
+        if (options.hasKey("minLatencyMs")) {
+            config.minLatencyMs = (long) options.getDouble("minLatencyMs");
+        }
+        if (options.hasKey("maxLatencyMs")) {
+            config.maxLatencyMs = (long) options.getDouble("maxLatencyMs");
+        }
+        if (options.hasKey("errorRate")) {
+            config.errorRate = options.getDouble("errorRate");
+        }
+        if (options.hasKey("declineRate")) {
+            config.declineRate = options.getDouble("declineRate");
+        }
+        if (options.hasKey("declineCodes")) {
+            ReadableArray codes = options.getArray("declineCodes");
+            config.declineCodes = new String[codes.size()];
+            for (int i = 0; i < codes.size(); i++) {
+                config.declineCodes[i] = codes.getString(i);
+            }
+        }
+        if (options.hasKey("seed")) {
+            config.seed = (long) options.getDouble("seed");
+        }
+        return config;
+    }
+
+    private static int optInt(ReadableMap options, String key, int fallback) {
+        return options != null && options.hasKey(key) ? options.getInt(key) : fallback;
+    }
+
+    private static void addResultHandlingWorkloads(PaymentBenchmark benchmark) {
+        Intent payTRSuccess = new Intent()
+            .putExtra(PaymentResult.EXTRA_STATUS, "success")
+            .putExtra(PaymentResult.EXTRA_TOKEN, "bench-token")
+            .putExtra(PaymentResult.EXTRA_AMOUNT_MINOR, 14990L);
+        benchmark.add("paytr_result_map", () -> PaymentResult
+            .fromIntent("bench", PaymentSession.Type.PAYTR, payTRSuccess).toWritableMap());
+        Intent nfcSuccess = new Intent()
+            .putExtra(PaymentResult.EXTRA_STATUS, "card_read")
+            .putExtra(PaymentResult.EXTRA_TRANSACTION_ID, "NFC_BENCH")
+            .putExtra(PaymentResult.EXTRA_AMOUNT_MINOR, 14990L);
+        benchmark.add("nfc_result_map", () -> PaymentResult
+            .fromIntent("bench", PaymentSession.Type.NFC, nfcSuccess).toWritableMap());
+    }
+}
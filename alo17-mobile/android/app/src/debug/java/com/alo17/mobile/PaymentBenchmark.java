@@ -0,0 +1,244 @@
+package com.alo17.mobile;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ödeme modülünün sıcak yolları için uygulama içi mikro ölçüm.
+ * Her iş yükü önce ısıtılır, sonra birkaç örnek üzerinden işlem başına süre (ns) ölçülür ve ortanca alınır.
+ * Sonuçlar diskte saklanan taban çizgisiyle karşılaştırılır; %10'dan fazla yavaşlama gerileme sayılır.
+ * Yalnızca debug derlemesinde bulunur (src/debug); release APK'ya girmez.
+ */
+final class PaymentBenchmark {
+    private static final String TAG = "PaymentBenchmark";
+
+    static final double REGRESSION_THRESHOLD = 0.10;
+
+    private static final long WARMUP_NANOS = 300_000_000L;
+    private static final long SAMPLE_NANOS = 200_000_000L;
+    private static final int SAMPLES = 5;
+    private static final int OPS_PER_CHECK = 64;
+
+    interface Workload {
+        Object run() throws Exception;
+    }
+
+    static final class Result {
+        final String name;
+        final double nsPerOp;
+        final double baselineNsPerOp;
+
+        Result(String name, double nsPerOp, double baselineNsPerOp) {
+            this.name = name;
+            this.nsPerOp = nsPerOp;
+            this.baselineNsPerOp = baselineNsPerOp;
+        }
+
+        boolean hasBaseline() {
+            return baselineNsPerOp > 0;
+        }
+
+        double changePercent() {
+            return hasBaseline() ? (nsPerOp - baselineNsPerOp) / baselineNsPerOp * 100.0 : 0;
+        }
+
+        boolean isRegression() {
+            return hasBaseline() && nsPerOp > baselineNsPerOp * (1 + REGRESSION_THRESHOLD);
+        }
+    }
+
+    private final Map<String, Workload> workloads = new LinkedHashMap<>();
+    // Keeps results reachable so the JIT cannot drop the measured work
+    private volatile Object sink;
+
+    void add(String name, Workload workload) {
+        workloads.put(name, workload);
+    }
+
+    /**
+     * Bağımsız çalışabilen iş yükleriyle ölçüm: kart doğrulama, tutar kodlama, TLV, URL eşleme ve sanal NFC oturumu
+     */
+    static PaymentBenchmark standard() throws IOException {
+        PaymentBenchmark benchmark = new PaymentBenchmark();
+
+        char[] cardNumber = "4111 1111 1111 1111".toCharArray();
+        benchmark.add("card_validation",
+            () -> CardValidator.validate("4111 1111 1111 1111", "12/30", "123", 2026, 1));
+        benchmark.add("luhn_char_array",
+            () -> CardValidator.isLuhnValid(cardNumber, 0, cardNumber.length));
+        SecureCardData secureCard = SecureCardData.of("4111 1111 1111 1111", "12/30", "123");
+        benchmark.add("card_validation_secure",
+            () -> CardValidator.validate(secureCard.pan, secureCard.expiry, secureCard.cvv, 2026, 1));
+        // More cards than tracked so the LRU keeps evicting; the synthetic clock rolls buckets over
+        VelocityGuard.Config velocityRules = new VelocityGuard.Config();
+        velocityRules.trackedCards = 1024;
+        VelocityGuard velocity = new VelocityGuard(velocityRules);
+        long[] velocityClock = {0};
+        benchmark.add("velocity_check", () -> {
+            long now = velocityClock[0] += 7;
+            return velocity.check(velocity.cardKey(secureCard.pan) + (now & 2047), now);
+        });
+
+        // Money codec next to the BigDecimal and String/double paths it replaces
+        String amountText = "149.90";
+        benchmark.add("amount_parse_money", () -> Money.parse(amountText, Money.Currency.TRY));
+        benchmark.add("amount_parse_bigdecimal",
+            () -> new BigDecimal(amountText).movePointRight(2).longValueExact());
+        benchmark.add("amount_parse_double", () -> Math.round(Double.parseDouble(amountText) * 100));
+        char[] amountBuffer = new char[Money.MAX_FORMATTED_LENGTH];
+        benchmark.add("amount_format_money", () -> Money.format(14990, Money.Currency.TRY, amountBuffer, 0));
+        benchmark.add("amount_format_bigdecimal", () -> BigDecimal.valueOf(14990, 2).toPlainString());
+        benchmark.add("amount_format_string", () -> String.format(Locale.US, "%.2f", 14990 / 100.0));
+        byte[] amountField = new byte[6];
+        benchmark.add("amount_bcd", () -> {
+            Money.writeBcd(14990, amountField, 0, amountField.length);
+            return amountField;
+        });
+
+        byte[] selectPpse = {0x00, (byte) 0xA4, 0x04, 0x00, 0x0E, '2'};
+        byte[] fci = new SimulatedCardTransceiver().transceive(selectPpse);
+        benchmark.add("tlv_find", () -> Tlv.find(fci, 0, fci.length - 2, Tlv.TAG_AID));
+        TlvIndex index = new TlvIndex();
+        benchmark.add("tlv_index", () -> {
+            index.clear();
+            index.add(fci, 0, fci.length - 2);
+            return index.lookup(Tlv.TAG_AID);
+        });
+
+        PaymentCallbackMatcher matcher = PaymentCallbackMatcher.compile(null, null, null);
+        benchmark.add("callback_match",
+            () -> matcher.match("alo17://payment/success?token=abc123&amount=149.90"));
+        benchmark.add("callback_miss",
+            () -> matcher.match("https://www.paytr.com/odeme/guvenli/abc123"));
+
+        EmvCardReader reader = new EmvCardReader();
+        SimulatedCardTransceiver card = new SimulatedCardTransceiver();
+        benchmark.add("nfc_session_simulated", () -> {
+            EmvCardData data = reader.read(card, 14990);
+            try {
+                return CardValidator.isLuhnValid(data.pan, 0, data.panLength)
+                    && CardValidator.checkExpiry(data.expiryAsText(), 2026, 1) == CardValidator.VALID;
+            } finally {
+                data.clear();
+            }
+        });
+        return benchmark;
+    }
+
+    /**
+     * Tüm iş yüklerini çalıştır; updateBaseline ise sonuçları yeni taban çizgisi olarak kaydet
+     */
+    List<Result> run(File baselineFile, boolean updateBaseline) throws Exception {
+        Map<String, Double> baseline = loadBaseline(baselineFile);
+        List<Result> results = new ArrayList<>(workloads.size());
+        // Benchmark iterations would otherwise pollute the field latency histograms
+        PaymentMetrics.get().setEnabled(false);
+        try {
+            for (Map.Entry<String, Workload> entry : workloads.entrySet()) {
+                double nsPerOp = measure(entry.getValue());
+                Double previous = baseline.get(entry.getKey());
+                Result result = new Result(entry.getKey(), nsPerOp, previous != null ? previous : 0);
+                if (result.isRegression()) {
+                    Log.w(TAG, entry.getKey() + " regressed by " + Math.round(result.changePercent()) + "%");
+                }
+                results.add(result);
+            }
+        } finally {
+            PaymentMetrics.get().setEnabled(true);
+        }
+        if (updateBaseline) {
+            saveBaseline(baselineFile, results);
+        }
+        return results;
+    }
+
+    private double measure(Workload workload) throws Exception {
+        runFor(workload, WARMUP_NANOS);
+        double[] samples = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = runFor(workload, SAMPLE_NANOS);
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+
+    // Returns nanoseconds per operation; the clock is read once per chunk to keep its cost out
+    private double runFor(Workload workload, long durationNanos) throws Exception {
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < OPS_PER_CHECK; i++) {
+                sink = workload.run();
+            }
+            ops += OPS_PER_CHECK;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < durationNanos);
+        return (double) elapsed / ops;
+    }
+
+    private static Map<String, Double> loadBaseline(File file) {
+        Map<String, Double> baseline = new LinkedHashMap<>();
+        if (!file.exists()) {
+            return baseline;
+        }
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] data = new byte[(int) file.length()];
+            int read = 0;
+            while (read < data.length) {
+                int n = in.read(data, read, data.length - read);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+            JSONObject json = new JSONObject(new String(data, 0, read, StandardCharsets.UTF_8));
+            JSONObject entries = json.getJSONObject("ns_per_op");
+            for (Iterator<String> keys = entries.keys(); keys.hasNext(); ) {
+                String key = keys.next();
+                baseline.put(key, entries.getDouble(key));
+            }
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Benchmark baseline unreadable, ignoring", e);
+        }
+        return baseline;
+    }
+
+    private static void saveBaseline(File file, List<Result> results) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            JSONObject entries = new JSONObject();
+            for (Result result : results) {
+                entries.put(result.name, result.nsPerOp);
+            }
+            JSONObject json = new JSONObject();
+            json.put("created_at", System.currentTimeMillis());
+            json.put("ns_per_op", entries);
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                out.write(json.toString().getBytes(StandardCharsets.UTF_8));
+                out.getFD().sync();
+            }
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Cannot replace " + file);
+            }
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Benchmark baseline write failed", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.alo17.mobile;
+
+/**
+ * Debug derlemesinin geliştirme araçları
+ */
+final class PaymentDevToolsFactory {
+
+    private static final PaymentDevTools INSTANCE = new DebugPaymentDevTools();
+
+    private PaymentDevToolsFactory() {
+    }
+
+    static PaymentDevTools get() {
+        return INSTANCE;
+    }
+}
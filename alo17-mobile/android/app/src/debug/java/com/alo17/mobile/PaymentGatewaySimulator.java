@@ -0,0 +1,159 @@
+package com.alo17.mobile;
+
+import android.net.Uri;
+import android.webkit.WebResourceResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Ağ ve gerçek kart olmadan ödeme akışını çalıştıran yerel ağ geçidi benzetimi.
+ * Her oturum için gecikme, hata ve ret kararı yapılandırmaya göre üretilir.
+ * PayTR tarafında WebView'e alo17://payment/* adresine yönlenen sayfa veya 503 döner;
+ * NFC tarafında SimulatedCardTransceiver aynı kararla APDU'lara gecikme, kopma veya süresi geçmiş kart uygular.
+ * Yalnızca debug derlemesinde bulunur (src/debug); release APK'ya girmez.
+ */
+final class PaymentGatewaySimulator {
+
+    static final String HOST = "gateway.sim.alo17.local";
+    static final String PAYMENT_URL = "https://" + HOST + "/odeme";
+
+    enum Kind {
+        APPROVE,
+        DECLINE,
+        ERROR
+    }
+
+    static final class Config {
+        long minLatencyMs = 200;
+        long maxLatencyMs = 1200;
+        double errorRate = 0.02;
+        double declineRate = 0.10;
+        String[] declineCodes = {"INSUFFICIENT_FUNDS", "DO_NOT_HONOR", "EXPIRED_CARD"};
+        long seed = 17;
+    }
+
+    static final class Outcome {
+        final Kind kind;
+        final long latencyMs;
+        // Null unless declined
+        final String declineCode;
+
+        Outcome(Kind kind, long latencyMs, String declineCode) {
+            this.kind = kind;
+            this.latencyMs = latencyMs;
+            this.declineCode = declineCode;
+        }
+    }
+
+    private static volatile PaymentGatewaySimulator active;
+
+    final Config config;
+    private final Random random;
+
+    PaymentGatewaySimulator(Config config) {
+        this.config = config;
+        this.random = new Random(config.seed);
+    }
+
+    /**
+     * PayTRActivity ve sanal sağlayıcının kullandığı etkin benzetim; kapalıysa null
+     */
+    static PaymentGatewaySimulator active() {
+        return active;
+    }
+
+    static void setActive(PaymentGatewaySimulator simulator) {
+        active = simulator;
+    }
+
+    static boolean isSimulatorUrl(Uri uri) {
+        return uri != null && HOST.equals(uri.getHost());
+    }
+
+    /**
+     * Bir sonraki oturumun kararı; aynı tohumla aynı dizi üretilir
+     */
+    synchronized Outcome next() {
+        long span = Math.max(0, config.maxLatencyMs - config.minLatencyMs);
+        long latency = config.minLatencyMs + (span > 0 ? (long) (random.nextDouble() * span) : 0);
+        double roll = random.nextDouble();
+        if (roll < config.errorRate) {
+            return new Outcome(Kind.ERROR, latency, null);
+        }
+        if (roll < config.errorRate + config.declineRate && config.declineCodes.length > 0) {
+            return new Outcome(Kind.DECLINE, latency,
+                config.declineCodes[random.nextInt(config.declineCodes.length)]);
+        }
+        return new Outcome(Kind.APPROVE, latency, null);
+    }
+
+    /**
+     * Benzetim ödeme sayfasını sun; WebView arka plan thread'inde çağrılır, sunucu gecikmesi burada beklenir.
+     * Sayfa ok/fail sorgu parametrelerindeki callback adresine yönlenir.
+     */
+    WebResourceResponse servePage(Uri uri) {
+        Outcome outcome = next();
+        sleep(outcome.latencyMs);
+        if (outcome.kind == Kind.ERROR) {
+            return new WebResourceResponse("text/html", "utf-8", 503, "Service Unavailable",
+                Collections.<String, String>emptyMap(), new ByteArrayInputStream(new byte[0]));
+        }
+        String target;
+        if (outcome.kind == Kind.APPROVE) {
+            target = uri.getQueryParameter("ok") + "?token=SIM_" + Long.toHexString(System.nanoTime())
+                + amountQuery(uri.getQueryParameter("amount"));
+        } else {
+            target = uri.getQueryParameter("fail") + "?error=" + outcome.declineCode;
+        }
+        String html = "<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>PayTR Simülatör</title></head>"
+            + "<body><p>Ödeme işleniyor...</p><script>location.replace(" + jsString(target) + ");</script>"
+            + "</body></html>";
+        return new WebResourceResponse("text/html", "utf-8",
+            new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * PayTRActivity'ye verilecek benzetim ödeme adresi
+     */
+    static String paymentUrl(String successUrl, String failUrl, String amount) {
+        Uri.Builder builder = Uri.parse(PAYMENT_URL).buildUpon()
+            .appendQueryParameter("ok", successUrl)
+            .appendQueryParameter("fail", failUrl);
+        if (amount != null) {
+            builder.appendQueryParameter("amount", amount);
+        }
+        return builder.build().toString();
+    }
+
+    static void sleep(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String amountQuery(String amount) {
+        return amount != null ? "&amount=" + Uri.encode(amount) : "";
+    }
+
+    private static String jsString(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c == '<' || c < 0x20) {
+                out.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+}
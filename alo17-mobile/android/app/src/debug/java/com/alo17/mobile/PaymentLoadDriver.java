@@ -0,0 +1,165 @@
+package com.alo17.mobile;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.PromiseImpl;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Benzetim oturumlarını PaymentModule'ün gerçek oturum ve sonuç hattından eşzamanlı geçiren yük sürücüsü.
+ * Açık oturum sayısı concurrency ile sınırlanır; her promise'in tam bir kez ve
+ * benzetimin kararına uygun durumla sonuçlandığı denetlenir, uçtan uca gecikme histograma yazılır.
+ */
+final class PaymentLoadDriver {
+
+    private static final String STATUS_REJECTED = "rejected";
+
+    interface Pipeline {
+        /**
+         * Oturumu aç ve sonuçlandırmasını planla; oturum açılamazsa istisna atar
+         */
+        PaymentGatewaySimulator.Kind start(Promise promise, ScheduledExecutorService executor);
+    }
+
+    static final class Report {
+        int sessions;
+        int concurrency;
+        long elapsedMs;
+        final LatencyHistogram latency = new LatencyHistogram();
+        int approved;
+        int declined;
+        int rejected;
+        int openFailures;
+        // Settled with a status other than the simulator decided
+        int mismatched;
+        int unsettled;
+        // Promise callbacks seen more than once for one session
+        int settledTwice;
+
+        double throughputPerSecond() {
+            return elapsedMs > 0 ? (approved + declined + rejected) * 1000.0 / elapsedMs : 0;
+        }
+
+        boolean isCorrect() {
+            return mismatched == 0 && unsettled == 0 && settledTwice == 0;
+        }
+    }
+
+    private final int sessions;
+    private final int concurrency;
+    private final int workers;
+    private final long settleTimeoutMs;
+
+    PaymentLoadDriver(int sessions, int concurrency, int workers, long settleTimeoutMs) {
+        this.sessions = sessions;
+        this.concurrency = concurrency;
+        this.workers = workers;
+        this.settleTimeoutMs = settleTimeoutMs;
+    }
+
+    /**
+     * Tüm oturumları çalıştır ve raporu döndür; çağıran thread boyunca bloklanır
+     */
+    Report run(Pipeline pipeline) throws InterruptedException {
+        Report report = new Report();
+        report.sessions = sessions;
+        report.concurrency = concurrency;
+
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(workers);
+        Semaphore permits = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(sessions);
+        AtomicIntegerArray settleCounts = new AtomicIntegerArray(sessions);
+        AtomicReferenceArray<String> statuses = new AtomicReferenceArray<>(sessions);
+        PaymentGatewaySimulator.Kind[] expected = new PaymentGatewaySimulator.Kind[sessions];
+        long[] startedAt = new long[sessions];
+
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < sessions; i++) {
+                permits.acquire();
+                int index = i;
+                startedAt[index] = System.nanoTime();
+                Promise promise = new PromiseImpl(
+                    args -> settle(index, statusOf(args), settleCounts, statuses, startedAt, report, permits, done),
+                    args -> settle(index, STATUS_REJECTED, settleCounts, statuses, startedAt, report, permits,
+                        done));
+                try {
+                    expected[index] = pipeline.start(promise, executor);
+                } catch (RuntimeException e) {
+                    // Counted as settled so the run can finish; the session never existed
+                    report.openFailures++;
+                    settleCounts.incrementAndGet(index);
+                    permits.release();
+                    done.countDown();
+                }
+            }
+            done.await(settleTimeoutMs, TimeUnit.MILLISECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        report.elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        for (int i = 0; i < sessions; i++) {
+            int count = settleCounts.get(i);
+            String status = statuses.get(i);
+            if (count == 0) {
+                report.unsettled++;
+                continue;
+            }
+            if (count > 1) {
+                report.settledTwice++;
+            }
+            if (status == null) {
+                continue;
+            }
+            if (PaymentResult.Status.SUCCESS.wireName.equals(status)) {
+                report.approved++;
+            } else if (STATUS_REJECTED.equals(status)) {
+                report.rejected++;
+            } else {
+                report.declined++;
+            }
+            if (!status.equals(expectedStatus(expected[i]))) {
+                report.mismatched++;
+            }
+        }
+        return report;
+    }
+
+    private static void settle(int index, String status, AtomicIntegerArray settleCounts,
+                               AtomicReferenceArray<String> statuses, long[] startedAt, Report report,
+                               Semaphore permits, CountDownLatch done) {
+        if (settleCounts.incrementAndGet(index) != 1) {
+            return;
+        }
+        statuses.set(index, status);
+        report.latency.record((System.nanoTime() - startedAt[index]) / 1000);
+        permits.release();
+        done.countDown();
+    }
+
+    private static String statusOf(Object[] args) {
+        if (args.length > 0 && args[0] instanceof ReadableMap) {
+            ReadableMap map = (ReadableMap) args[0];
+            if (map.hasKey(PaymentResult.KEY_STATUS)) {
+                return map.getString(PaymentResult.KEY_STATUS);
+            }
+        }
+        return "unknown";
+    }
+
+    private static String expectedStatus(PaymentGatewaySimulator.Kind kind) {
+        if (kind == null) {
+            return null;
+        }
+        return kind == PaymentGatewaySimulator.Kind.APPROVE
+            ? PaymentResult.Status.SUCCESS.wireName : PaymentResult.Status.FAILED.wireName;
+    }
+}
@@ -0,0 +1,82 @@
+package com.alo17.mobile;
+
+import java.io.IOException;
+
+/**
+ * Kayıtlı yanıtlarla çalışan sanal temassız Visa test kartı (4111 1111 1111 1111, 12/30).
+ * IsoDep ve gerçek kart olmadan EmvCardReader'ı uçtan uca çalıştırmak için kullanılır.
+ * Benzetim kararı verilirse gecikme her APDU'ya bölünür; hata kartın alandan çekilmesi,
+ * ret ise süresi geçmiş kart (01/20) olarak yansır.
+ */
+final class SimulatedCardTransceiver implements CardTransceiver {
+
+    static final String PAN = "4111111111111111";
+    static final String EXPIRY = "12/30";
+
+    private static final byte INS_SELECT = (byte) 0xA4;
+    private static final byte INS_GPO = (byte) 0xA8;
+    private static final byte INS_READ_RECORD = (byte) 0xB2;
+
+    private static final byte[] PPSE_FCI = hex(
+        "6F20840E325041592E5359532E4444463031A50EBF0C0B61094F07A0000000031010" + "9000");
+    private static final byte[] AID_FCI = hex(
+        "6F118407A0000000031010A5069F38039F0206" + "9000");
+    // Format 1: AIP 0000, AFL = SFI 1 record 1
+    private static final byte[] GPO_RESPONSE = hex("8006000008010100" + "9000");
+    private static final byte[] RECORD = hex("70105A0841111111111111115F2403301231" + "9000");
+    private static final byte[] EXPIRED_RECORD = hex("70105A0841111111111111115F2403200131" + "9000");
+    private static final byte[] FILE_NOT_FOUND = hex("6A82");
+    // PPSE select, AID select, GPO and one READ RECORD
+    private static final int APDUS_PER_READ = 4;
+
+    private final PaymentGatewaySimulator.Outcome outcome;
+
+    SimulatedCardTransceiver() {
+        this(null);
+    }
+
+    SimulatedCardTransceiver(PaymentGatewaySimulator.Outcome outcome) {
+        this.outcome = outcome;
+    }
+
+    @Override
+    public byte[] transceive(byte[] command) throws IOException {
+        if (command == null || command.length < 4) {
+            throw new IOException("Malformed APDU");
+        }
+        if (outcome != null) {
+            PaymentGatewaySimulator.sleep(outcome.latencyMs / APDUS_PER_READ);
+            // The card leaves the field once the reader gets to the records
+            if (outcome.kind == PaymentGatewaySimulator.Kind.ERROR && command[1] == INS_READ_RECORD) {
+                throw new IOException("Tag was lost");
+            }
+        }
+        switch (command[1]) {
+            case INS_SELECT:
+                // PPSE is selected by name, so its data starts with '2'
+                return (command.length > 5 && command[5] == '2' ? PPSE_FCI : AID_FCI).clone();
+            case INS_GPO:
+                return GPO_RESPONSE.clone();
+            case INS_READ_RECORD:
+                if (command[2] != 1) {
+                    return FILE_NOT_FOUND.clone();
+                }
+                return (outcome != null && outcome.kind == PaymentGatewaySimulator.Kind.DECLINE
+                    ? EXPIRED_RECORD : RECORD).clone();
+            default:
+                return FILE_NOT_FOUND.clone();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static byte[] hex(String s) {
+        byte[] out = new byte[s.length() / 2];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (byte) Integer.parseInt(s.substring(2 * i, 2 * i + 2), 16);
+        }
+        return out;
+    }
+}
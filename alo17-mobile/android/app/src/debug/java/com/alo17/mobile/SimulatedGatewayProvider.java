@@ -0,0 +1,147 @@
+package com.alo17.mobile;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Etkin PaymentGatewaySimulator üzerinden çalışan sağlayıcı (yalnızca debug).
+ * Activity ile kullanıldığında PayTRActivity benzetim sayfasını yükler; yük testinde ise
+ * completeHeadless sonucu activity olmadan, gerçek activity'lerin kullandığı PaymentEventBus ile iletir.
+ * Sonuçlar günlüğe ve mutabakata yazılmaz.
+ */
+final class SimulatedGatewayProvider implements PaymentProvider {
+
+    static final String ID = "simulator";
+
+    private static final long TIMEOUT_MS = 60 * 1000L;
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public PaymentSession.Type method() {
+        return PaymentSession.Type.PAYTR;
+    }
+
+    @Override
+    public String errorPrefix() {
+        return "SIMULATOR";
+    }
+
+    @Override
+    public long defaultTimeoutMs() {
+        return TIMEOUT_MS;
+    }
+
+    @Override
+    public boolean isAvailable(Context context) {
+        return PaymentGatewaySimulator.active() != null;
+    }
+
+    @Override
+    public String unavailableMessage() {
+        return "Ödeme simülatörü etkin değil";
+    }
+
+    @Override
+    public boolean isSimulated() {
+        return true;
+    }
+
+    @Override
+    public Intent createIntent(Activity activity, PaymentSession session, ReadableMap paymentData) {
+        String successUrl = optString(paymentData, "successUrl", "alo17://payment/success");
+        String failUrl = optString(paymentData, "failUrl", "alo17://payment/failed");
+        long amountMinor = Money.fromPaymentData(paymentData, Money.Currency.TRY);
+        String amount = amountMinor != Money.INVALID ? Money.toDecimalString(amountMinor, Money.Currency.TRY) : null;
+
+        Intent intent = new Intent(activity, PayTRActivity.class);
+        intent.putExtra("session_id", session.id);
+        intent.putExtra("payment_url", PaymentGatewaySimulator.paymentUrl(successUrl, failUrl, amount));
+        intent.putExtra("success_url", successUrl);
+        intent.putExtra("fail_url", failUrl);
+        intent.putExtra("cancel_url", optString(paymentData, "cancelUrl", "alo17://payment/cancelled"));
+        if (amountMinor != Money.INVALID) {
+            intent.putExtra(PaymentResult.EXTRA_AMOUNT_MINOR, amountMinor);
+        }
+        return intent;
+    }
+
+    @Override
+    public void onLaunchFailed(Intent intent) {
+    }
+
+    @Override
+    public PaymentResult parseResult(PaymentSession session, int resultCode, Intent data) {
+        return PaymentResult.fromIntent(session.id, PaymentSession.Type.PAYTR, data);
+    }
+
+    /**
+     * Oturumu activity olmadan sonuçlandır; cardRead ise sanal kart EmvCardReader ile okunur.
+     * Üretilen karar döndürülür ki çağıran beklenen sonucu bilsin.
+     */
+    PaymentGatewaySimulator.Outcome completeHeadless(PaymentGatewaySimulator simulator, PaymentSession session,
+                                                     long amountMinor, boolean cardRead,
+                                                     ScheduledExecutorService executor) {
+        PaymentGatewaySimulator.Outcome outcome = simulator.next();
+        if (cardRead) {
+            // APDU latency comes from the simulated card itself
+            executor.execute(() -> publish(session, readCard(outcome, amountMinor), amountMinor));
+        } else {
+            executor.schedule(() -> publish(session, outcome, amountMinor), outcome.latencyMs, TimeUnit.MILLISECONDS);
+        }
+        return outcome;
+    }
+
+    private static PaymentGatewaySimulator.Outcome readCard(PaymentGatewaySimulator.Outcome outcome,
+                                                            long amountMinor) {
+        EmvCardData card = null;
+        try {
+            card = new EmvCardReader().read(new SimulatedCardTransceiver(outcome), amountMinor);
+            boolean usable = CardValidator.checkTappedCard(card) == CardValidator.VALID;
+            return usable ? outcome
+                : new PaymentGatewaySimulator.Outcome(PaymentGatewaySimulator.Kind.DECLINE, outcome.latencyMs,
+                    "EXPIRED_CARD");
+        } catch (IOException e) {
+            return new PaymentGatewaySimulator.Outcome(PaymentGatewaySimulator.Kind.ERROR, outcome.latencyMs, null);
+        } finally {
+            if (card != null) {
+                card.clear();
+            }
+        }
+    }
+
+    private static void publish(PaymentSession session, PaymentGatewaySimulator.Outcome outcome, long amountMinor) {
+        Intent result = new Intent();
+        int resultCode;
+        if (outcome.kind == PaymentGatewaySimulator.Kind.APPROVE) {
+            result.putExtra(PaymentResult.EXTRA_STATUS, PaymentResult.Status.SUCCESS.wireName);
+            result.putExtra(PaymentResult.EXTRA_TOKEN, "SIM_" + session.id);
+            result.putExtra(PaymentResult.EXTRA_AMOUNT_MINOR, amountMinor);
+            resultCode = Activity.RESULT_OK;
+        } else {
+            result.putExtra(PaymentResult.EXTRA_STATUS, PaymentResult.Status.FAILED.wireName);
+            if (outcome.kind == PaymentGatewaySimulator.Kind.DECLINE) {
+                result.putExtra(PaymentResult.EXTRA_ERROR, outcome.declineCode);
+            } else {
+                result.putExtra(PaymentResult.EXTRA_ERROR, "Ödeme sayfası yüklenemedi");
+                result.putExtra(PaymentResult.EXTRA_ERROR_CODE, PaymentResult.ERROR_PAYTR_UNAVAILABLE);
+            }
+            resultCode = Activity.RESULT_CANCELED;
+        }
+        PaymentEventBus.get().publishResult(session.id, resultCode, result);
+    }
+
+    private static String optString(ReadableMap map, String key, String fallback) {
+        return map.hasKey(key) && !map.isNull(key) ? map.getString(key) : fallback;
+    }
+}
@@ -0,0 +1,14 @@
+package com.alo17.mobile;
+
+import java.io.IOException;
+
+/**
+ * Kart ile APDU alışverişi.
+ * Gerçek cihazda IsoDep, testlerde kayıtlı APDU yanıtları kullanılabilir.
+ */
+interface CardTransceiver {
+
+    byte[] transceive(byte[] command) throws IOException;
+
+    void close() throws IOException;
+}
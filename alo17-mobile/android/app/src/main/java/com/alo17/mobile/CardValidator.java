@@ -0,0 +1,415 @@
+package com.alo17.mobile;
+
+import java.util.Calendar;
+
+/**
+ * Kart numarası, son kullanma tarihi ve CVV doğrulaması.
+ * CharSequence veya char[] üzerinde tek geçişte çalışır, bellek ayırmaz.
+ * Boşluk ve tire ayraçları yok sayılır.
+ */
+final class CardValidator {
+
+    static final int VALID = 0;
+    static final int ERROR_NUMBER_FORMAT = 1;
+    static final int ERROR_NUMBER_LENGTH = 2;
+    static final int ERROR_LUHN = 3;
+    static final int ERROR_EXPIRY_FORMAT = 4;
+    static final int ERROR_EXPIRED = 5;
+    static final int ERROR_CVV = 6;
+
+    static final int MIN_LENGTH = 12;
+    static final int MAX_LENGTH = 19;
+
+    enum Scheme {
+        VISA(13, 19, 3),
+        MASTERCARD(16, 16, 3),
+        AMEX(15, 15, 4),
+        TROY(16, 16, 3),
+        DISCOVER(16, 19, 3),
+        JCB(16, 19, 3),
+        MAESTRO(12, 19, 3),
+        UNKNOWN(13, 19, 0);
+
+        final int minLength;
+        final int maxLength;
+        // 0 means either 3 or 4 digits are accepted
+        final int cvvLength;
+
+        Scheme(int minLength, int maxLength, int cvvLength) {
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+            this.cvvLength = cvvLength;
+        }
+
+        boolean acceptsLength(int length) {
+            if (this == VISA) {
+                return length == 13 || length == 16 || length == 19;
+            }
+            return length >= minLength && length <= maxLength;
+        }
+
+        boolean acceptsCvvLength(int length) {
+            return cvvLength == 0 ? (length == 3 || length == 4) : length == cvvLength;
+        }
+    }
+
+    // Luhn doubling table: DOUBLED[d] = digit sum of 2 * d
+    private static final int[] DOUBLED = {0, 2, 4, 6, 8, 1, 3, 5, 7, 9};
+
+    // Packed scan result layout: [prefix6:20][digits:5][sumDoubledOdd:8][sumDoubledEven:8][error:1]
+    private static final long SCAN_ERROR = 1L;
+
+    // Replaced only when the wall clock leaves the cached month, so Calendar is not touched per call
+    private static volatile Month currentMonth = Month.of(System.currentTimeMillis());
+
+    private static final class Month {
+        final int year;
+        // 1-12
+        final int month;
+        final long startMs;
+        final long endMs;
+
+        private Month(int year, int month, long startMs, long endMs) {
+            this.year = year;
+            this.month = month;
+            this.startMs = startMs;
+            this.endMs = endMs;
+        }
+
+        boolean contains(long nowMs) {
+            return nowMs >= startMs && nowMs < endMs;
+        }
+
+        static Month of(long nowMs) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(nowMs);
+            int year = calendar.get(Calendar.YEAR);
+            int month = calendar.get(Calendar.MONTH) + 1;
+            calendar.set(Calendar.DAY_OF_MONTH, 1);
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            long startMs = calendar.getTimeInMillis();
+            calendar.add(Calendar.MONTH, 1);
+            return new Month(year, month, startMs, calendar.getTimeInMillis());
+        }
+    }
+
+    private CardValidator() {
+    }
+
+    /**
+     * Kartın tüm alanlarını bugünün tarihine göre doğrula
+     */
+    static int validate(CharSequence number, CharSequence expiry, CharSequence cvv) {
+        Month now = month();
+        return validate(number, expiry, cvv, now.year, now.month);
+    }
+
+    /**
+     * Kartın tüm alanlarını verilen yıl/aya göre doğrula
+     */
+    static int validate(CharSequence number, CharSequence expiry, CharSequence cvv,
+                        int currentYear, int currentMonth) {
+        if (number == null) {
+            return ERROR_NUMBER_FORMAT;
+        }
+        long scan = scan(number);
+        int result = checkScan(scan);
+        if (result != VALID) {
+            return result;
+        }
+        Scheme scheme = detectScheme(prefixOf(scan), digitsOf(scan));
+        result = checkExpiry(expiry, currentYear, currentMonth);
+        if (result != VALID) {
+            return result;
+        }
+        return checkCvv(cvv, scheme);
+    }
+
+    /**
+     * char[] üzerinde doğrula; çağıran dizi içeriğini sonra silebilir
+     */
+    static int validate(char[] number, int offset, int length, CharSequence expiry,
+                        CharSequence cvv, int currentYear, int currentMonth) {
+        if (number == null) {
+            return ERROR_NUMBER_FORMAT;
+        }
+        long scan = scan(number, offset, length);
+        int result = checkScan(scan);
+        if (result != VALID) {
+            return result;
+        }
+        Scheme scheme = detectScheme(prefixOf(scan), digitsOf(scan));
+        result = checkExpiry(expiry, currentYear, currentMonth);
+        if (result != VALID) {
+            return result;
+        }
+        return checkCvv(cvv, scheme);
+    }
+
+    /**
+     * Yalnızca Luhn kontrolü
+     */
+    static boolean isLuhnValid(CharSequence number) {
+        long scan = scan(number);
+        int digits = digitsOf(scan);
+        return (scan & SCAN_ERROR) == 0 && digits > 0 && digits <= MAX_LENGTH && luhnOk(scan);
+    }
+
+    static boolean isLuhnValid(char[] number, int offset, int length) {
+        long scan = scan(number, offset, length);
+        int digits = digitsOf(scan);
+        return (scan & SCAN_ERROR) == 0 && digits > 0 && digits <= MAX_LENGTH && luhnOk(scan);
+    }
+
+    /**
+     * Kart numarasının şemasını bul; numara geçersizse UNKNOWN döner
+     */
+    static Scheme schemeOf(CharSequence number) {
+        long scan = scan(number);
+        if ((scan & SCAN_ERROR) != 0) {
+            return Scheme.UNKNOWN;
+        }
+        return detectScheme(prefixOf(scan), digitsOf(scan));
+    }
+
+    /**
+     * İlk 6 hane (IIN) ve uzunluğa göre şema tespiti
+     */
+    static Scheme detectScheme(int prefix6, int length) {
+        // Normalize short numbers so range checks below always see six digits
+        int p = prefix6;
+        for (int i = length; i < 6; i++) {
+            p *= 10;
+        }
+        int p1 = p / 100000;
+        int p2 = p / 10000;
+        int p3 = p / 1000;
+        int p4 = p / 100;
+
+        if (p1 == 4) {
+            return Scheme.VISA;
+        }
+        if (p2 == 34 || p2 == 37) {
+            return Scheme.AMEX;
+        }
+        if ((p2 >= 51 && p2 <= 55) || (p4 >= 2221 && p4 <= 2720)) {
+            return Scheme.MASTERCARD;
+        }
+        if (p4 == 9792) {
+            return Scheme.TROY;
+        }
+        if (p4 == 6011 || p2 == 65 || (p3 >= 644 && p3 <= 649)) {
+            return Scheme.DISCOVER;
+        }
+        if (p4 >= 3528 && p4 <= 3589) {
+            return Scheme.JCB;
+        }
+        if (p2 == 50 || (p2 >= 56 && p2 <= 69)) {
+            return Scheme.MAESTRO;
+        }
+        return Scheme.UNKNOWN;
+    }
+
+    /**
+     * AA/YY biçimini bugünün tarihine göre kontrol et
+     */
+    static int checkExpiry(CharSequence expiry) {
+        Month now = month();
+        return checkExpiry(expiry, now.year, now.month);
+    }
+
+    /**
+     * AA/YY biçimini ve geçerliliğini kontrol et
+     */
+    static int checkExpiry(CharSequence expiry, int currentYear, int currentMonth) {
+        if (expiry == null || expiry.length() != 5 || expiry.charAt(2) != '/') {
+            return ERROR_EXPIRY_FORMAT;
+        }
+        int m1 = expiry.charAt(0) - '0';
+        int m2 = expiry.charAt(1) - '0';
+        int y1 = expiry.charAt(3) - '0';
+        int y2 = expiry.charAt(4) - '0';
+        if ((m1 | m2 | y1 | y2) < 0 || m1 > 9 || m2 > 9 || y1 > 9 || y2 > 9) {
+            return ERROR_EXPIRY_FORMAT;
+        }
+        int month = m1 * 10 + m2;
+        if (month < 1 || month > 12) {
+            return ERROR_EXPIRY_FORMAT;
+        }
+        int year = (currentYear / 100) * 100 + y1 * 10 + y2;
+        if (year < currentYear || (year == currentYear && month < currentMonth)) {
+            return ERROR_EXPIRED;
+        }
+        return VALID;
+    }
+
+    /**
+     * Okutulan kartı bugünün tarihine göre kontrol et
+     */
+    static int checkTappedCard(EmvCardData card) {
+        Month now = month();
+        return checkTappedCard(card, now.year, now.month);
+    }
+
+    /**
+     * Okutulan kartın Luhn ve son kullanma kontrolü; ilk hatayı veya VALID döndürür
+     */
+    static int checkTappedCard(EmvCardData card, int currentYear, int currentMonth) {
+        if (!isLuhnValid(card.pan, 0, card.panLength)) {
+            return ERROR_LUHN;
+        }
+        return checkExpiry(card.expiryAsText(), currentYear, currentMonth);
+    }
+
+    /**
+     * Okutulan PAN girilen numarayla aynı mı; girilen numaradaki ayraçlar yok sayılır
+     */
+    static boolean panMatches(CharSequence entered, char[] pan, int panLength) {
+        int j = 0;
+        for (int i = 0, n = entered.length(); i < n; i++) {
+            char c = entered.charAt(i);
+            if (c == ' ' || c == '-') {
+                continue;
+            }
+            if (j >= panLength || pan[j] != c) {
+                return false;
+            }
+            j++;
+        }
+        return j == panLength;
+    }
+
+    /**
+     * CVV uzunluğunu şemaya göre kontrol et
+     */
+    static int checkCvv(CharSequence cvv, Scheme scheme) {
+        if (cvv == null || !scheme.acceptsCvvLength(cvv.length())) {
+            return ERROR_CVV;
+        }
+        for (int i = 0, n = cvv.length(); i < n; i++) {
+            char c = cvv.charAt(i);
+            if (c < '0' || c > '9') {
+                return ERROR_CVV;
+            }
+        }
+        return VALID;
+    }
+
+    private static Month month() {
+        Month cached = currentMonth;
+        long nowMs = System.currentTimeMillis();
+        if (cached.contains(nowMs)) {
+            return cached;
+        }
+        // Also taken when the clock is set back into an earlier month
+        cached = Month.of(nowMs);
+        currentMonth = cached;
+        return cached;
+    }
+
+    private static int checkScan(long scan) {
+        if ((scan & SCAN_ERROR) != 0) {
+            return ERROR_NUMBER_FORMAT;
+        }
+        int digits = digitsOf(scan);
+        if (digits < MIN_LENGTH || digits > MAX_LENGTH) {
+            return ERROR_NUMBER_LENGTH;
+        }
+        if (!detectScheme(prefixOf(scan), digits).acceptsLength(digits)) {
+            return ERROR_NUMBER_LENGTH;
+        }
+        return luhnOk(scan) ? VALID : ERROR_LUHN;
+    }
+
+    // The number is read left to right, so both Luhn parities are summed and
+    // the right one is picked once the digit count is known.
+    private static long scan(CharSequence number) {
+        int digits = 0;
+        int prefix = 0;
+        int sumDoubledEven = 0;
+        int sumDoubledOdd = 0;
+        for (int i = 0, n = number.length(); i < n; i++) {
+            char c = number.charAt(i);
+            if (c == ' ' || c == '-') {
+                continue;
+            }
+            int d = c - '0';
+            if (d < 0 || d > 9) {
+                return SCAN_ERROR;
+            }
+            if (digits == MAX_LENGTH) {
+                return pack(prefix, MAX_LENGTH + 1, 0, 0);
+            }
+            if ((digits & 1) == 0) {
+                sumDoubledEven += DOUBLED[d];
+                sumDoubledOdd += d;
+            } else {
+                sumDoubledEven += d;
+                sumDoubledOdd += DOUBLED[d];
+            }
+            if (digits < 6) {
+                prefix = prefix * 10 + d;
+            }
+            digits++;
+        }
+        return pack(prefix, digits, sumDoubledEven, sumDoubledOdd);
+    }
+
+    private static long scan(char[] number, int offset, int length) {
+        int digits = 0;
+        int prefix = 0;
+        int sumDoubledEven = 0;
+        int sumDoubledOdd = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            char c = number[i];
+            if (c == ' ' || c == '-') {
+                continue;
+            }
+            int d = c - '0';
+            if (d < 0 || d > 9) {
+                return SCAN_ERROR;
+            }
+            if (digits == MAX_LENGTH) {
+                return pack(prefix, MAX_LENGTH + 1, 0, 0);
+            }
+            if ((digits & 1) == 0) {
+                sumDoubledEven += DOUBLED[d];
+                sumDoubledOdd += d;
+            } else {
+                sumDoubledEven += d;
+                sumDoubledOdd += DOUBLED[d];
+            }
+            if (digits < 6) {
+                prefix = prefix * 10 + d;
+            }
+            digits++;
+        }
+        return pack(prefix, digits, sumDoubledEven, sumDoubledOdd);
+    }
+
+    private static long pack(int prefix, int digits, int sumDoubledEven, int sumDoubledOdd) {
+        return ((long) prefix << 22)
+            | ((long) digits << 17)
+            | ((long) sumDoubledOdd << 9)
+            | ((long) sumDoubledEven << 1);
+    }
+
+    private static int prefixOf(long scan) {
+        return (int) (scan >>> 22);
+    }
+
+    private static int digitsOf(long scan) {
+        return (int) (scan >>> 17) & 0x1F;
+    }
+
+    private static boolean luhnOk(long scan) {
+        // With an even digit count the leftmost digit (index 0) is doubled
+        int sum = (digitsOf(scan) & 1) == 0
+            ? (int) (scan >>> 1) & 0xFF
+            : (int) (scan >>> 9) & 0xFF;
+        return sum % 10 == 0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.alo17.mobile;
+
+import java.util.Arrays;
+
+/**
+ * Karttan okunan EMV verisi. PAN char[] olarak tutulur ve clear() ile silinir.
+ */
+final class EmvCardData {
+
+    byte[] aid;
+    final char[] pan = new char[CardValidator.MAX_LENGTH];
+    int panLength;
+    int expiryYear;
+    int expiryMonth;
+    byte[] aip;
+
+    boolean hasPan() {
+        return panLength > 0;
+    }
+
+    boolean hasExpiry() {
+        return expiryMonth > 0;
+    }
+
+    /**
+     * Son kullanma tarihini AA/YY biçiminde döndür
+     */
+    String expiryAsText() {
+        char[] out = {
+            (char) ('0' + expiryMonth / 10), (char) ('0' + expiryMonth % 10), '/',
+            (char) ('0' + expiryYear / 10 % 10), (char) ('0' + expiryYear % 10)
+        };
+        return new String(out);
+    }
+
+    /**
+     * Hassas alanları sıfırla
+     */
+    void clear() {
+        Arrays.fill(pan, '\0');
+        panLength = 0;
+        expiryYear = 0;
+        expiryMonth = 0;
+        if (aid != null) {
+            Arrays.fill(aid, (byte) 0);
+        }
+        if (aip != null) {
+            Arrays.fill(aip, (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.alo17.mobile;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Calendar;
+
+/**
+ * Temassız EMV kart okuyucu: SELECT PPSE, SELECT AID, GPO ve READ RECORD adımlarını çalıştırır.
+ * Çağıran thread'i bloklar; UI thread dışında çalıştırılmalıdır.
+ */
+final class EmvCardReader {
+
+    static final int DEFAULT_TRANSCEIVE_TIMEOUT_MS = 1000;
+
+    private static final byte[] PPSE_NAME = {
+        '2', 'P', 'A', 'Y', '.', 'S', 'Y', 'S', '.', 'D', 'D', 'F', '0', '1'
+    };
+
+
+    // Terminal values used to answer the card's PDOL
+    private static final byte[] TTQ = {0x36, 0x20, 0x40, 0x00};
+    private static final byte[] COUNTRY_TURKEY = {0x07, (byte) 0x92};
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Kartı oku; PAN ve son kullanma tarihi bulunamazsa IOException fırlatır
+     */
+    EmvCardData read(CardTransceiver card, long amountMinor) throws IOException {
+        EmvCardData data = new EmvCardData();
+        TlvIndex index = new TlvIndex();
+
+        byte[] ppse = exchange(card, select(PPSE_NAME));
+        byte[] aid = Tlv.copyValue(ppse, Tlv.find(ppse, 0, ppse.length - 2, Tlv.TAG_AID));
+        if (aid == null) {
+            throw new IOException("No payment application on card");
+        }
+        data.aid = aid;
+
+        byte[] fci = exchange(card, select(aid));
+        long pdol = Tlv.find(fci, 0, fci.length - 2, Tlv.TAG_PDOL);
+
+        byte[] gpo = exchange(card, getProcessingOptions(fci, pdol, amountMinor));
+        index.add(gpo, 0, gpo.length - 2);
+        byte[] aflBuf;
+        int aflOffset;
+        int aflLength;
+        int format1 = index.lookup(Tlv.TAG_RESPONSE_FORMAT_1);
+        if (format1 >= 0 && index.length(format1) >= 2) {
+            int offset = index.offset(format1);
+            data.aip = new byte[] {gpo[offset], gpo[offset + 1]};
+            aflBuf = gpo;
+            aflOffset = offset + 2;
+            aflLength = index.length(format1) - 2;
+        } else {
+            int aip = index.lookup(Tlv.TAG_AIP);
+            if (aip >= 0) {
+                data.aip = Tlv.copyValue(gpo, Tlv.ref(index.offset(aip), index.length(aip)));
+            }
+            int afl = index.lookup(Tlv.TAG_AFL);
+            aflBuf = afl >= 0 ? gpo : null;
+            aflOffset = afl >= 0 ? index.offset(afl) : 0;
+            aflLength = afl >= 0 ? index.length(afl) : 0;
+        }
+
+        // Some kernels return track 2 data directly in the GPO response
+        extractCardholderData(index, data);
+
+        if (aflBuf != null) {
+            readRecords(card, aflBuf, aflOffset, aflLength, index, data);
+        }
+        index.clear();
+
+        if (!data.hasPan() || !data.hasExpiry()) {
+            data.clear();
+            throw new IOException("Card did not return PAN/expiry");
+        }
+        return data;
+    }
+
+    // ISO-DEP is half-duplex, so records are requested back to back, indexed
+    // as they arrive, and reading stops as soon as both PAN and expiry are known.
+    private void readRecords(CardTransceiver card, byte[] afl, int aflOffset, int aflLength,
+                             TlvIndex index, EmvCardData data) throws IOException {
+        int aflEnd = aflOffset + aflLength;
+        for (int i = aflOffset; i + 4 <= aflEnd; i += 4) {
+            int sfi = (afl[i] & 0xFF) >> 3;
+            int first = afl[i + 1] & 0xFF;
+            int last = afl[i + 2] & 0xFF;
+            for (int record = first; record <= last; record++) {
+                byte[] response = exchange(card, readRecord(sfi, record));
+                index.add(response, 0, response.length - 2);
+                extractCardholderData(index, data);
+                if (data.hasPan() && data.hasExpiry()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void extractCardholderData(TlvIndex index, EmvCardData data) {
+        if (!data.hasPan()) {
+            int pan = index.lookup(Tlv.TAG_PAN);
+            if (pan >= 0) {
+                decodePan(index.buffer(pan), index.offset(pan), index.length(pan), data);
+            }
+        }
+        if (!data.hasExpiry()) {
+            int expiry = index.lookup(Tlv.TAG_EXPIRY);
+            if (expiry >= 0 && index.length(expiry) >= 2) {
+                byte[] buf = index.buffer(expiry);
+                int offset = index.offset(expiry);
+                data.expiryYear = 2000 + bcd(buf[offset]);
+                data.expiryMonth = bcd(buf[offset + 1]);
+            }
+        }
+        if (!data.hasPan() || !data.hasExpiry()) {
+            int track2 = index.lookup(Tlv.TAG_TRACK2);
+            if (track2 >= 0) {
+                decodeTrack2(index.buffer(track2), index.offset(track2), index.length(track2), data);
+            }
+        }
+    }
+
+    private static void decodePan(byte[] bcd, int offset, int length, EmvCardData data) {
+        int n = 0;
+        for (int i = offset; i < offset + length && n < data.pan.length; i++) {
+            int hi = (bcd[i] >> 4) & 0x0F;
+            int lo = bcd[i] & 0x0F;
+            if (hi > 9) {
+                break;
+            }
+            data.pan[n++] = (char) ('0' + hi);
+            if (lo > 9 || n == data.pan.length) {
+                break;
+            }
+            data.pan[n++] = (char) ('0' + lo);
+        }
+        data.panLength = n;
+    }
+
+    // Track 2 equivalent data: PAN 'D' YYMM service-code ...
+    private static void decodeTrack2(byte[] buf, int offset, int length, EmvCardData data) {
+        int nibbles = length * 2;
+        int separator = -1;
+        for (int i = 0; i < nibbles; i++) {
+            if (nibble(buf, offset, i) == 0x0D) {
+                separator = i;
+                break;
+            }
+        }
+        if (separator < 0 || separator + 4 >= nibbles) {
+            return;
+        }
+        if (!data.hasPan()) {
+            int n = Math.min(separator, data.pan.length);
+            for (int i = 0; i < n; i++) {
+                data.pan[i] = (char) ('0' + nibble(buf, offset, i));
+            }
+            data.panLength = n;
+        }
+        if (!data.hasExpiry()) {
+            int yy = nibble(buf, offset, separator + 1) * 10 + nibble(buf, offset, separator + 2);
+            int mm = nibble(buf, offset, separator + 3) * 10 + nibble(buf, offset, separator + 4);
+            if (mm >= 1 && mm <= 12) {
+                data.expiryYear = 2000 + yy;
+                data.expiryMonth = mm;
+            }
+        }
+    }
+
+    private static int nibble(byte[] buf, int offset, int index) {
+        int b = buf[offset + (index >> 1)];
+        return (index & 1) == 0 ? (b >> 4) & 0x0F : b & 0x0F;
+    }
+
+    private static int bcd(byte b) {
+        return ((b >> 4) & 0x0F) * 10 + (b & 0x0F);
+    }
+
+    /**
+     * APDU gönder ve 61xx/6Cxx durumlarını işle.
+     * Yanıt kopyalanmadan döner; son iki bayt durum kelimesidir.
+     */
+    private static byte[] exchange(CardTransceiver card, byte[] command) throws IOException {
+        long start = System.nanoTime();
+        byte[] response = card.transceive(command);
+        int sw = statusWord(response);
+        if ((sw & 0xFF00) == 0x6C00) {
+            command[command.length - 1] = (byte) sw;
+            response = card.transceive(command);
+            sw = statusWord(response);
+        }
+        if ((sw & 0xFF00) == 0x6100) {
+            byte[] getResponse = {0x00, (byte) 0xC0, 0x00, 0x00, (byte) sw};
+            response = card.transceive(getResponse);
+            sw = statusWord(response);
+        }
+        PaymentMetrics.get().record(PaymentMetrics.Stage.NFC_APDU, start);
+        if (sw != 0x9000) {
+            throw new IOException("Card returned status " + Integer.toHexString(sw));
+        }
+        return response;
+    }
+
+    private static int statusWord(byte[] response) throws IOException {
+        if (response == null || response.length < 2) {
+            throw new IOException("Short card response");
+        }
+        return ((response[response.length - 2] & 0xFF) << 8) | (response[response.length - 1] & 0xFF);
+    }
+
+    private static byte[] select(byte[] name) {
+        byte[] apdu = new byte[6 + name.length];
+        apdu[0] = 0x00;
+        apdu[1] = (byte) 0xA4;
+        apdu[2] = 0x04;
+        apdu[3] = 0x00;
+        apdu[4] = (byte) name.length;
+        System.arraycopy(name, 0, apdu, 5, name.length);
+        apdu[apdu.length - 1] = 0x00;
+        return apdu;
+    }
+
+    private static byte[] readRecord(int sfi, int record) {
+        return new byte[] {0x00, (byte) 0xB2, (byte) record, (byte) ((sfi << 3) | 0x04), 0x00};
+    }
+
+    private byte[] getProcessingOptions(byte[] fci, long pdol, long amountMinor) {
+        byte[] pdolData = pdol == Tlv.NOT_FOUND
+            ? new byte[0]
+            : buildPdolData(fci, Tlv.valueOffset(pdol), Tlv.valueOffset(pdol) + Tlv.valueLength(pdol),
+                amountMinor);
+        byte[] apdu = new byte[8 + pdolData.length];
+        apdu[0] = (byte) 0x80;
+        apdu[1] = (byte) 0xA8;
+        apdu[2] = 0x00;
+        apdu[3] = 0x00;
+        apdu[4] = (byte) (pdolData.length + 2);
+        apdu[5] = (byte) 0x83;
+        apdu[6] = (byte) pdolData.length;
+        System.arraycopy(pdolData, 0, apdu, 7, pdolData.length);
+        apdu[apdu.length - 1] = 0x00;
+        return apdu;
+    }
+
+    /**
+     * Kartın istediği PDOL alanlarını terminal değerleriyle doldur; bilinmeyenler sıfır kalır
+     */
+    private byte[] buildPdolData(byte[] dol, int offset, int end, long amountMinor) {
+        int total = 0;
+        for (int i = offset; i < end; ) {
+            int tagEnd = Tlv.tagEnd(dol, i, end);
+            if (tagEnd < 0 || tagEnd >= end) {
+                break;
+            }
+            total += dol[tagEnd] & 0xFF;
+            i = tagEnd + 1;
+        }
+
+        byte[] out = new byte[total];
+        int pos = 0;
+        for (int i = offset; i < end; ) {
+            int tagEnd = Tlv.tagEnd(dol, i, end);
+            if (tagEnd < 0 || tagEnd >= end) {
+                break;
+            }
+            int length = dol[tagEnd] & 0xFF;
+            fillPdolField(Tlv.readTag(dol, i, tagEnd), out, pos, length, amountMinor);
+            pos += length;
+            i = tagEnd + 1;
+        }
+        return out;
+    }
+
+    private void fillPdolField(int tag, byte[] out, int pos, int length, long amountMinor) {
+        switch (tag) {
+            case 0x9F66:
+                copyInto(TTQ, out, pos, length);
+                break;
+            case 0x9F02:
+                Money.writeBcd(amountMinor, out, pos, length);
+                break;
+            case 0x9F1A:
+                copyInto(COUNTRY_TURKEY, out, pos, length);
+                break;
+            case 0x5F2A:
+                Money.writeBcd(Money.Currency.TRY.numericCode, out, pos, length);
+                break;
+            case 0x9A: {
+                Calendar now = Calendar.getInstance();
+                byte[] date = {
+                    toBcd(now.get(Calendar.YEAR) % 100),
+                    toBcd(now.get(Calendar.MONTH) + 1),
+                    toBcd(now.get(Calendar.DAY_OF_MONTH))
+                };
+                copyInto(date, out, pos, length);
+                break;
+            }
+            case 0x9F37: {
+                byte[] unpredictable = new byte[length];
+                random.nextBytes(unpredictable);
+                System.arraycopy(unpredictable, 0, out, pos, length);
+                break;
+            }
+            default:
+                // Amount other, TVR, transaction type etc. stay zero
+                break;
+        }
+    }
+
+    private static void copyInto(byte[] src, byte[] out, int pos, int length) {
+        System.arraycopy(src, 0, out, pos, Math.min(src.length, length));
+    }
+
+    private static byte toBcd(int value) {
+        return (byte) (((value / 10) << 4) | (value % 10));
+    }
+}
@@ -0,0 +1,223 @@
+package com.alo17.mobile;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.nfc.NfcAdapter;
+import android.nfc.Tag;
+import android.os.Bundle;
+import android.os.Vibrator;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * NFCPaymentActivity açmadan tek bir temassız ödeme.
+ * Mevcut activity üzerinde reader mode ile kart okunur; yerel kontroller reader thread'inde yapılır ve sonuç
+ * activity ile aynı şemada PaymentEventBus'a bildirilir, promise ortak hattan sonuçlanır.
+ * Yetkilendirme yapılmaz; başarılı okuma card_read olarak döner.
+ * Görsel geri bildirim isteğe bağlı UiHooks ile takılır.
+ */
+final class HeadlessNfcPayment implements NfcAdapter.ReaderCallback {
+    private static final String TAG = "HeadlessNfcPayment";
+
+    /**
+     * Reader thread'inden çağrılır; UI değiştiren uygulama ana thread'e geçmelidir
+     */
+    interface UiHooks {
+        UiHooks NONE = new UiHooks() {
+            @Override
+            public void onCardDetected() {
+            }
+
+            @Override
+            public void onFinished(boolean cardRead, String error) {
+            }
+        };
+
+        void onCardDetected();
+
+        void onFinished(boolean cardRead, String error);
+    }
+
+    final PaymentSession session;
+
+    private final NfcAdapter adapter;
+    private final SecureCardData cardData;
+    private final long amountMinor;
+    private final int transceiveTimeoutMs;
+    private final TransactionIdGenerator ids;
+    private final UiHooks hooks;
+    private final EmvCardReader cardReader = new EmvCardReader();
+    private final AtomicBoolean reading = new AtomicBoolean(false);
+    private final Bundle readerOptions = new Bundle();
+    private final long createdAt = System.nanoTime();
+
+    private volatile boolean closed;
+    private boolean tagSeen;
+
+    HeadlessNfcPayment(PaymentSession session, NfcAdapter adapter, SecureCardData cardData, long amountMinor,
+                       int transceiveTimeoutMs, TransactionIdGenerator ids, UiHooks hooks) {
+        this.session = session;
+        this.adapter = adapter;
+        this.cardData = cardData;
+        this.amountMinor = amountMinor;
+        this.transceiveTimeoutMs = transceiveTimeoutMs;
+        this.ids = ids;
+        this.hooks = hooks != null ? hooks : UiHooks.NONE;
+        readerOptions.putInt(NfcAdapter.EXTRA_READER_PRESENCE_CHECK_DELAY,
+            NfcReaderSession.DEFAULT_PRESENCE_CHECK_DELAY_MS);
+    }
+
+    /**
+     * Kart algılanınca ve sonuçta kısa titreşim
+     */
+    static UiHooks vibration(Context context) {
+        Vibrator vibrator = (Vibrator) context.getSystemService(Context.VIBRATOR_SERVICE);
+        if (vibrator == null || !vibrator.hasVibrator()) {
+            return UiHooks.NONE;
+        }
+        return new UiHooks() {
+            @Override
+            public void onCardDetected() {
+                vibrator.vibrate(200);
+            }
+
+            @Override
+            public void onFinished(boolean cardRead, String error) {
+                vibrator.vibrate(cardRead ? 200 : 400);
+            }
+        };
+    }
+
+    /**
+     * Reader mode'u activity ön plandayken aç; ana thread'den çağrılır
+     */
+    void attach(Activity activity) {
+        if (closed || activity == null) {
+            return;
+        }
+        adapter.enableReaderMode(activity, this, NfcSupport.READER_FLAGS, readerOptions);
+    }
+
+    /**
+     * Activity arka plana geçerken reader mode'u kapat; ana thread'den çağrılır
+     */
+    void detach(Activity activity) {
+        if (activity == null) {
+            return;
+        }
+        try {
+            adapter.disableReaderMode(activity);
+        } catch (IllegalStateException e) {
+            Log.w(TAG, "Reader mode already disabled", e);
+        }
+    }
+
+    /**
+     * Sonuç teslim edildi veya oturum bitti; kart verisi silinir
+     */
+    void close(Activity activity) {
+        closed = true;
+        detach(activity);
+        // A read still running sees zeroes and declines; its result finds no session
+        cardData.wipe();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void onTagDiscovered(Tag tag) {
+        if (closed || !reading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (!tagSeen) {
+                tagSeen = true;
+                PaymentMetrics.get().record(PaymentMetrics.Stage.NFC_TAG_DISCOVERY, createdAt);
+            }
+            PaymentEventBus.get().publishProgress(session.id, PaymentProgressEvent.Type.CARD_DETECTED);
+            hooks.onCardDetected();
+            readCard(tag);
+        } finally {
+            reading.set(false);
+        }
+    }
+
+    private void readCard(Tag tag) {
+        CardTransceiver transceiver = null;
+        EmvCardData card = null;
+        try {
+            VelocityGuard.Decision decision = VelocityGuard.get().check(cardData.pan);
+            if (decision != VelocityGuard.Decision.ALLOW) {
+                Log.w(TAG, "Velocity check rejected tap: " + decision.code);
+                fail("Çok fazla ödeme denemesi, lütfen daha sonra tekrar deneyin", PaymentResult.ERROR_VELOCITY_LIMIT);
+                return;
+            }
+            PaymentEventBus.get().publishProgress(session.id, PaymentProgressEvent.Type.READING);
+            long readStart = System.nanoTime();
+            transceiver = IsoDepTransceiver.connect(tag, transceiveTimeoutMs);
+            card = cardReader.read(transceiver, amountMinor);
+            PaymentMetrics.get().record(PaymentMetrics.Stage.NFC_CARD_READ, readStart);
+            PaymentEventBus.get().publishProgress(session.id, PaymentProgressEvent.Type.AUTHORIZING);
+
+            long authorizationStart = System.nanoTime();
+            boolean usable = isCardUsable(card);
+            PaymentMetrics.get().record(PaymentMetrics.Stage.NFC_AUTHORIZATION, authorizationStart);
+            if (usable) {
+                reportCardRead();
+            } else {
+                fail("Kart bilgileri geçersiz", null);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "NFC card read error", e);
+            fail("Kart okunamadı, lütfen tekrar deneyin", null);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "NFC payment error", e);
+            fail("NFC işlemi sırasında hata oluştu", null);
+        } finally {
+            if (card != null) {
+                card.clear();
+            }
+            if (transceiver != null) {
+                try {
+                    transceiver.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "IsoDep close error", e);
+                }
+            }
+        }
+    }
+
+    private boolean isCardUsable(EmvCardData card) {
+        if (CardValidator.validate(cardData.pan, cardData.expiry, cardData.cvv) != CardValidator.VALID) {
+            return false;
+        }
+        return CardValidator.checkTappedCard(card) == CardValidator.VALID && CardValidator.panMatches(cardData.pan, card.pan, card.panLength);
+    }
+
+    private void reportCardRead() {
+        Intent result = new Intent();
+        result.putExtra(PaymentResult.EXTRA_STATUS, PaymentResult.Status.CARD_READ.wireName);
+        result.putExtra(PaymentResult.EXTRA_AMOUNT_MINOR, amountMinor);
+        result.putExtra(PaymentResult.EXTRA_TRANSACTION_ID, ids.next("NFC_"));
+        PaymentEventBus.get().publishProgress(session.id, PaymentProgressEvent.Type.CARD_READ);
+        hooks.onFinished(true, null);
+        PaymentEventBus.get().publishResult(session.id, Activity.RESULT_OK, result);
+    }
+
+    private void fail(String error, String errorCode) {
+        Intent result = new Intent();
+        result.putExtra(PaymentResult.EXTRA_STATUS, "failed");
+        result.putExtra(PaymentResult.EXTRA_ERROR, error);
+        if (errorCode != null) {
+            result.putExtra(PaymentResult.EXTRA_ERROR_CODE, errorCode);
+        }
+        PaymentEventBus.get().publishProgress(session.id, PaymentProgressEvent.Type.DECLINED);
+        hooks.onFinished(false, error);
+        PaymentEventBus.get().publishResult(session.id, Activity.RESULT_CANCELED, result);
+    }
+}
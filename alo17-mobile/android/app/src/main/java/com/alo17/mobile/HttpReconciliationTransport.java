@@ -0,0 +1,73 @@
+package com.alo17.mobile;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Mutabakat partisini JSON olarak POST eden taşıma katmanı
+ */
+final class HttpReconciliationTransport implements ReconciliationTransport {
+
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 15000;
+
+    private final URL endpoint;
+    private final String authToken;
+
+    HttpReconciliationTransport(String endpoint, String authToken) throws IOException {
+        this.endpoint = new URL(endpoint);
+        this.authToken = authToken;
+    }
+
+    @Override
+    public void send(List<ReconciliationItem> batch) throws IOException {
+        byte[] body;
+        try {
+            JSONArray items = new JSONArray();
+            for (ReconciliationItem item : batch) {
+                items.put(item.toJson());
+            }
+            body = new JSONObject().put("confirmations", items).toString().getBytes(StandardCharsets.UTF_8);
+        } catch (JSONException e) {
+            throw new ReconciliationTransport.PermanentFailure("Cannot encode batch: " + e.getMessage());
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            if (authToken != null) {
+                connection.setRequestProperty("Authorization", "Bearer " + authToken);
+            }
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int code = connection.getResponseCode();
+            if (code >= 200 && code < 300) {
+                return;
+            }
+            if (code == 408 || code == 429 || code >= 500) {
+                throw new IOException("Reconciliation endpoint returned " + code);
+            }
+            // An expired token says nothing about the items; keep them until a new token arrives
+            if (code == 401 || code == 403) {
+                throw new ReconciliationTransport.AuthFailure("Reconciliation auth rejected with " + code);
+            }
+            throw new ReconciliationTransport.PermanentFailure("Reconciliation rejected with " + code);
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
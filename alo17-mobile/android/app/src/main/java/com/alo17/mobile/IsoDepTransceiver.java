@@ -0,0 +1,41 @@
+package com.alo17.mobile;
+
+import android.nfc.Tag;
+import android.nfc.tech.IsoDep;
+
+import java.io.IOException;
+
+/**
+ * IsoDep üzerinden APDU gönderen CardTransceiver
+ */
+final class IsoDepTransceiver implements CardTransceiver {
+
+    private final IsoDep isoDep;
+
+    private IsoDepTransceiver(IsoDep isoDep) {
+        this.isoDep = isoDep;
+    }
+
+    /**
+     * Tag'e bağlan; kart IsoDep desteklemiyorsa IOException fırlatır
+     */
+    static IsoDepTransceiver connect(Tag tag, int timeoutMs) throws IOException {
+        IsoDep isoDep = IsoDep.get(tag);
+        if (isoDep == null) {
+            throw new IOException("Tag does not support IsoDep");
+        }
+        isoDep.connect();
+        isoDep.setTimeout(timeoutMs);
+        return new IsoDepTransceiver(isoDep);
+    }
+
+    @Override
+    public byte[] transceive(byte[] command) throws IOException {
+        return isoDep.transceive(command);
+    }
+
+    @Override
+    public void close() throws IOException {
+        isoDep.close();
+    }
+}
@@ -0,0 +1,117 @@
+package com.alo17.mobile;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Mikrosaniye cinsinden gecikme histogramı (HDR benzeri log-lineer kovalar).
+ * Her ikinin kuvveti 32 alt kovaya bölünür, göreli hata ~%3'tür.
+ * Tüm diziler önceden ayrılır; record() bellek ayırmaz ve kilitsizdir.
+ * Son örnekler ayrıca sabit boyutlu bir halka tamponda tutulur.
+ */
+final class LatencyHistogram {
+
+    static final int RECENT_SAMPLES = 256;
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // Values above ~71 minutes are clamped into the last bucket
+    private static final long MAX_VALUE = (1L << 32) - 1;
+    static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLongArray recent = new AtomicLongArray(RECENT_SAMPLES);
+    private final AtomicLong recentCursor = new AtomicLong();
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long micros) {
+        long value = micros < 0 ? 0 : Math.min(micros, MAX_VALUE);
+        buckets.incrementAndGet(bucketIndex(value));
+        recent.set((int) (recentCursor.getAndIncrement() & (RECENT_SAMPLES - 1)), value);
+        count.incrementAndGet();
+        long current;
+        do {
+            current = max.get();
+        } while (value > current && !max.compareAndSet(current, value));
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    long bucketCount(int index) {
+        return buckets.get(index);
+    }
+
+    /**
+     * Tüm zamanların yüzdelik değeri (0..100)
+     */
+    long percentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return Math.min(bucketValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Halka tampondaki son örneklerin yüzdelik değeri
+     */
+    long recentPercentile(double percentile) {
+        int size = (int) Math.min(recentCursor.get(), RECENT_SAMPLES);
+        if (size == 0) {
+            return 0;
+        }
+        long[] samples = new long[size];
+        for (int i = 0; i < size; i++) {
+            samples[i] = recent.get(i);
+        }
+        Arrays.sort(samples);
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return samples[Math.max(0, Math.min(size - 1, index))];
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        recentCursor.set(0);
+        count.set(0);
+        max.set(0);
+    }
+
+    // Values below 64 map to themselves; above that each power of two gets 32 linear sub-buckets
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKET_COUNT * (shift + 1) + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+    }
+
+    /**
+     * Kovanın temsil ettiği aralığın orta noktası
+     */
+    static long bucketValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lower = (long) (index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+        return lower + ((1L << shift) >>> 1);
+    }
+}
@@ -0,0 +1,200 @@
+package com.alo17.mobile;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+/**
+ * Tutarlar en küçük para biriminde (kuruş) long olarak taşınır; bu sınıf onların kodlayıcısıdır.
+ * Ondalık metin ayrıştırma, biçimlendirme ve EMV n12 BCD kodlaması nesne ayırmaz.
+ * double yalnızca JS sınırında, tek bir yuvarlamayla içeri alınır.
+ */
+final class Money {
+
+    static final long INVALID = -1;
+    // Largest amount an EMV n12 field (Amount, Authorised) can carry
+    static final long MAX_MINOR = 999_999_999_999L;
+    // 12 integer digits, separator and up to 3 fraction digits
+    static final int MAX_FORMATTED_LENGTH = 16;
+
+    enum Currency {
+        TRY("TRY", 949, 2),
+        USD("USD", 840, 2),
+        EUR("EUR", 978, 2),
+        GBP("GBP", 826, 2);
+
+        final String code;
+        // ISO 4217 numeric code, as sent in EMV tag 5F2A
+        final int numericCode;
+        final int exponent;
+        final long scale;
+
+        Currency(String code, int numericCode, int exponent) {
+            this.code = code;
+            this.numericCode = numericCode;
+            this.exponent = exponent;
+            long s = 1;
+            for (int i = 0; i < exponent; i++) {
+                s *= 10;
+            }
+            this.scale = s;
+        }
+
+        /**
+         * ISO kodu veya PayTR'nin "TL" adı; bilinmiyorsa null
+         */
+        static Currency forCode(String code) {
+            if (code == null || "TL".equalsIgnoreCase(code)) {
+                return TRY;
+            }
+            for (Currency currency : values()) {
+                if (currency.code.equalsIgnoreCase(code)) {
+                    return currency;
+                }
+            }
+            return null;
+        }
+    }
+
+    private Money() {
+    }
+
+    static long parse(CharSequence text, Currency currency) {
+        return text == null ? INVALID : parse(text, 0, text.length(), currency);
+    }
+
+    /**
+     * "149.90", "149,9" veya "149" biçimindeki tutarı en küçük birime çevir; geçersizse INVALID.
+     * Hane sayısını aşan kesir yalnızca sıfırsa kabul edilir; yuvarlama yapılmaz
+     */
+    static long parse(CharSequence text, int start, int end, Currency currency) {
+        long major = 0;
+        int digits = 0;
+        int i = start;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            if (major > MAX_MINOR) {
+                return INVALID;
+            }
+            major = major * 10 + (c - '0');
+            digits++;
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < end) {
+            char separator = text.charAt(i);
+            if (separator != '.' && separator != ',') {
+                return INVALID;
+            }
+            for (i++; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    return INVALID;
+                }
+                if (fractionDigits < currency.exponent) {
+                    fraction = fraction * 10 + (c - '0');
+                    fractionDigits++;
+                } else if (c != '0') {
+                    return INVALID;
+                }
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return INVALID;
+        }
+        for (; fractionDigits < currency.exponent; fractionDigits++) {
+            fraction *= 10;
+        }
+        if (major > MAX_MINOR / currency.scale) {
+            return INVALID;
+        }
+        long minor = major * currency.scale + fraction;
+        return minor <= MAX_MINOR ? minor : INVALID;
+    }
+
+    /**
+     * JS'ten gelen ana birim tutarı tek yuvarlamayla en küçük birime çevir; 19.99 * 100 gibi hatalar burada düzelir
+     */
+    static long fromMajor(double major, Currency currency) {
+        if (Double.isNaN(major) || major < 0) {
+            return INVALID;
+        }
+        double scaled = major * currency.scale;
+        return scaled <= MAX_MINOR ? Math.round(scaled) : INVALID;
+    }
+
+    /**
+     * Ödeme verisindeki tutar: önce tam sayı amountMinor, yoksa sayı veya metin olarak amount
+     */
+    static long fromPaymentData(ReadableMap data, Currency currency) {
+        if (data.hasKey("amountMinor") && !data.isNull("amountMinor")) {
+            double minor = data.getDouble("amountMinor");
+            return minor >= 0 && minor <= MAX_MINOR && minor == Math.rint(minor) ? (long) minor : INVALID;
+        }
+        if (!data.hasKey("amount") || data.isNull("amount")) {
+            return INVALID;
+        }
+        return data.getType("amount") == ReadableType.String
+            ? parse(data.getString("amount"), currency)
+            : fromMajor(data.getDouble("amount"), currency);
+    }
+
+    /**
+     * Tutarı "149.90" biçiminde out'a yaz ve bitiş konumunu döndür; en fazla MAX_FORMATTED_LENGTH karakter
+     */
+    static int format(long minor, Currency currency, char[] out, int offset) {
+        if (minor < 0 || minor > MAX_MINOR) {
+            throw new IllegalArgumentException("Amount out of range: " + minor);
+        }
+        long major = minor / currency.scale;
+        long fraction = minor % currency.scale;
+        int majorDigits = 1;
+        for (long v = major; v >= 10; v /= 10) {
+            majorDigits++;
+        }
+        int end = offset + majorDigits + (currency.exponent > 0 ? currency.exponent + 1 : 0);
+        int pos = end;
+        for (int d = 0; d < currency.exponent; d++) {
+            out[--pos] = (char) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        if (currency.exponent > 0) {
+            out[--pos] = '.';
+        }
+        do {
+            out[--pos] = (char) ('0' + major % 10);
+            major /= 10;
+        } while (major > 0);
+        return end;
+    }
+
+    /**
+     * URL ve günlük gibi metin sınırları için
+     */
+    static String toDecimalString(long minor, Currency currency) {
+        char[] buffer = new char[MAX_FORMATTED_LENGTH];
+        return new String(buffer, 0, format(minor, currency, buffer, 0));
+    }
+
+    /**
+     * EMV sayısal (n) alanı: sağa dayalı, baştaki sıfırlarla doldurulmuş BCD; sığmayan değer reddedilir
+     */
+    static void writeBcd(long value, byte[] out, int pos, int length) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative BCD value");
+        }
+        long v = value;
+        for (int i = pos + length - 1; i >= pos; i--) {
+            int pair = (int) (v % 100);
+            out[i] = (byte) (((pair / 10) << 4) | (pair % 10));
+            v /= 100;
+        }
+        if (v != 0) {
+            throw new IllegalArgumentException("Value does not fit " + length + " BCD bytes");
+        }
+    }
+}
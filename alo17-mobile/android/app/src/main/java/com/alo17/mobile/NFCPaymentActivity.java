@@ -3,13 +3,9 @@ package com.alo17.mobile;
 import android.app.Activity;
 import android.app.PendingIntent;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.nfc.NfcAdapter;
 import android.nfc.Tag;
-import android.nfc.tech.IsoDep;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 import android.widget.Toast;
 import android.view.View;
@@ -20,42 +16,58 @@ import android.os.Vibrator;
 import android.content.Context;
 
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class NFCPaymentActivity extends Activity {
     private static final String TAG = "NFCPaymentActivity";
+    // A tap still queued after this long is stale; the card has left the field
+    private static final long TAP_DEADLINE_MS = 5000;
+    private static final long SUCCESS_FINISH_DELAY_MS = 2000;
+    private static final long FAILURE_FINISH_DELAY_MS = 3000;
     
     private NfcAdapter nfcAdapter;
     private PendingIntent pendingIntent;
-    private IntentFilter[] intentFilters;
-    private String[][] techLists;
     
     private TextView statusText;
     private ProgressBar progressBar;
     private Button cancelButton;
     private Vibrator vibrator;
-    private ExecutorService executor;
-    private Handler mainHandler;
+    private final PaymentScheduler.Scope scope = PaymentScheduler.get().newScope();
+    // The shared pool runs reads in parallel; one tap at a time per activity
+    private final AtomicBoolean reading = new AtomicBoolean(false);
+    private final EmvCardReader cardReader = new EmvCardReader();
+    private int transceiveTimeoutMs;
+    private long createdAt;
+    private boolean tagSeen;
     
-    private double paymentAmount;
-    private String cardNumber;
-    private String expiryDate;
-    private String cvv;
+    private String sessionId;
+    private long amountMinor;
+    // Entered card data lives off-heap and is wiped as soon as the tap is authorized or declined
+    private long cardHandle;
+    private SecureCardData cardData;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        createdAt = System.nanoTime();
         setContentView(R.layout.activity_nfc_payment);
         
         // Get payment data from intent
         Intent intent = getIntent();
-        paymentAmount = intent.getDoubleExtra("amount", 0.0);
-        cardNumber = intent.getStringExtra("card_number");
-        expiryDate = intent.getStringExtra("expiry_date");
-        cvv = intent.getStringExtra("cvv");
+        sessionId = intent.getStringExtra("session_id");
+        amountMinor = intent.getLongExtra(PaymentResult.EXTRA_AMOUNT_MINOR, 0);
+        cardHandle = intent.getLongExtra(SecureCardData.EXTRA_HANDLE, SecureCardData.NO_HANDLE);
+        cardData = SecureCardData.lookup(cardHandle);
+        transceiveTimeoutMs = intent.getIntExtra("transceive_timeout_ms",
+            EmvCardReader.DEFAULT_TRANSCEIVE_TIMEOUT_MS);
         
         initializeViews();
+        // The handle does not survive a process restart; the card must be entered again
+        if (cardData == null) {
+            handlePaymentFailed("Kart bilgileri bulunamadı, lütfen tekrar girin");
+            return;
+        }
         initializeNFC();
         startNFCDetection();
     }
@@ -65,19 +77,19 @@ public class NFCPaymentActivity extends Activity {
         progressBar = findViewById(R.id.progress_bar);
         cancelButton = findViewById(R.id.cancel_button);
         vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
-        executor = Executors.newSingleThreadExecutor();
-        mainHandler = new Handler(Looper.getMainHandler());
         
         statusText.setText("NFC kartınızı telefonun arkasına yaklaştırın");
         
         cancelButton.setOnClickListener(v -> {
             setResult(RESULT_CANCELED);
+            publishProgress(PaymentProgressEvent.Type.CANCELLED);
+            PaymentEventBus.get().publishResult(sessionId, RESULT_CANCELED, null);
             finish();
         });
     }
     
     private void initializeNFC() {
-        nfcAdapter = NfcAdapter.getDefaultAdapter(this);
+        nfcAdapter = NfcSupport.adapter(this);
         
         if (nfcAdapter == null) {
             Toast.makeText(this, "Bu cihaz NFC desteklemiyor", Toast.LENGTH_SHORT).show();
@@ -96,29 +108,12 @@ public class NFCPaymentActivity extends Activity {
         intent.addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
         pendingIntent = PendingIntent.getActivity(this, 0, intent, 
             PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
-        
-        // Create intent filters for NFC
-        IntentFilter ndef = new IntentFilter(NfcAdapter.ACTION_TECH_DISCOVERED);
-        try {
-            ndef.addDataType("*/*");
-        } catch (IntentFilter.MalformedMimeTypeException e) {
-            throw new RuntimeException("MIME type error", e);
-        }
-        intentFilters = new IntentFilter[]{ndef};
-        
-        // Define supported technologies
-        techLists = new String[][]{
-            {IsoDep.class.getName()},
-            {android.nfc.tech.NfcA.class.getName()},
-            {android.nfc.tech.NfcB.class.getName()},
-            {android.nfc.tech.NfcF.class.getName()},
-            {android.nfc.tech.NfcV.class.getName()}
-        };
     }
     
     private void startNFCDetection() {
         if (nfcAdapter != null) {
-            nfcAdapter.enableForegroundDispatch(this, pendingIntent, intentFilters, techLists);
+            nfcAdapter.enableForegroundDispatch(this, pendingIntent, NfcSupport.intentFilters(),
+                NfcSupport.techLists());
         }
     }
     
@@ -145,136 +140,183 @@ public class NFCPaymentActivity extends Activity {
             
             Tag tag = intent.getParcelableExtra(NfcAdapter.EXTRA_TAG);
             if (tag != null) {
+                if (!tagSeen) {
+                    tagSeen = true;
+                    PaymentMetrics.get().record(PaymentMetrics.Stage.NFC_TAG_DISCOVERY, createdAt);
+                }
+                publishProgress(PaymentProgressEvent.Type.CARD_DETECTED);
                 processNFCPayment(tag);
             }
         }
     }
     
     private void processNFCPayment(Tag tag) {
+        if (cardData == null || cardData.isWiped() || !reading.compareAndSet(false, true)) {
+            return;
+        }
         updateStatus("Kart okunuyor...");
         vibrate();
         
-        executor.execute(() -> {
-            try {
-                // Simulate NFC card reading and payment processing
-                Thread.sleep(2000); // Simulate processing time
-                
-                // Validate card data
-                if (validateCardData()) {
-                    // Process payment
-                    boolean paymentSuccess = processPayment();
-                    
-                    mainHandler.post(() -> {
-                        if (paymentSuccess) {
-                            handlePaymentSuccess();
-                        } else {
-                            handlePaymentFailed("Ödeme işlemi başarısız");
-                        }
-                    });
-                } else {
-                    mainHandler.post(() -> {
-                        handlePaymentFailed("Kart bilgileri geçersiz");
-                    });
-                }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "NFC payment error", e);
-                mainHandler.post(() -> {
-                    handlePaymentFailed("NFC işlemi sırasında hata oluştu");
-                });
-            }
-        });
-    }
-    
-    private boolean validateCardData() {
-        // Basic card validation
-        if (cardNumber == null || cardNumber.length() < 13 || cardNumber.length() > 19) {
-            return false;
-        }
-        
-        if (expiryDate == null || expiryDate.length() != 5) {
-            return false;
-        }
+        publishProgress(PaymentProgressEvent.Type.READING);
         
-        if (cvv == null || cvv.length() < 3 || cvv.length() > 4) {
-            return false;
+        try {
+            scope.submit(PaymentScheduler.Pool.IO, PaymentScheduler.Priority.HIGH, TAP_DEADLINE_MS,
+                () -> readTappedCard(tag), this::onReadDropped);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "NFC read not scheduled", e);
+            reading.set(false);
         }
-        
-        // Luhn algorithm validation
-        return validateLuhn(cardNumber);
     }
     
-    private boolean validateLuhn(String cardNumber) {
-        int sum = 0;
-        boolean alternate = false;
-        
-        for (int i = cardNumber.length() - 1; i >= 0; i--) {
-            int n = Integer.parseInt(cardNumber.substring(i, i + 1));
-            if (alternate) {
-                n *= 2;
-                if (n > 9) {
-                    n = (n % 10) + 1;
-                }
-            }
-            sum += n;
-            alternate = !alternate;
+    /**
+     * Okuma sırada beklerken atıldı; readTappedCard'ın finally'si çalışmadığından temizlik burada yapılır
+     */
+    private void onReadDropped() {
+        reading.set(false);
+        // Dropped by onDestroy: the handle is released there if finishing, else kept for the recreated activity
+        if (scope.isCancelled()) {
+            return;
         }
-        
-        return (sum % 10 == 0);
+        Log.w(TAG, "NFC read dropped before it ran");
+        SecureCardData.release(cardHandle);
+        scope.postMain(() -> handlePaymentFailed("Kart okuma zaman aşımına uğradı, lütfen tekrar deneyin"));
     }
     
-    private boolean processPayment() {
-        // Simulate payment processing
+    private void readTappedCard(Tag tag) {
+        CardTransceiver transceiver = null;
+        EmvCardData card = null;
         try {
-            Thread.sleep(1500);
+            // Repeated or scattered attempts are refused before spending time on the card
+            VelocityGuard.Decision decision = VelocityGuard.get().check(cardData.pan);
+            if (decision != VelocityGuard.Decision.ALLOW) {
+                Log.w(TAG, "Velocity check rejected tap: " + decision.code);
+                scope.postMain(() -> handlePaymentFailed("Çok fazla ödeme denemesi, lütfen daha sonra tekrar deneyin",
+                    PaymentResult.ERROR_VELOCITY_LIMIT));
+                return;
+            }
+            long readStart = System.nanoTime();
+            transceiver = IsoDepTransceiver.connect(tag, transceiveTimeoutMs);
+            card = cardReader.read(transceiver, amountMinor);
+            PaymentMetrics.get().record(PaymentMetrics.Stage.NFC_CARD_READ, readStart);
+            publishProgress(PaymentProgressEvent.Type.AUTHORIZING);
             
-            // Simulate payment success (90% success rate)
-            return Math.random() > 0.1;
+            long authorizationStart = System.nanoTime();
+            boolean authorized = validateCardData() && validateTappedCard(card);
+            PaymentMetrics.get().record(PaymentMetrics.Stage.NFC_AUTHORIZATION, authorizationStart);
+            if (authorized) {
+                scope.postMain(this::handleCardRead);
+            } else {
+                scope.postMain(() -> {
+                    handlePaymentFailed("Kart bilgileri geçersiz");
+                });
+            }
             
-        } catch (InterruptedException e) {
+        } catch (IOException e) {
+            Log.e(TAG, "NFC card read error", e);
+            scope.postMain(() -> {
+                handlePaymentFailed("Kart okunamadı, lütfen tekrar deneyin");
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "NFC payment error", e);
+            scope.postMain(() -> {
+                handlePaymentFailed("NFC işlemi sırasında hata oluştu");
+            });
+        } finally {
+            // An outcome posted after scope.cancel() is never shown, so only a delivered read consumes the card
+            if (!scope.isCancelled()) {
+                SecureCardData.release(cardHandle);
+            }
+            reading.set(false);
+            if (card != null) {
+                card.clear();
+            }
+            if (transceiver != null) {
+                try {
+                    transceiver.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "IsoDep close error", e);
+                }
+            }
+        }
+    }
+    
+    private boolean validateCardData() {
+        int result = CardValidator.validate(cardData.pan, cardData.expiry, cardData.cvv);
+        if (result != CardValidator.VALID) {
+            Log.w(TAG, "Card validation failed: " + result);
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Okutulan kart geçerli mi ve girilen kart ile aynı mı kontrol et
+     */
+    private boolean validateTappedCard(EmvCardData card) {
+        int result = CardValidator.checkTappedCard(card);
+        if (result != CardValidator.VALID) {
+            Log.w(TAG, "Tapped card rejected: " + result);
             return false;
         }
+        return CardValidator.panMatches(cardData.pan, card.pan, card.panLength);
     }
     
-    private void handlePaymentSuccess() {
-        updateStatus("Ödeme başarılı!");
+    /**
+     * Kart okundu ve yerel kontrollerden geçti; yetkilendirme olmadığı için ödeme başarılı sayılmaz
+     */
+    private void handleCardRead() {
+        updateStatus("Kart okundu, onay bekleniyor");
         vibrate();
         
         // Send result to React Native
         Intent resultIntent = new Intent();
-        resultIntent.putExtra("status", "success");
-        resultIntent.putExtra("amount", paymentAmount);
-        resultIntent.putExtra("payment_method", "nfc");
-        resultIntent.putExtra("transaction_id", generateTransactionId());
+        resultIntent.putExtra(PaymentResult.EXTRA_STATUS, PaymentResult.Status.CARD_READ.wireName);
+        resultIntent.putExtra(PaymentResult.EXTRA_AMOUNT_MINOR, amountMinor);
+        resultIntent.putExtra(PaymentResult.EXTRA_TRANSACTION_ID, generateTransactionId());
         setResult(RESULT_OK, resultIntent);
+        publishProgress(PaymentProgressEvent.Type.CARD_READ);
+        PaymentEventBus.get().publishResult(sessionId, RESULT_OK, resultIntent);
         
-        Toast.makeText(this, "NFC ödeme başarılı!", Toast.LENGTH_SHORT).show();
+        Toast.makeText(this, "Kart okundu", Toast.LENGTH_SHORT).show();
         
         // Close activity after delay
-        new Handler().postDelayed(this::finish, 2000);
+        scope.postMainDelayed(this::finish, SUCCESS_FINISH_DELAY_MS);
     }
     
     private void handlePaymentFailed(String error) {
+        handlePaymentFailed(error, null);
+    }
+    
+    private void handlePaymentFailed(String error, String errorCode) {
         updateStatus("Ödeme başarısız: " + error);
         vibrate();
         
         Intent resultIntent = new Intent();
-        resultIntent.putExtra("status", "failed");
-        resultIntent.putExtra("error", error);
+        resultIntent.putExtra(PaymentResult.EXTRA_STATUS, "failed");
+        resultIntent.putExtra(PaymentResult.EXTRA_ERROR, error);
+        if (errorCode != null) {
+            resultIntent.putExtra(PaymentResult.EXTRA_ERROR_CODE, errorCode);
+        }
         setResult(RESULT_CANCELED, resultIntent);
+        publishProgress(PaymentProgressEvent.Type.DECLINED);
+        PaymentEventBus.get().publishResult(sessionId, RESULT_CANCELED, resultIntent);
         
         Toast.makeText(this, "NFC ödeme başarısız: " + error, Toast.LENGTH_SHORT).show();
         
         // Close activity after delay
-        new Handler().postDelayed(this::finish, 3000);
+        scope.postMainDelayed(this::finish, FAILURE_FINISH_DELAY_MS);
     }
     
     private void updateStatus(String status) {
-        mainHandler.post(() -> {
+        scope.postMain(() -> {
             statusText.setText(status);
         });
     }
     
+    private void publishProgress(PaymentProgressEvent.Type type) {
+        PaymentEventBus.get().publishProgress(sessionId, type);
+    }
+    
     private void vibrate() {
         if (vibrator != null && vibrator.hasVibrator()) {
             vibrator.vibrate(200);
@@ -282,14 +324,17 @@ public class NFCPaymentActivity extends Activity {
     }
     
     private String generateTransactionId() {
-        return "NFC_" + System.currentTimeMillis();
+        return TransactionIdGenerator.get(this).next("NFC_");
     }
     
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (executor != null) {
-            executor.shutdown();
+        // Drops queued reads and pending delayed finishes so nothing outlives the activity
+        scope.cancel();
+        // A configuration change keeps the handle, even mid-read, so the recreated activity accepts a new tap
+        if (isFinishing()) {
+            SecureCardData.release(cardHandle);
         }
     }
 } 
\ No newline at end of file
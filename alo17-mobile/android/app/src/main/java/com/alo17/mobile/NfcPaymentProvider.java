@@ -0,0 +1,85 @@
+package com.alo17.mobile;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+
+import com.facebook.react.bridge.ReadableMap;
+
+/**
+ * Temassız kart ödemesi; girilen kart NFCPaymentActivity'de okutulan kart ile eşleştirilir.
+ */
+final class NfcPaymentProvider implements PaymentProvider {
+
+    static final String ID = "nfc";
+
+    private static final long TIMEOUT_MS = 2 * 60 * 1000L;
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public PaymentSession.Type method() {
+        return PaymentSession.Type.NFC;
+    }
+
+    @Override
+    public String errorPrefix() {
+        return "NFC";
+    }
+
+    @Override
+    public long defaultTimeoutMs() {
+        return TIMEOUT_MS;
+    }
+
+    /**
+     * NFC donanımı var mı; kapalı NFC için activity kullanıcıyı uyarır
+     */
+    @Override
+    public boolean isAvailable(Context context) {
+        return NfcSupport.isSupported(context);
+    }
+
+    @Override
+    public String unavailableMessage() {
+        return "Bu cihaz NFC desteklemiyor";
+    }
+
+    @Override
+    public boolean isSimulated() {
+        return false;
+    }
+
+    @Override
+    public Intent createIntent(Activity activity, PaymentSession session, ReadableMap paymentData) {
+        // The amount goes into the card's GPO, so a bad one must stop here
+        long amountMinor = Money.fromPaymentData(paymentData, Money.Currency.TRY);
+        if (amountMinor == Money.INVALID) {
+            throw new IllegalArgumentException("Geçersiz tutar");
+        }
+        Intent intent = new Intent(activity, NFCPaymentActivity.class);
+        intent.putExtra("session_id", session.id);
+        intent.putExtra(PaymentResult.EXTRA_AMOUNT_MINOR, amountMinor);
+        if (paymentData.hasKey("transceiveTimeoutMs")) {
+            intent.putExtra("transceive_timeout_ms", paymentData.getInt("transceiveTimeoutMs"));
+        }
+        // Card fields go off-heap here; only an in-process handle travels through the Intent
+        long cardHandle = SecureCardData.register(SecureCardData.of(paymentData.getString("cardNumber"),
+            paymentData.getString("expiryDate"), paymentData.getString("cvv")));
+        intent.putExtra(SecureCardData.EXTRA_HANDLE, cardHandle);
+        return intent;
+    }
+
+    @Override
+    public void onLaunchFailed(Intent intent) {
+        SecureCardData.release(intent.getLongExtra(SecureCardData.EXTRA_HANDLE, SecureCardData.NO_HANDLE));
+    }
+
+    @Override
+    public PaymentResult parseResult(PaymentSession session, int resultCode, Intent data) {
+        return PaymentResult.fromIntent(session.id, PaymentSession.Type.NFC, data);
+    }
+}
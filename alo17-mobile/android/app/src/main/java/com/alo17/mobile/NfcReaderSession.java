@@ -0,0 +1,216 @@
+package com.alo17.mobile;
+
+import android.app.Activity;
+import android.nfc.NfcAdapter;
+import android.nfc.Tag;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Satıcı tarafı için kesintisiz NFC okuma oturumu.
+ * Activity açmadan, mevcut activity üzerinde reader mode ile art arda kart okur.
+ * Satışlar kuyruğa alınır, yerel kontrollerden geçen her okuma sıradaki satışı tüketir.
+ * Okuma bir yetkilendirme değildir; sonuç CARD_READ olarak bildirilir.
+ * Aynı kartın kısa süre içinde tekrar okunması yeni satış sayılmaz.
+ */
+final class NfcReaderSession implements NfcAdapter.ReaderCallback {
+    private static final String TAG = "NfcReaderSession";
+
+    static final int DEFAULT_PRESENCE_CHECK_DELAY_MS = 150;
+    static final long DEFAULT_DEBOUNCE_MS = 3000;
+
+    enum Event {
+        TAP("tap"),
+        CARD_READ("card_read"),
+        DECLINED("declined"),
+        DUPLICATE("duplicate"),
+        NO_SALE("no_sale");
+
+        final String jsName;
+
+        Event(String jsName) {
+            this.jsName = jsName;
+        }
+    }
+
+    static final class Sale {
+        final String id;
+        final long amountMinor;
+
+        Sale(String id, long amountMinor) {
+            this.id = id;
+            this.amountMinor = amountMinor;
+        }
+    }
+
+    interface Listener {
+        /**
+         * Okuyucu thread'inden çağrılır; sale NO_SALE için null'dır
+         */
+        void onReaderEvent(NfcReaderSession session, Event event, Sale sale, String transactionId,
+                           String error);
+    }
+
+    final String id;
+
+    private final NfcAdapter adapter;
+    private final Listener listener;
+    private final TransactionIdGenerator ids;
+    private final long debounceMs;
+    private final int transceiveTimeoutMs;
+    private final EmvCardReader cardReader = new EmvCardReader();
+    private final ConcurrentLinkedQueue<Sale> sales = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean reading = new AtomicBoolean(false);
+    private final Bundle readerOptions = new Bundle();
+
+    private volatile boolean closed;
+    // Fingerprint of the last card read, never the PAN itself
+    private long lastCardFingerprint;
+    private long lastCardAt;
+
+    NfcReaderSession(String id, NfcAdapter adapter, TransactionIdGenerator ids, int presenceCheckDelayMs,
+                     long debounceMs, int transceiveTimeoutMs, Listener listener) {
+        this.id = id;
+        this.adapter = adapter;
+        this.ids = ids;
+        this.debounceMs = debounceMs;
+        this.transceiveTimeoutMs = transceiveTimeoutMs;
+        this.listener = listener;
+        readerOptions.putInt(NfcAdapter.EXTRA_READER_PRESENCE_CHECK_DELAY, presenceCheckDelayMs);
+    }
+
+    /**
+     * Reader mode'u activity ön plandayken aç; ana thread'den çağrılır
+     */
+    void attach(Activity activity) {
+        if (closed || activity == null) {
+            return;
+        }
+        adapter.enableReaderMode(activity, this, NfcSupport.READER_FLAGS, readerOptions);
+    }
+
+    /**
+     * Activity arka plana geçerken reader mode'u kapat; ana thread'den çağrılır
+     */
+    void detach(Activity activity) {
+        if (activity == null) {
+            return;
+        }
+        try {
+            adapter.disableReaderMode(activity);
+        } catch (IllegalStateException e) {
+            Log.w(TAG, "Reader mode already disabled", e);
+        }
+    }
+
+    void enqueueSale(Sale sale) {
+        if (closed) {
+            throw new IllegalStateException("Reader session closed");
+        }
+        sales.add(sale);
+    }
+
+    int pendingSales() {
+        return sales.size();
+    }
+
+    void close(Activity activity) {
+        closed = true;
+        sales.clear();
+        detach(activity);
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Reader mode bağlantı thread'inde çalışır; kart alanda kaldığı sürece APDU'lar burada gönderilir
+     */
+    @Override
+    public void onTagDiscovered(Tag tag) {
+        if (closed || !reading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Sale sale = sales.peek();
+            if (sale == null) {
+                listener.onReaderEvent(this, Event.NO_SALE, null, null, null);
+                return;
+            }
+            listener.onReaderEvent(this, Event.TAP, sale, null, null);
+            readSale(tag, sale);
+        } finally {
+            reading.set(false);
+        }
+    }
+
+    private void readSale(Tag tag, Sale sale) {
+        CardTransceiver transceiver = null;
+        EmvCardData card = null;
+        try {
+            long readStart = System.nanoTime();
+            transceiver = IsoDepTransceiver.connect(tag, transceiveTimeoutMs);
+            card = cardReader.read(transceiver, sale.amountMinor);
+            PaymentMetrics.get().record(PaymentMetrics.Stage.NFC_CARD_READ, readStart);
+
+            long fingerprint = fingerprint(card.pan, card.panLength);
+            long now = SystemClock.elapsedRealtime();
+            if (fingerprint == lastCardFingerprint && now - lastCardAt < debounceMs) {
+                listener.onReaderEvent(this, Event.DUPLICATE, sale, null, null);
+                return;
+            }
+
+            long authorizationStart = System.nanoTime();
+            boolean authorized = isCardUsable(card);
+            PaymentMetrics.get().record(PaymentMetrics.Stage.NFC_AUTHORIZATION, authorizationStart);
+            // A declined card keeps the sale at the head of the queue for the next tap
+            if (!authorized) {
+                listener.onReaderEvent(this, Event.DECLINED, sale, null, "Kart bilgileri geçersiz");
+                return;
+            }
+            if (!sales.remove(sale)) {
+                return;
+            }
+            lastCardFingerprint = fingerprint;
+            lastCardAt = now;
+            listener.onReaderEvent(this, Event.CARD_READ, sale, ids.next("NFC_"), null);
+        } catch (IOException e) {
+            Log.w(TAG, "Card read failed", e);
+            listener.onReaderEvent(this, Event.DECLINED, sale, null, "Kart okunamadı, lütfen tekrar deneyin");
+        } catch (RuntimeException e) {
+            Log.e(TAG, "NFC reader error", e);
+            listener.onReaderEvent(this, Event.DECLINED, sale, null, "NFC işlemi sırasında hata oluştu");
+        } finally {
+            if (card != null) {
+                card.clear();
+            }
+            if (transceiver != null) {
+                try {
+                    transceiver.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "IsoDep close error", e);
+                }
+            }
+        }
+    }
+
+    private static boolean isCardUsable(EmvCardData card) {
+        return CardValidator.checkTappedCard(card) == CardValidator.VALID;
+    }
+
+    // FNV-1a over the PAN digits; only used to spot the same card twice in a row
+    private static long fingerprint(char[] pan, int length) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < length; i++) {
+            hash ^= pan[i];
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+}
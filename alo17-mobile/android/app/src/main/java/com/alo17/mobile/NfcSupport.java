@@ -0,0 +1,86 @@
+package com.alo17.mobile;
+
+import android.content.Context;
+import android.content.IntentFilter;
+import android.nfc.NfcAdapter;
+import android.nfc.tech.IsoDep;
+import android.nfc.tech.NfcA;
+import android.nfc.tech.NfcB;
+import android.nfc.tech.NfcF;
+import android.nfc.tech.NfcV;
+
+/**
+ * NFC adaptörü ve foreground dispatch tablolarının süreç genelinde tembel önbelleği.
+ * Adaptör ilk ihtiyaçta bir kez sorgulanır; ödeme yapmayan kullanıcı açılışta bedel ödemez.
+ * Filtre ve teknoloji tabloları değişmez, her NFC ekranında yeniden kurulmaz.
+ */
+final class NfcSupport {
+
+    // Reader mode for payment cards: no NDEF probing and no platform beep mid-transaction
+    static final int READER_FLAGS = NfcAdapter.FLAG_READER_NFC_A
+        | NfcAdapter.FLAG_READER_NFC_B
+        | NfcAdapter.FLAG_READER_SKIP_NDEF_CHECK
+        | NfcAdapter.FLAG_READER_NO_PLATFORM_SOUNDS;
+
+    private static volatile NfcAdapter adapter;
+    private static volatile boolean probed;
+
+    private NfcSupport() {
+    }
+
+    /**
+     * Varsayılan NFC adaptörü; cihazda NFC yoksa null. Her thread'den çağrılabilir.
+     */
+    static NfcAdapter adapter(Context context) {
+        if (!probed) {
+            synchronized (NfcSupport.class) {
+                if (!probed) {
+                    adapter = NfcAdapter.getDefaultAdapter(context.getApplicationContext());
+                    probed = true;
+                }
+            }
+        }
+        return adapter;
+    }
+
+    static boolean isSupported(Context context) {
+        return adapter(context) != null;
+    }
+
+    static boolean isEnabled(Context context) {
+        NfcAdapter nfcAdapter = adapter(context);
+        return nfcAdapter != null && nfcAdapter.isEnabled();
+    }
+
+    // enableForegroundDispatch only reads these arrays, so one shared copy is enough
+    static IntentFilter[] intentFilters() {
+        return Tables.INTENT_FILTERS;
+    }
+
+    static String[][] techLists() {
+        return Tables.TECH_LISTS;
+    }
+
+    // Holder class: the tables are built the first time an NFC screen asks for them
+    private static final class Tables {
+        static final IntentFilter[] INTENT_FILTERS = buildIntentFilters();
+
+        static final String[][] TECH_LISTS = {
+            {IsoDep.class.getName()},
+            {NfcA.class.getName()},
+            {NfcB.class.getName()},
+            {NfcF.class.getName()},
+            {NfcV.class.getName()}
+        };
+
+        private static IntentFilter[] buildIntentFilters() {
+            IntentFilter tech = new IntentFilter(NfcAdapter.ACTION_TECH_DISCOVERED);
+            try {
+                tech.addDataType("*/*");
+            } catch (IntentFilter.MalformedMimeTypeException e) {
+                throw new RuntimeException("MIME type error", e);
+            }
+            return new IntentFilter[]{tech};
+        }
+    }
+}
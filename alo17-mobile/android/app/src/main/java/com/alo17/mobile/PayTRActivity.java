@@ -2,34 +2,56 @@ package com.alo17.mobile;
 
 import android.app.Activity;
 import android.content.Intent;
-import android.net.Uri;
+import android.graphics.Bitmap;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
-import android.webkit.WebSettings;
 import android.webkit.WebResourceRequest;
 import android.webkit.WebResourceError;
+import android.webkit.WebResourceResponse;
 import android.widget.Toast;
 import android.util.Log;
 
 public class PayTRActivity extends Activity {
     private static final String TAG = "PayTRActivity";
     private WebView webView;
+    private String sessionId;
     private String paymentUrl;
     private String successUrl;
     private String failUrl;
     private String cancelUrl;
+    private long amountMinor;
+    private PaymentCallbackMatcher callbackMatcher;
+    private PayTRAssetCache assetCache;
+    private final PaymentDevTools devTools = PaymentDevToolsFactory.get();
+    private long createdAt;
+    private long pageStartedAt;
+    private PaymentScheduler.Scope scope;
+    private PayTRLoadSupervisor loadSupervisor;
+    // Supervision covers the initial payment page load only; later 3-D Secure errors are shown, not retried
+    private PayTRLoadSupervisor.NetworkType networkType;
+    private int loadAttempt;
+    private boolean loadPending;
+    private long loadStartedAt;
+    // Asset cache counters when the current load attempt started
+    private long missesAtLoad;
+    private long cacheBytesAtLoad;
+    private long networkBytesAtLoad;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        createdAt = System.nanoTime();
         
         // Get payment data from intent
         Intent intent = getIntent();
+        sessionId = intent.getStringExtra("session_id");
         paymentUrl = intent.getStringExtra("payment_url");
         successUrl = intent.getStringExtra("success_url");
         failUrl = intent.getStringExtra("fail_url");
         cancelUrl = intent.getStringExtra("cancel_url");
+        amountMinor = intent.getLongExtra(PaymentResult.EXTRA_AMOUNT_MINOR, PaymentResult.UNKNOWN_AMOUNT);
         
         if (paymentUrl == null) {
             Toast.makeText(this, "Ödeme URL'i bulunamadı", Toast.LENGTH_SHORT).show();
@@ -37,110 +59,248 @@ public class PayTRActivity extends Activity {
             return;
         }
         
+        callbackMatcher = PaymentCallbackMatcher.compile(successUrl, failUrl, cancelUrl);
+        assetCache = PayTRAssetCache.get(this);
+        scope = PaymentScheduler.get().newScope();
+        loadSupervisor = PayTRLoadSupervisor.get();
         setupWebView();
         loadPaymentPage();
     }
     
     private void setupWebView() {
-        webView = new WebView(this);
+        // Reuse the WebView warmed up by PaymentModule.preparePayTR when available
+        long acquireStart = System.nanoTime();
+        webView = PayTRWebViewPool.get(this).acquire(this);
+        PaymentMetrics.get().record(PaymentMetrics.Stage.PAYTR_WEBVIEW_CREATE, acquireStart);
         setContentView(webView);
         
-        WebSettings webSettings = webView.getSettings();
-        webSettings.setJavaScriptEnabled(true);
-        webSettings.setDomStorageEnabled(true);
-        webSettings.setLoadWithOverviewMode(true);
-        webSettings.setUseWideViewPort(true);
-        webSettings.setBuiltInZoomControls(true);
-        webSettings.setDisplayZoomControls(false);
-        webSettings.setSupportZoom(true);
-        webSettings.setDefaultTextEncodingName("utf-8");
-        
         webView.setWebViewClient(new WebViewClient() {
             @Override
             public boolean shouldOverrideUrlLoading(WebView view, WebResourceRequest request) {
                 String url = request.getUrl().toString();
-                Log.d(TAG, "Loading URL: " + url);
+                PaymentCallbackMatcher.Outcome outcome = callbackMatcher.match(url);
+                if (outcome != PaymentCallbackMatcher.Outcome.NONE) {
+                    PaymentMetrics.get().record(PaymentMetrics.Stage.PAYTR_CALLBACK, createdAt);
+                }
                 
                 // Handle PayTR callback URLs
-                if (url.contains("alo17://payment/success")) {
-                    handlePaymentSuccess(url);
-                    return true;
-                } else if (url.contains("alo17://payment/failed")) {
-                    handlePaymentFailed(url);
-                    return true;
-                } else if (url.contains("alo17://payment/cancelled")) {
-                    handlePaymentCancelled(url);
-                    return true;
+                switch (outcome) {
+                    case SUCCESS:
+                        handlePaymentSuccess(url);
+                        return true;
+                    case FAILED:
+                        handlePaymentFailed(url);
+                        return true;
+                    case CANCELLED:
+                        handlePaymentCancelled(url);
+                        return true;
+                    default:
+                        return false;
                 }
-                
-                return false;
+            }
+            
+            @Override
+            public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+                // Runs on a WebView background thread; null lets the WebView load it normally
+                WebResourceResponse simulated = devTools.interceptRequest(request.getUrl());
+                if (simulated != null) {
+                    return simulated;
+                }
+                return assetCache.intercept(request);
+            }
+            
+            @Override
+            public void onPageStarted(WebView view, String url, Bitmap favicon) {
+                super.onPageStarted(view, url, favicon);
+                pageStartedAt = System.nanoTime();
+                publishProgress(PaymentProgressEvent.Type.PAGE_STARTED);
             }
             
             @Override
             public void onPageFinished(WebView view, String url) {
                 super.onPageFinished(view, url);
-                Log.d(TAG, "Page loaded: " + url);
+                long startedAt = pageStartedAt;
+                if (pageStartedAt != 0) {
+                    PaymentMetrics.get().record(PaymentMetrics.Stage.PAYTR_PAGE_LOAD, pageStartedAt);
+                    pageStartedAt = 0;
+                }
+                if (loadPending) {
+                    loadPending = false;
+                    loadSupervisor.recordSuccess(networkType, SystemClock.elapsedRealtime() - loadStartedAt);
+                    recordPageLoadSavings(startedAt);
+                    // Drops the warm view's preconnect page and failed attempts, so back cancels instead
+                    view.clearHistory();
+                }
+                publishProgress(PaymentProgressEvent.Type.PAGE_LOADED);
             }
             
             @Override
             public void onReceivedError(WebView view, WebResourceRequest request, WebResourceError error) {
                 super.onReceivedError(view, request, error);
                 Log.e(TAG, "WebView error: " + error.getDescription());
-                Toast.makeText(PayTRActivity.this, "Ödeme sayfası yüklenirken hata oluştu", Toast.LENGTH_SHORT).show();
+                // Sub-resource failures do not stop the payment form from working
+                if (request.isForMainFrame()) {
+                    onLoadAttemptFailed(false);
+                }
+            }
+            
+            @Override
+            public void onReceivedHttpError(WebView view, WebResourceRequest request,
+                                            WebResourceResponse errorResponse) {
+                super.onReceivedHttpError(view, request, errorResponse);
+                if (request.isForMainFrame() && errorResponse.getStatusCode() >= 500) {
+                    Log.e(TAG, "PayTR returned HTTP " + errorResponse.getStatusCode());
+                    onLoadAttemptFailed(false);
+                }
             }
         });
     }
     
+    // Warm vs cold page load times and per-load asset bytes are the measured effect of the asset cache
+    private void recordPageLoadSavings(long startedAt) {
+        boolean warm = assetCache.misses.get() == missesAtLoad;
+        if (startedAt != 0) {
+            PaymentMetrics.get().record(warm ? PaymentMetrics.Stage.PAYTR_PAGE_LOAD_WARM
+                : PaymentMetrics.Stage.PAYTR_PAGE_LOAD_COLD, startedAt);
+        }
+        assetCache.recordPageLoad(assetCache.bytesFromCache.get() - cacheBytesAtLoad,
+            assetCache.bytesFromNetwork.get() - networkBytesAtLoad);
+    }
+
     private void loadPaymentPage() {
-        Log.d(TAG, "Loading payment URL: " + paymentUrl);
+        if (webView == null) {
+            return;
+        }
+        if (!loadSupervisor.allowRequest()) {
+            handlePaymentUnavailable();
+            return;
+        }
+        loadAttempt++;
+        networkType = PayTRLoadSupervisor.networkType(this);
+        long deadlineMs = loadSupervisor.deadlineMs(networkType);
+        Log.d(TAG, "Loading payment page, attempt " + loadAttempt + ", deadline " + deadlineMs + "ms");
+        loadPending = true;
+        loadStartedAt = SystemClock.elapsedRealtime();
+        missesAtLoad = assetCache.misses.get();
+        cacheBytesAtLoad = assetCache.bytesFromCache.get();
+        networkBytesAtLoad = assetCache.bytesFromNetwork.get();
+        int attempt = loadAttempt;
+        scope.postMainDelayed(() -> {
+            // A later attempt or a finished load makes this deadline stale
+            if (attempt == loadAttempt) {
+                onLoadAttemptFailed(true);
+            }
+        }, deadlineMs);
         webView.loadUrl(paymentUrl);
     }
     
+    /**
+     * Ana çerçeve yüklemesi başarısız oldu; ilk yüklemede geri çekilerek yeniden dene veya PayTR'yi
+     * kullanılamaz say, sonraki sayfalarda kullanıcıya göster
+     */
+    private void onLoadAttemptFailed(boolean timedOut) {
+        if (!loadPending) {
+            // Past the initial load, e.g. a 3-D Secure redirect: not retried, but the user must see it
+            if (!timedOut) {
+                Toast.makeText(this, "Ödeme sayfası yüklenirken hata oluştu", Toast.LENGTH_SHORT).show();
+            }
+            return;
+        }
+        loadPending = false;
+        loadSupervisor.recordFailure(networkType, SystemClock.elapsedRealtime() - loadStartedAt, timedOut);
+        if (webView != null) {
+            webView.stopLoading();
+        }
+        if (loadAttempt >= PayTRLoadSupervisor.MAX_ATTEMPTS) {
+            handlePaymentUnavailable();
+            return;
+        }
+        long delayMs = loadSupervisor.retryDelayMs(loadAttempt);
+        Log.w(TAG, (timedOut ? "Payment page timed out" : "Payment page failed") + ", retrying in " + delayMs + "ms");
+        Toast.makeText(this, "Ödeme sayfası yüklenemedi, yeniden deneniyor", Toast.LENGTH_SHORT).show();
+        scope.postMainDelayed(this::loadPaymentPage, delayMs);
+    }
+    
+    private void handlePaymentUnavailable() {
+        Log.w(TAG, "PayTR unavailable, circuit " + loadSupervisor.state().jsName);
+        
+        Intent resultIntent = new Intent();
+        resultIntent.putExtra(PaymentResult.EXTRA_STATUS, "failed");
+        resultIntent.putExtra(PaymentResult.EXTRA_ERROR, "Ödeme sayfası yüklenemedi");
+        resultIntent.putExtra(PaymentResult.EXTRA_ERROR_CODE, PaymentResult.ERROR_PAYTR_UNAVAILABLE);
+        setResult(RESULT_CANCELED, resultIntent);
+        publishProgress(PaymentProgressEvent.Type.DECLINED);
+        PaymentEventBus.get().publishResult(sessionId, RESULT_CANCELED, resultIntent);
+        
+        Toast.makeText(this, "Ödeme servisine şu an ulaşılamıyor", Toast.LENGTH_SHORT).show();
+        finish();
+    }
+    
     private void handlePaymentSuccess(String url) {
-        Log.d(TAG, "Payment success: " + url);
+        Log.d(TAG, "Payment success callback");
         
         // Extract payment data from URL
-        Uri uri = Uri.parse(url);
-        String token = uri.getQueryParameter("token");
-        String amount = uri.getQueryParameter("amount");
+        String token = PaymentCallbackMatcher.queryParameter(url, "token");
+        // The callback amount is decimal TL; fall back to the requested amount when it is missing
+        long callbackAmount = PaymentCallbackMatcher.queryAmountMinor(url, "amount");
         
         // Send result to React Native
         Intent resultIntent = new Intent();
-        resultIntent.putExtra("status", "success");
-        resultIntent.putExtra("token", token);
-        resultIntent.putExtra("amount", amount);
+        resultIntent.putExtra(PaymentResult.EXTRA_STATUS, "success");
+        resultIntent.putExtra(PaymentResult.EXTRA_TOKEN, token);
+        resultIntent.putExtra(PaymentResult.EXTRA_AMOUNT_MINOR,
+            callbackAmount != PaymentResult.UNKNOWN_AMOUNT ? callbackAmount : amountMinor);
         setResult(RESULT_OK, resultIntent);
+        publishProgress(PaymentProgressEvent.Type.APPROVED);
+        PaymentEventBus.get().publishResult(sessionId, RESULT_OK, resultIntent);
         
         Toast.makeText(this, "Ödeme başarılı!", Toast.LENGTH_SHORT).show();
         finish();
     }
     
     private void handlePaymentFailed(String url) {
-        Log.d(TAG, "Payment failed: " + url);
+        Log.d(TAG, "Payment failed callback");
         
-        Uri uri = Uri.parse(url);
-        String error = uri.getQueryParameter("error");
+        String error = PaymentCallbackMatcher.queryParameter(url, "error");
         
         Intent resultIntent = new Intent();
-        resultIntent.putExtra("status", "failed");
-        resultIntent.putExtra("error", error);
+        resultIntent.putExtra(PaymentResult.EXTRA_STATUS, "failed");
+        resultIntent.putExtra(PaymentResult.EXTRA_ERROR, error);
         setResult(RESULT_CANCELED, resultIntent);
+        publishProgress(PaymentProgressEvent.Type.DECLINED);
+        PaymentEventBus.get().publishResult(sessionId, RESULT_CANCELED, resultIntent);
         
         Toast.makeText(this, "Ödeme başarısız: " + error, Toast.LENGTH_SHORT).show();
         finish();
     }
     
     private void handlePaymentCancelled(String url) {
-        Log.d(TAG, "Payment cancelled: " + url);
+        Log.d(TAG, "Payment cancelled callback");
         
         Intent resultIntent = new Intent();
-        resultIntent.putExtra("status", "cancelled");
+        resultIntent.putExtra(PaymentResult.EXTRA_STATUS, "cancelled");
         setResult(RESULT_CANCELED, resultIntent);
+        publishProgress(PaymentProgressEvent.Type.CANCELLED);
+        PaymentEventBus.get().publishResult(sessionId, RESULT_CANCELED, resultIntent);
         
         Toast.makeText(this, "Ödeme iptal edildi", Toast.LENGTH_SHORT).show();
         finish();
     }
     
+    private void publishProgress(PaymentProgressEvent.Type type) {
+        PaymentEventBus.get().publishProgress(sessionId, type);
+    }
+    
+    @Override
+    protected void onDestroy() {
+        if (scope != null) {
+            scope.cancel();
+        }
+        PayTRWebViewPool.get(this).release(webView);
+        webView = null;
+        super.onDestroy();
+    }
+    
     @Override
     public void onBackPressed() {
         if (webView.canGoBack()) {
@@ -0,0 +1,544 @@
+package com.alo17.mobile;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PayTR ödeme sayfasının statik dosyaları (JS, CSS, font, görsel) için diskte LRU önbellek.
+ * WebViewClient.shouldInterceptRequest içinden, WebView'in arka plan thread'inde çağrılır.
+ * Taze kayıt doğrudan diskten sunulur; bayat kayıt ETag/Last-Modified ile yeniden doğrulanır,
+ * ağ yoksa bayat kopya kullanılır. Ana sayfa, API ve ödeme uç noktaları asla önbelleğe alınmaz.
+ */
+final class PayTRAssetCache {
+    private static final String TAG = "PayTRAssetCache";
+
+    static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    private static final long MAX_ENTRY_BYTES = 2L * 1024 * 1024;
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 15000;
+    private static final String[] ALLOWED_HOST_SUFFIXES = {"paytr.com"};
+    private static final String[] SENSITIVE_PATH_PARTS = {"/odeme", "/api", "/payment", "/callback", "/token"};
+
+    private static final Map<String, String> MIME_BY_EXTENSION = new HashMap<>();
+
+    static {
+        MIME_BY_EXTENSION.put("js", "application/javascript");
+        MIME_BY_EXTENSION.put("css", "text/css");
+        MIME_BY_EXTENSION.put("woff", "font/woff");
+        MIME_BY_EXTENSION.put("woff2", "font/woff2");
+        MIME_BY_EXTENSION.put("ttf", "font/ttf");
+        MIME_BY_EXTENSION.put("png", "image/png");
+        MIME_BY_EXTENSION.put("jpg", "image/jpeg");
+        MIME_BY_EXTENSION.put("jpeg", "image/jpeg");
+        MIME_BY_EXTENSION.put("gif", "image/gif");
+        MIME_BY_EXTENSION.put("svg", "image/svg+xml");
+        MIME_BY_EXTENSION.put("webp", "image/webp");
+    }
+
+    private static final class Entry {
+        final String key;
+        String mimeType;
+        String encoding;
+        String etag;
+        String lastModified;
+        String allowOrigin;
+        long storedAt;
+        long maxAgeMs;
+        long size;
+
+        Entry(String key) {
+            this.key = key;
+        }
+
+        boolean isFresh(long now) {
+            return now - storedAt < maxAgeMs;
+        }
+
+        JSONObject toJson() throws JSONException {
+            return new JSONObject()
+                .put("mime", mimeType)
+                .put("encoding", encoding)
+                .put("etag", etag)
+                .put("last_modified", lastModified)
+                .put("allow_origin", allowOrigin)
+                .put("stored_at", storedAt)
+                .put("max_age_ms", maxAgeMs)
+                .put("size", size);
+        }
+
+        static Entry fromJson(String key, JSONObject json) {
+            Entry entry = new Entry(key);
+            entry.mimeType = json.optString("mime", "application/octet-stream");
+            entry.encoding = json.has("encoding") ? json.optString("encoding") : null;
+            entry.etag = json.has("etag") ? json.optString("etag") : null;
+            entry.lastModified = json.has("last_modified") ? json.optString("last_modified") : null;
+            entry.allowOrigin = json.has("allow_origin") ? json.optString("allow_origin") : null;
+            entry.storedAt = json.optLong("stored_at");
+            entry.maxAgeMs = json.optLong("max_age_ms");
+            entry.size = json.optLong("size");
+            return entry;
+        }
+    }
+
+    private static PayTRAssetCache instance;
+
+    private final File dir;
+    private final long maxBytes;
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(64, 0.75f, true);
+    // Written under the lock, read without it by getMetrics on the bridge thread
+    private volatile long totalBytes;
+    private boolean loaded;
+
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong revalidated = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+    final AtomicLong bytesFromCache = new AtomicLong();
+    final AtomicLong bytesFromNetwork = new AtomicLong();
+    // Initial payment page loads and the asset bytes each one took, from the cache or the network
+    final AtomicLong pageLoads = new AtomicLong();
+    final AtomicLong pageBytesFromCache = new AtomicLong();
+    final AtomicLong pageBytesFromNetwork = new AtomicLong();
+
+    PayTRAssetCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    static synchronized PayTRAssetCache get(Context context) {
+        if (instance == null) {
+            instance = new PayTRAssetCache(new File(context.getCacheDir(), "paytr-assets"),
+                DEFAULT_MAX_BYTES);
+        }
+        return instance;
+    }
+
+    /**
+     * İsteği önbellekten karşıla; önbelleğe uygun değilse null döner ve WebView kendisi yükler
+     */
+    WebResourceResponse intercept(WebResourceRequest request) {
+        if (!isCacheable(request.getMethod(), request.getUrl(), request.isForMainFrame(),
+            request.getRequestHeaders())) {
+            return null;
+        }
+        String url = request.getUrl().toString();
+        String key = keyFor(url);
+        Entry entry = lookup(key);
+        long now = System.currentTimeMillis();
+
+        if (entry != null && entry.isFresh(now)) {
+            WebResourceResponse cached = serveFromDisk(entry);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        try {
+            return fetch(url, key, entry, request.getRequestHeaders());
+        } catch (IOException e) {
+            // Offline: a stale copy is better than a blank payment form
+            if (entry != null) {
+                WebResourceResponse stale = serveFromDisk(entry);
+                if (stale != null) {
+                    hits.incrementAndGet();
+                    return stale;
+                }
+            }
+            Log.w(TAG, "Asset fetch failed, falling back to WebView", e);
+            return null;
+        }
+    }
+
+    /**
+     * Yalnızca izinli PayTR alan adlarındaki statik dosyalar için GET istekleri önbelleğe alınır
+     */
+    static boolean isCacheable(String method, Uri uri, boolean mainFrame, Map<String, String> headers) {
+        if (mainFrame || !"GET".equalsIgnoreCase(method) || uri == null) {
+            return false;
+        }
+        if (!"https".equalsIgnoreCase(uri.getScheme()) || !isAllowedHost(uri.getHost())) {
+            return false;
+        }
+        if (headers != null) {
+            for (String name : headers.keySet()) {
+                if ("authorization".equalsIgnoreCase(name) || "range".equalsIgnoreCase(name)) {
+                    return false;
+                }
+            }
+        }
+        String path = uri.getPath();
+        if (path == null) {
+            return false;
+        }
+        String lowerPath = path.toLowerCase(Locale.ROOT);
+        for (String part : SENSITIVE_PATH_PARTS) {
+            if (lowerPath.contains(part)) {
+                return false;
+            }
+        }
+        return mimeForPath(lowerPath) != null;
+    }
+
+    private static boolean isAllowedHost(String host) {
+        if (host == null) {
+            return false;
+        }
+        String lower = host.toLowerCase(Locale.ROOT);
+        for (String suffix : ALLOWED_HOST_SUFFIXES) {
+            if (lower.equals(suffix) || lower.endsWith("." + suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String mimeForPath(String lowerPath) {
+        int dot = lowerPath.lastIndexOf('.');
+        if (dot < 0 || dot < lowerPath.lastIndexOf('/')) {
+            return null;
+        }
+        return MIME_BY_EXTENSION.get(lowerPath.substring(dot + 1));
+    }
+
+    private WebResourceResponse fetch(String url, String key, Entry entry, Map<String, String> requestHeaders)
+        throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setInstanceFollowRedirects(true);
+            if (requestHeaders != null) {
+                String userAgent = requestHeaders.get("User-Agent");
+                if (userAgent != null) {
+                    connection.setRequestProperty("User-Agent", userAgent);
+                }
+            }
+            if (entry != null) {
+                if (entry.etag != null) {
+                    connection.setRequestProperty("If-None-Match", entry.etag);
+                }
+                if (entry.lastModified != null) {
+                    connection.setRequestProperty("If-Modified-Since", entry.lastModified);
+                }
+            }
+
+            int code = connection.getResponseCode();
+            long now = System.currentTimeMillis();
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED && entry != null) {
+                entry.storedAt = now;
+                entry.maxAgeMs = maxAgeMs(connection.getHeaderField("Cache-Control"), entry.maxAgeMs);
+                writeMeta(entry);
+                WebResourceResponse cached = serveFromDisk(entry);
+                if (cached != null) {
+                    revalidated.incrementAndGet();
+                    return cached;
+                }
+                // The body vanished from disk; fetch it again without validators
+                remove(entry);
+                return fetch(url, key, null, requestHeaders);
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                // Let the WebView see the real error response
+                return null;
+            }
+            long length = connection.getContentLengthLong();
+            if (length > MAX_ENTRY_BYTES) {
+                return null;
+            }
+
+            byte[] body = readBody(connection.getInputStream());
+            misses.incrementAndGet();
+            bytesFromNetwork.addAndGet(body.length);
+
+            Entry fresh = new Entry(key);
+            fresh.mimeType = mimeOf(connection.getContentType(), url);
+            fresh.encoding = charsetOf(connection.getContentType());
+            fresh.etag = connection.getHeaderField("ETag");
+            fresh.lastModified = connection.getHeaderField("Last-Modified");
+            fresh.allowOrigin = connection.getHeaderField("Access-Control-Allow-Origin");
+            fresh.storedAt = now;
+            fresh.size = body.length;
+            String cacheControl = connection.getHeaderField("Cache-Control");
+            fresh.maxAgeMs = maxAgeMs(cacheControl, 0);
+            if (isStorable(cacheControl) && body.length <= MAX_ENTRY_BYTES) {
+                store(fresh, body);
+            }
+            return response(fresh, new ByteArrayInputStream(body));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static boolean isStorable(String cacheControl) {
+        if (cacheControl == null) {
+            return true;
+        }
+        String lower = cacheControl.toLowerCase(Locale.ROOT);
+        return !lower.contains("no-store") && !lower.contains("private");
+    }
+
+    // Without max-age every use is revalidated, which still saves the body on a 304
+    static long maxAgeMs(String cacheControl, long fallback) {
+        if (cacheControl == null) {
+            return fallback;
+        }
+        String lower = cacheControl.toLowerCase(Locale.ROOT);
+        if (lower.contains("no-cache")) {
+            return 0;
+        }
+        int at = lower.indexOf("max-age=");
+        if (at < 0) {
+            return fallback;
+        }
+        long seconds = 0;
+        for (int i = at + 8; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            seconds = seconds * 10 + (c - '0');
+            if (seconds > Integer.MAX_VALUE) {
+                break;
+            }
+        }
+        return seconds * 1000;
+    }
+
+    private static String mimeOf(String contentType, String url) {
+        if (contentType != null) {
+            int semicolon = contentType.indexOf(';');
+            return (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim();
+        }
+        String mime = mimeForPath(Uri.parse(url).getPath().toLowerCase(Locale.ROOT));
+        return mime != null ? mime : "application/octet-stream";
+    }
+
+    private static String charsetOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int at = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+        return at >= 0 ? contentType.substring(at + 8).trim() : null;
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+            byte[] chunk = new byte[8192];
+            int n;
+            while ((n = input.read(chunk)) > 0) {
+                out.write(chunk, 0, n);
+                if (out.size() > MAX_ENTRY_BYTES) {
+                    throw new IOException("Asset larger than cache limit");
+                }
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private WebResourceResponse serveFromDisk(Entry entry) {
+        try {
+            InputStream body = new FileInputStream(bodyFile(entry.key));
+            bytesFromCache.addAndGet(entry.size);
+            return response(entry, body);
+        } catch (IOException e) {
+            remove(entry);
+            return null;
+        }
+    }
+
+    private static WebResourceResponse response(Entry entry, InputStream body) {
+        Map<String, String> headers = new HashMap<>();
+        if (entry.allowOrigin != null) {
+            headers.put("Access-Control-Allow-Origin", entry.allowOrigin);
+        }
+        return new WebResourceResponse(entry.mimeType, entry.encoding, 200, "OK", headers, body);
+    }
+
+    private synchronized Entry lookup(String key) {
+        ensureLoaded();
+        return index.get(key);
+    }
+
+    private synchronized void store(Entry entry, byte[] body) {
+        ensureLoaded();
+        File tmp = new File(dir, entry.key + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                out.write(body);
+            }
+            if (!tmp.renameTo(bodyFile(entry.key))) {
+                throw new IOException("Cannot store " + entry.key);
+            }
+            writeMeta(entry);
+        } catch (IOException e) {
+            Log.w(TAG, "Asset cache write failed", e);
+            tmp.delete();
+            return;
+        }
+        Entry previous = index.put(entry.key, entry);
+        if (previous != null) {
+            totalBytes -= previous.size;
+        }
+        totalBytes += entry.size;
+        trimToSize();
+    }
+
+    private synchronized void writeMeta(Entry entry) {
+        File tmp = new File(dir, entry.key + ".meta.tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                out.write(entry.toJson().toString().getBytes(StandardCharsets.UTF_8));
+            }
+            if (!tmp.renameTo(metaFile(entry.key))) {
+                throw new IOException("Cannot store metadata for " + entry.key);
+            }
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Asset metadata write failed", e);
+        }
+    }
+
+    private synchronized void remove(Entry entry) {
+        if (index.remove(entry.key) != null) {
+            totalBytes -= entry.size;
+        }
+        bodyFile(entry.key).delete();
+        metaFile(entry.key).delete();
+    }
+
+    private void trimToSize() {
+        Iterator<Entry> eldest = index.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.size;
+            bodyFile(entry.key).delete();
+            metaFile(entry.key).delete();
+        }
+    }
+
+    /**
+     * Önbellekteki toplam bayt; dizin henüz yüklenmediyse 0. Dosya okumaz, her thread'den çağrılabilir
+     */
+    long sizeBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Dizini şimdiden yükle, böylece ilk istek WebView thread'inde metadata okumaz
+     */
+    synchronized void warmUp() {
+        ensureLoaded();
+    }
+
+    /**
+     * Tamamlanan ilk ödeme sayfası yüklemesinin statik dosya baytlarını kaydet
+     */
+    void recordPageLoad(long fromCache, long fromNetwork) {
+        pageLoads.incrementAndGet();
+        pageBytesFromCache.addAndGet(fromCache);
+        pageBytesFromNetwork.addAndGet(fromNetwork);
+    }
+
+    // Index is rebuilt from the metadata files on first use, oldest first
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Cannot create asset cache directory");
+            return;
+        }
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(".tmp")) {
+                file.delete();
+                continue;
+            }
+            if (!name.endsWith(".meta")) {
+                continue;
+            }
+            String key = name.substring(0, name.length() - 5);
+            try {
+                Entry entry = Entry.fromJson(key, new JSONObject(readText(file)));
+                if (bodyFile(key).length() == entry.size) {
+                    entries.add(entry);
+                    continue;
+                }
+            } catch (IOException | JSONException e) {
+                Log.w(TAG, "Dropping unreadable asset metadata " + name, e);
+            }
+            file.delete();
+            bodyFile(key).delete();
+        }
+        Collections.sort(entries, (a, b) -> Long.compare(a.storedAt, b.storedAt));
+        for (Entry entry : entries) {
+            index.put(entry.key, entry);
+            totalBytes += entry.size;
+        }
+        trimToSize();
+    }
+
+    private static String readText(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            return new String(readBody(in), StandardCharsets.UTF_8);
+        }
+    }
+
+    private File bodyFile(String key) {
+        return new File(dir, key + ".body");
+    }
+
+    private File metaFile(String key) {
+        return new File(dir, key + ".meta");
+    }
+
+    private static String keyFor(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[32];
+            for (int i = 0; i < 16; i++) {
+                hex[2 * i] = Character.forDigit((digest[i] >> 4) & 0xF, 16);
+                hex[2 * i + 1] = Character.forDigit(digest[i] & 0xF, 16);
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
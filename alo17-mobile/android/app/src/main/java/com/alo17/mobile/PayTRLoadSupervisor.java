@@ -0,0 +1,240 @@
+package com.alo17.mobile;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.Random;
+
+/**
+ * PayTR sayfa yüklemeleri için uyarlanabilir zaman aşımı, yeniden deneme ve devre kesici.
+ * Ağ türü başına yükleme süresi EWMA ile izlenir; son tarih ortalama + 4 sapma olarak hesaplanır.
+ * Art arda hatalarda devre açılır ve PayTR bekleme süresi boyunca hemen reddedilir;
+ * süre dolunca tek bir deneme yüklemesine izin verilir.
+ * Süreç genelinde tek örnektir; saat dışarıdan verilebildiği için cihazsız test edilebilir.
+ */
+final class PayTRLoadSupervisor {
+    private static final String TAG = "PayTRLoadSupervisor";
+
+    static final int MAX_ATTEMPTS = 3;
+
+    private static final long INITIAL_ESTIMATE_MS = 5000;
+    private static final long MIN_DEADLINE_MS = 8000;
+    private static final long MAX_DEADLINE_MS = 45000;
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final long BASE_COOLDOWN_MS = 30 * 1000L;
+    private static final long MAX_COOLDOWN_MS = 5 * 60 * 1000L;
+    private static final long RETRY_BASE_MS = 1000;
+
+    enum NetworkType {
+        WIFI("wifi"),
+        CELLULAR("cellular"),
+        ETHERNET("ethernet"),
+        OTHER("other");
+
+        final String jsName;
+
+        NetworkType(String jsName) {
+            this.jsName = jsName;
+        }
+    }
+
+    enum State {
+        CLOSED("closed"),
+        OPEN("open"),
+        HALF_OPEN("half_open");
+
+        final String jsName;
+
+        State(String jsName) {
+            this.jsName = jsName;
+        }
+    }
+
+    interface Clock {
+        long nowMs();
+    }
+
+    private static PayTRLoadSupervisor instance;
+
+    private final Clock clock;
+    private final Random jitter = new Random();
+    // Jacobson/Karels style estimates per network type; -1 until the first sample
+    private final long[] smoothedMs = new long[NetworkType.values().length];
+    private final long[] deviationMs = new long[NetworkType.values().length];
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long cooldownMs = BASE_COOLDOWN_MS;
+    private long openedAt;
+    private long probeStartedAt = -1;
+
+    PayTRLoadSupervisor(Clock clock) {
+        this.clock = clock;
+        for (int i = 0; i < smoothedMs.length; i++) {
+            smoothedMs[i] = -1;
+        }
+    }
+
+    static synchronized PayTRLoadSupervisor get() {
+        if (instance == null) {
+            instance = new PayTRLoadSupervisor(SystemClock::elapsedRealtime);
+        }
+        return instance;
+    }
+
+    /**
+     * Etkin ağın türü; bilinmiyorsa OTHER
+     */
+    static NetworkType networkType(Context context) {
+        ConnectivityManager connectivity =
+            (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivity == null) {
+            return NetworkType.OTHER;
+        }
+        Network network = connectivity.getActiveNetwork();
+        NetworkCapabilities capabilities = network != null ? connectivity.getNetworkCapabilities(network) : null;
+        if (capabilities == null) {
+            return NetworkType.OTHER;
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+            return NetworkType.WIFI;
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+            return NetworkType.CELLULAR;
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+            return NetworkType.ETHERNET;
+        }
+        return NetworkType.OTHER;
+    }
+
+    /**
+     * Bu ağ türünde bir sayfa yüklemesi için beklenecek en uzun süre
+     */
+    synchronized long deadlineMs(NetworkType type) {
+        long smoothed = smoothedMs[type.ordinal()];
+        if (smoothed < 0) {
+            return clampDeadline(INITIAL_ESTIMATE_MS * 3);
+        }
+        return clampDeadline(smoothed + 4 * deviationMs[type.ordinal()]);
+    }
+
+    synchronized long estimateMs(NetworkType type) {
+        return smoothedMs[type.ordinal()];
+    }
+
+    /**
+     * Yükleme başlatılabilir mi; açık devre bekleme süresi dolunca tek deneme yüklemesine izin verir
+     */
+    synchronized boolean allowRequest() {
+        long now = clock.nowMs();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt < cooldownMs) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeStartedAt = now;
+                Log.d(TAG, "Circuit half-open, allowing a probe load");
+                return true;
+            case HALF_OPEN:
+            default:
+                // A probe abandoned without a result must not block PayTR forever
+                if (now - probeStartedAt > MAX_DEADLINE_MS) {
+                    probeStartedAt = now;
+                    return true;
+                }
+                return false;
+        }
+    }
+
+    /**
+     * Durumu değiştirmeden PayTR'ye şu an istek gönderilebilir mi
+     */
+    synchronized boolean isAvailable() {
+        long now = clock.nowMs();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return now - openedAt >= cooldownMs;
+            case HALF_OPEN:
+            default:
+                return now - probeStartedAt > MAX_DEADLINE_MS;
+        }
+    }
+
+    synchronized void recordSuccess(NetworkType type, long elapsedMs) {
+        addSample(type, elapsedMs);
+        consecutiveFailures = 0;
+        cooldownMs = BASE_COOLDOWN_MS;
+        if (state != State.CLOSED) {
+            Log.d(TAG, "Circuit closed");
+        }
+        state = State.CLOSED;
+    }
+
+    /**
+     * Başarısız yükleme; zaman aşımında geçen süre de tahmine eklenir ki son tarih büyüsün
+     */
+    synchronized void recordFailure(NetworkType type, long elapsedMs, boolean timedOut) {
+        if (timedOut) {
+            addSample(type, elapsedMs);
+        }
+        consecutiveFailures++;
+        long now = clock.nowMs();
+        if (state == State.HALF_OPEN) {
+            cooldownMs = Math.min(MAX_COOLDOWN_MS, cooldownMs * 2);
+            open(now);
+        } else if (state == State.CLOSED && consecutiveFailures >= FAILURE_THRESHOLD) {
+            open(now);
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    synchronized int consecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Yeniden deneme gecikmesi: 1s, 2s, ... artı en fazla yarısı kadar rastgele ek
+     */
+    long retryDelayMs(int attempt) {
+        long base = RETRY_BASE_MS << Math.min(Math.max(attempt - 1, 0), 10);
+        synchronized (jitter) {
+            return base + (long) (jitter.nextDouble() * base / 2);
+        }
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openedAt = now;
+        Log.w(TAG, "Circuit opened after " + consecutiveFailures + " failures, cooldown " + cooldownMs + "ms");
+    }
+
+    private void addSample(NetworkType type, long elapsedMs) {
+        int i = type.ordinal();
+        if (smoothedMs[i] < 0) {
+            smoothedMs[i] = elapsedMs;
+            deviationMs[i] = elapsedMs / 2;
+            return;
+        }
+        // alpha = 1/8 for the mean, beta = 1/4 for the deviation
+        long error = elapsedMs - smoothedMs[i];
+        smoothedMs[i] += error / 8;
+        deviationMs[i] += (Math.abs(error) - deviationMs[i]) / 4;
+    }
+
+    private static long clampDeadline(long deadline) {
+        return Math.max(MIN_DEADLINE_MS, Math.min(MAX_DEADLINE_MS, deadline));
+    }
+}
@@ -0,0 +1,79 @@
+package com.alo17.mobile;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+
+import com.facebook.react.bridge.ReadableMap;
+
+/**
+ * PayTR 3-D Secure ödeme sayfası; PayTRActivity içindeki WebView ile yürür.
+ */
+final class PayTRPaymentProvider implements PaymentProvider {
+
+    static final String ID = "paytr";
+
+    private static final long TIMEOUT_MS = 30 * 60 * 1000L;
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public PaymentSession.Type method() {
+        return PaymentSession.Type.PAYTR;
+    }
+
+    @Override
+    public String errorPrefix() {
+        return "PAYTR";
+    }
+
+    @Override
+    public long defaultTimeoutMs() {
+        return TIMEOUT_MS;
+    }
+
+    /**
+     * Devre açıkken hemen reddedilir ki uygulama NFC önerebilsin
+     */
+    @Override
+    public boolean isAvailable(Context context) {
+        return PayTRLoadSupervisor.get().isAvailable();
+    }
+
+    @Override
+    public String unavailableMessage() {
+        return "Ödeme servisine şu an ulaşılamıyor";
+    }
+
+    @Override
+    public boolean isSimulated() {
+        return false;
+    }
+
+    @Override
+    public Intent createIntent(Activity activity, PaymentSession session, ReadableMap paymentData) {
+        Intent intent = new Intent(activity, PayTRActivity.class);
+        intent.putExtra("session_id", session.id);
+        intent.putExtra("payment_url", paymentData.getString("paymentUrl"));
+        intent.putExtra("success_url", paymentData.getString("successUrl"));
+        intent.putExtra("fail_url", paymentData.getString("failUrl"));
+        intent.putExtra("cancel_url", paymentData.getString("cancelUrl"));
+        long amountMinor = Money.fromPaymentData(paymentData, Money.Currency.TRY);
+        if (amountMinor != Money.INVALID) {
+            intent.putExtra(PaymentResult.EXTRA_AMOUNT_MINOR, amountMinor);
+        }
+        return intent;
+    }
+
+    @Override
+    public void onLaunchFailed(Intent intent) {
+    }
+
+    @Override
+    public PaymentResult parseResult(PaymentSession session, int resultCode, Intent data) {
+        return PaymentResult.fromIntent(session.id, PaymentSession.Type.PAYTR, data);
+    }
+}
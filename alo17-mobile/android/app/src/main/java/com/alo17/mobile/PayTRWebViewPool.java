@@ -0,0 +1,160 @@
+package com.alo17.mobile;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
+import android.view.ViewGroup;
+import android.webkit.WebSettings;
+import android.webkit.WebView;
+
+/**
+ * PayTR ödeme sayfası için önceden oluşturulmuş WebView havuzu.
+ * Sepet ekranı açıldığında prepare() ile ısıtılır, PayTRActivity acquire() ile devralır.
+ * Ödeme oturumu verisi taşıdığı için kullanılan WebView havuza geri dönmez, yok edilir.
+ * Tüm metotlar ana thread'de çağrılmalıdır.
+ */
+final class PayTRWebViewPool {
+    private static final String TAG = "PayTRWebViewPool";
+
+    // Drop an unused warm view after this long so it does not pin memory
+    private static final long WARM_VIEW_TTL_MS = 5 * 60 * 1000L;
+
+    private static PayTRWebViewPool instance;
+
+    private final Context appContext;
+    private final Handler mainHandler = PaymentScheduler.get().mainHandler();
+    private final Runnable expireTask = this::evict;
+
+    private WebView warmView;
+    private MutableContextWrapper warmContext;
+    private long warmedAt;
+
+    private PayTRWebViewPool(Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    static synchronized PayTRWebViewPool get(Context context) {
+        if (instance == null) {
+            instance = new PayTRWebViewPool(context);
+        }
+        return instance;
+    }
+
+    /**
+     * WebView'i önceden oluştur; origin verilirse DNS/TLS bağlantısını önceden kur
+     */
+    void prepare(String origin) {
+        if (warmView == null) {
+            warmContext = new MutableContextWrapper(appContext);
+            warmView = new WebView(warmContext);
+            configure(warmView);
+            Log.d(TAG, "Warm WebView created");
+        }
+        warmedAt = SystemClock.elapsedRealtime();
+
+        String safeOrigin = httpsOrigin(origin);
+        if (safeOrigin != null) {
+            // Chromium keeps its own socket pool, so the preconnect has to happen inside the WebView
+            String html = "<html><head><link rel=\"preconnect\" href=\"" + safeOrigin + "\" crossorigin>"
+                + "<link rel=\"dns-prefetch\" href=\"" + safeOrigin + "\"></head></html>";
+            warmView.loadDataWithBaseURL(null, html, "text/html", "utf-8", null);
+        } else if (origin != null) {
+            Log.w(TAG, "Preconnect skipped, origin is not an https URL");
+        }
+
+        mainHandler.removeCallbacks(expireTask);
+        mainHandler.postDelayed(expireTask, WARM_VIEW_TTL_MS);
+    }
+
+    /**
+     * Isıtılmış WebView'i activity'ye devret; yoksa yeni bir tane oluştur
+     */
+    WebView acquire(Context activityContext) {
+        mainHandler.removeCallbacks(expireTask);
+        WebView view = warmView;
+        if (view != null && SystemClock.elapsedRealtime() - warmedAt < WARM_VIEW_TTL_MS) {
+            warmContext.setBaseContext(activityContext);
+            warmView = null;
+            warmContext = null;
+            // The preconnect page stays in history; PayTRActivity clears it once the payment page has loaded
+            Log.d(TAG, "Using warm WebView");
+            return view;
+        }
+        evict();
+        WebView fresh = new WebView(activityContext);
+        configure(fresh);
+        return fresh;
+    }
+
+    /**
+     * Kullanılmış WebView'i yok et
+     */
+    void release(WebView view) {
+        if (view == null) {
+            return;
+        }
+        if (view.getParent() instanceof ViewGroup) {
+            ((ViewGroup) view.getParent()).removeView(view);
+        }
+        view.stopLoading();
+        view.setWebViewClient(null);
+        view.destroy();
+    }
+
+    boolean isWarm() {
+        return warmView != null;
+    }
+
+    /**
+     * Bellek baskısında ısıtılmış WebView'i bırak
+     */
+    void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+            && level != ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            evict();
+        }
+    }
+
+    void evict() {
+        mainHandler.removeCallbacks(expireTask);
+        if (warmView != null) {
+            Log.d(TAG, "Evicting warm WebView");
+            release(warmView);
+            warmView = null;
+            warmContext = null;
+        }
+    }
+
+    /**
+     * JS'ten gelen değeri https kökenine indir ve HTML özniteliği için kaçışla; geçersizse null
+     */
+    static String httpsOrigin(String value) {
+        if (value == null) {
+            return null;
+        }
+        Uri uri = Uri.parse(value.trim());
+        String host = uri.getHost();
+        if (!"https".equalsIgnoreCase(uri.getScheme()) || host == null || host.isEmpty()) {
+            return null;
+        }
+        String origin = "https://" + host + (uri.getPort() != -1 ? ":" + uri.getPort() : "");
+        return TextUtils.htmlEncode(origin);
+    }
+
+    static void configure(WebView webView) {
+        WebSettings webSettings = webView.getSettings();
+        webSettings.setJavaScriptEnabled(true);
+        webSettings.setDomStorageEnabled(true);
+        webSettings.setLoadWithOverviewMode(true);
+        webSettings.setUseWideViewPort(true);
+        webSettings.setBuiltInZoomControls(true);
+        webSettings.setDisplayZoomControls(false);
+        webSettings.setSupportZoom(true);
+        webSettings.setDefaultTextEncodingName("utf-8");
+    }
+}
@@ -0,0 +1,209 @@
+package com.alo17.mobile;
+
+import android.net.Uri;
+
+/**
+ * PayTR dönüş URL'lerini tek geçişte eşleyen önceden derlenmiş karakter ağacı.
+ * Şema ve host büyük/küçük harf duyarsız, path duyarlıdır.
+ * Eşleşmeyen URL'ler için bellek ayırmaz.
+ */
+final class PaymentCallbackMatcher {
+
+    enum Outcome {
+        NONE,
+        SUCCESS,
+        FAILED,
+        CANCELLED
+    }
+
+    static final String DEFAULT_SUCCESS_URL = "alo17://payment/success";
+    static final String DEFAULT_FAIL_URL = "alo17://payment/failed";
+    static final String DEFAULT_CANCEL_URL = "alo17://payment/cancelled";
+
+    private static final class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        Outcome outcome = Outcome.NONE;
+
+        Node child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node addChild(char c) {
+            Node existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            int n = keys.length;
+            char[] newKeys = new char[n + 1];
+            Node[] newChildren = new Node[n + 1];
+            System.arraycopy(keys, 0, newKeys, 0, n);
+            System.arraycopy(children, 0, newChildren, 0, n);
+            newKeys[n] = c;
+            newChildren[n] = new Node();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[n];
+        }
+    }
+
+    private final Node root = new Node();
+
+    private PaymentCallbackMatcher() {
+    }
+
+    /**
+     * Intent ile gelen dönüş URL'lerinden eşleyici oluştur; alo17://payment/* her zaman dahildir
+     */
+    static PaymentCallbackMatcher compile(String successUrl, String failUrl, String cancelUrl) {
+        PaymentCallbackMatcher matcher = new PaymentCallbackMatcher();
+        matcher.add(DEFAULT_SUCCESS_URL, Outcome.SUCCESS);
+        matcher.add(DEFAULT_FAIL_URL, Outcome.FAILED);
+        matcher.add(DEFAULT_CANCEL_URL, Outcome.CANCELLED);
+        matcher.add(successUrl, Outcome.SUCCESS);
+        matcher.add(failUrl, Outcome.FAILED);
+        matcher.add(cancelUrl, Outcome.CANCELLED);
+        return matcher;
+    }
+
+    private void add(String url, Outcome outcome) {
+        if (url == null || url.isEmpty()) {
+            return;
+        }
+        int end = pathEnd(url);
+        // Trailing slashes are not significant for callback routes
+        while (end > 0 && url.charAt(end - 1) == '/') {
+            end--;
+        }
+        int authorityEnd = authorityEnd(url);
+        Node node = root;
+        for (int i = 0; i < end; i++) {
+            char c = url.charAt(i);
+            node = node.addChild(i < authorityEnd ? lower(c) : c);
+        }
+        node.outcome = outcome;
+    }
+
+    /**
+     * URL'yi eşle. Kayıtlı bir rota ile başlayıp rota sınırında (/, ?, # veya son) biten URL'ler eşleşir.
+     */
+    Outcome match(String url) {
+        if (url == null) {
+            return Outcome.NONE;
+        }
+        int authorityEnd = -1;
+        int slashes = 0;
+        Node node = root;
+        Outcome best = Outcome.NONE;
+        int n = url.length();
+        for (int i = 0; i < n; i++) {
+            char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                break;
+            }
+            if (authorityEnd < 0) {
+                // The authority ends at the first '/' after "scheme://"
+                if (c == '/' && ++slashes == 3) {
+                    authorityEnd = i;
+                } else {
+                    c = lower(c);
+                }
+            }
+            if (c == '/' && node.outcome != Outcome.NONE) {
+                best = node.outcome;
+            }
+            node = node.child(c);
+            if (node == null) {
+                return best;
+            }
+        }
+        return node.outcome != Outcome.NONE ? node.outcome : best;
+    }
+
+    /**
+     * Sorgu parametresini yalnızca eşleşen URL'ler için ayrıştır
+     */
+    static String queryParameter(String url, String name) {
+        long bounds = queryValueBounds(url, name);
+        if (bounds < 0) {
+            return null;
+        }
+        int start = (int) (bounds >>> 32);
+        int end = (int) bounds;
+        return start == end ? "" : Uri.decode(url.substring(start, end));
+    }
+
+    /**
+     * Ondalık tutar parametresini doğrudan URL üzerinde kuruşa çevir; yoksa veya geçersizse Money.INVALID
+     */
+    static long queryAmountMinor(String url, String name) {
+        long bounds = queryValueBounds(url, name);
+        if (bounds < 0) {
+            return Money.INVALID;
+        }
+        int start = (int) (bounds >>> 32);
+        int end = (int) bounds;
+        // Percent-encoded amounts are rare; only they pay for decoding
+        int percent = url.indexOf('%', start);
+        if (percent >= 0 && percent < end) {
+            return Money.parse(Uri.decode(url.substring(start, end)), Money.Currency.TRY);
+        }
+        return Money.parse(url, start, end, Money.Currency.TRY);
+    }
+
+    /**
+     * Değerin başlangıç ve bitişi tek long içinde (başlangıç << 32 | bitiş); parametre yoksa -1
+     */
+    private static long queryValueBounds(String url, String name) {
+        int query = url.indexOf('?');
+        if (query < 0) {
+            return -1;
+        }
+        int fragment = url.indexOf('#', query);
+        int end = fragment < 0 ? url.length() : fragment;
+        int i = query + 1;
+        while (i < end) {
+            int amp = url.indexOf('&', i);
+            int pairEnd = amp < 0 || amp > end ? end : amp;
+            int eq = url.indexOf('=', i);
+            int keyEnd = eq < 0 || eq > pairEnd ? pairEnd : eq;
+            if (keyEnd - i == name.length() && url.regionMatches(i, name, 0, name.length())) {
+                int valueStart = keyEnd == pairEnd ? pairEnd : keyEnd + 1;
+                return ((long) valueStart << 32) | pairEnd;
+            }
+            i = pairEnd + 1;
+        }
+        return -1;
+    }
+
+    private static int pathEnd(String url) {
+        int end = url.length();
+        int query = url.indexOf('?');
+        if (query >= 0) {
+            end = query;
+        }
+        int fragment = url.indexOf('#');
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+        return end;
+    }
+
+    private static int authorityEnd(String url) {
+        int scheme = url.indexOf("://");
+        if (scheme < 0) {
+            return 0;
+        }
+        int slash = url.indexOf('/', scheme + 3);
+        return slash < 0 ? url.length() : slash;
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -0,0 +1,36 @@
+package com.alo17.mobile;
+
+import android.net.Uri;
+import android.webkit.WebResourceResponse;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.io.File;
+
+/**
+ * Ana kodun geliştirme araçlarına (ağ geçidi benzetimi, mikro ölçüm, yük testi) tek girişi.
+ * Uygulaması derleme türüne göre PaymentDevToolsFactory'den gelir: araçlar yalnızca src/debug altındadır,
+ * release'deki uygulama hiçbir şey yapmaz ve çağrıları *_UNAVAILABLE ile reddeder.
+ */
+interface PaymentDevTools {
+
+    /**
+     * Kaydedilecek benzetim sağlayıcısı; release'de null
+     */
+    PaymentProvider simulatorProvider();
+
+    /**
+     * Benzetim açıkken ödeme sayfası isteğini karşıla; WebView'ın normal yüklemesi için null
+     */
+    WebResourceResponse interceptRequest(Uri url);
+
+    void runBenchmarks(File baselineFile, boolean updateBaseline, Promise promise);
+
+    /**
+     * options ile benzetimi aç, null ile kapat
+     */
+    void configureSimulator(ReadableMap options, Promise promise);
+
+    void runLoadTest(ReadableMap options, PaymentSessionRegistry sessions, Promise promise);
+}
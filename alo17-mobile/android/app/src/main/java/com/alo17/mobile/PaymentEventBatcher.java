@@ -0,0 +1,72 @@
+package com.alo17.mobile;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.UiThreadUtil;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * İlerleme olaylarını kare başına toplayıp tek köprü çağrısıyla JS'e gönderir.
+ * Aynı oturum için art arda gelen aynı tür olaylar birleştirilir.
+ */
+final class PaymentEventBatcher implements Choreographer.FrameCallback {
+
+    interface Sink {
+        void emit(WritableMap batch);
+    }
+
+    private final ConcurrentLinkedQueue<PaymentProgressEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Sink sink;
+
+    PaymentEventBatcher(Sink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Olayı kuyruğa al; bir sonraki karede gönderilir
+     */
+    void enqueue(String sessionId, PaymentProgressEvent.Type type) {
+        pending.add(new PaymentProgressEvent(sessionId, type, SystemClock.elapsedRealtime()));
+        if (scheduled.compareAndSet(false, true)) {
+            UiThreadUtil.runOnUiThread(() -> Choreographer.getInstance().postFrameCallback(this));
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        scheduled.set(false);
+        flush();
+    }
+
+    void flush() {
+        WritableArray events = Arguments.createArray();
+        PaymentProgressEvent previous = null;
+        PaymentProgressEvent event;
+        while ((event = pending.poll()) != null) {
+            if (previous != null && previous.type == event.type
+                && previous.sessionId.equals(event.sessionId)) {
+                continue;
+            }
+            WritableMap map = Arguments.createMap();
+            map.putString("session_id", event.sessionId);
+            map.putString("type", event.type.jsName);
+            map.putBoolean("terminal", event.type.isTerminal());
+            map.putDouble("timestamp", event.timestamp);
+            events.pushMap(map);
+            previous = event;
+        }
+        if (previous == null) {
+            return;
+        }
+        WritableMap batch = Arguments.createMap();
+        batch.putArray("events", events);
+        sink.emit(batch);
+    }
+}
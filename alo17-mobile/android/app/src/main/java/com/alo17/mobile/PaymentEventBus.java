@@ -0,0 +1,57 @@
+package com.alo17.mobile;
+
+import android.content.Intent;
+
+/**
+ * Ödeme activity'lerinden PaymentModule'e süreç içi olay kanalı.
+ * Activity'ler ilerleme ve sonucu buraya bildirir; modül dinleyici olarak kaydolur.
+ */
+final class PaymentEventBus {
+
+    interface Listener {
+        void onProgress(String sessionId, PaymentProgressEvent.Type type);
+
+        void onResult(String sessionId, int resultCode, Intent data);
+    }
+
+    private static final PaymentEventBus INSTANCE = new PaymentEventBus();
+
+    private volatile Listener listener;
+
+    private PaymentEventBus() {
+    }
+
+    static PaymentEventBus get() {
+        return INSTANCE;
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    void clearListener(Listener listener) {
+        if (this.listener == listener) {
+            this.listener = null;
+        }
+    }
+
+    /**
+     * İlerleme olayını bildir
+     */
+    void publishProgress(String sessionId, PaymentProgressEvent.Type type) {
+        Listener current = listener;
+        if (current != null && sessionId != null) {
+            current.onProgress(sessionId, type);
+        }
+    }
+
+    /**
+     * Sonuç belli olduğunda activity kapanmayı beklemeden bildir
+     */
+    void publishResult(String sessionId, int resultCode, Intent data) {
+        Listener current = listener;
+        if (current != null && sessionId != null) {
+            current.onResult(sessionId, resultCode, data);
+        }
+    }
+}
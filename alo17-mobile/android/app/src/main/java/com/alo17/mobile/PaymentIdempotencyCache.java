@@ -0,0 +1,135 @@
+package com.alo17.mobile;
+
+import android.os.SystemClock;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Devam eden ödeme isteklerinin tekrar anahtarı -> oturum kaydı.
+ * Çift dokunuş gibi tekrarlanan çağrı ikinci bir activity açmaz, mevcut oturumun sonucuna bağlanır.
+ * Kayıt sınırlı ve süreli tutulur; sonuçlanmış oturumun anahtarı yeniden kullanılabilir.
+ */
+final class PaymentIdempotencyCache {
+
+    static final int DEFAULT_CAPACITY = 64;
+
+    private static final class Entry {
+        final PaymentSession session;
+        final long expiresAt;
+
+        Entry(PaymentSession session, long expiresAt) {
+            this.session = session;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isLive(long nowMs) {
+            return nowMs < expiresAt && !session.isSettled();
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int capacity;
+    // Keyed so the request hash reveals nothing about card fields
+    private final long salt = new SecureRandom().nextLong();
+    final AtomicLong deduplicated = new AtomicLong();
+
+    PaymentIdempotencyCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Anahtar için canlı oturum varsa promise'i ona bağla ve null döndür; yoksa opener ile yeni oturum aç.
+     * Aynı anahtar için eşzamanlı çağrılardan yalnızca biri oturum açar
+     */
+    PaymentSession openOrAttach(String key, Promise promise, long ttlMs, Supplier<PaymentSession> opener) {
+        return openOrAttach(key, promise, ttlMs, SystemClock.elapsedRealtime(), opener);
+    }
+
+    // Clock passed in so the JVM tests run without android.os
+    PaymentSession openOrAttach(String key, Promise promise, long ttlMs, long now, Supplier<PaymentSession> opener) {
+        PaymentSession[] opened = new PaymentSession[1];
+        entries.compute(key, (k, current) -> {
+            if (current != null && current.isLive(now) && current.session.attach(promise)) {
+                return current;
+            }
+            opened[0] = opener.get();
+            return new Entry(opened[0], now + ttlMs);
+        });
+        if (opened[0] == null) {
+            deduplicated.incrementAndGet();
+        } else if (entries.size() > capacity) {
+            trim(now);
+        }
+        return opened[0];
+    }
+
+    int inFlight() {
+        long now = SystemClock.elapsedRealtime();
+        int count = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.isLive(now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Çağıranın verdiği idempotencyKey, yoksa isteğin içeriğinden türetilen özet; sağlayıcıya göre ayrılır
+     */
+    String requestKey(String providerId, ReadableMap paymentData) {
+        if (paymentData.hasKey("idempotencyKey") && !paymentData.isNull("idempotencyKey")) {
+            return providerId + ":key:" + paymentData.getString("idempotencyKey");
+        }
+        Map<String, Object> fields = paymentData.toHashMap();
+        String[] names = fields.keySet().toArray(new String[0]);
+        // Sorted so the same request hashes the same whatever order JS built it in
+        Arrays.sort(names);
+        long hash = 0xCBF29CE484222325L ^ salt;
+        for (String name : names) {
+            hash = fnv(hash, name);
+            hash = fnv(hash, String.valueOf(fields.get(name)));
+        }
+        return providerId + ":hash:" + Long.toHexString(hash);
+    }
+
+    private static long fnv(long hash, String text) {
+        long h = hash;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        // Field separator so ("ab", "c") and ("a", "bc") differ
+        h ^= 0xFF;
+        h *= 0x100000001B3L;
+        return h;
+    }
+
+    /**
+     * Süresi dolmuş ve sonuçlanmış kayıtları at; hâlâ sınır aşılıyorsa en erken bitecek kayıtları bırak
+     */
+    private void trim(long nowMs) {
+        entries.values().removeIf(entry -> !entry.isLive(nowMs));
+        while (entries.size() > capacity) {
+            Map.Entry<String, Entry> oldest = null;
+            for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+                if (oldest == null || candidate.getValue().expiresAt < oldest.getValue().expiresAt) {
+                    oldest = candidate;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            // Only dedup is lost for a dropped entry; its session keeps running
+            entries.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package com.alo17.mobile;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Devam eden ödemeler için bellek eşlemeli, yalnızca ekleme yapılan günlük.
+ * Oturum başlangıcı, sonuç ve JS'e teslim kayıt altına alınır; süreç ölse bile
+ * açılışta tekrar oynatılarak teslim edilmemiş oturumlar bulunur.
+ *
+ * Kayıt biçimi: [magic:2][type:1][length:2][payload][crc32:4]
+ * Yarım yazılmış kayıt CRC kontrolünde elenir ve yazma o noktadan devam eder.
+ * Belirli yaştan eski teslim edilmemiş oturumlar açılışta ve sıkıştırmada düşülür; yer açılamazsa kayıt
+ * atlanır, sayılır ve isFull() ile görünür olur. Bilinmeyen sürümdeki dosya kenara alınır.
+ * Kart verisi asla günlüğe yazılmaz.
+ */
+final class PaymentJournal {
+    private static final String TAG = "PaymentJournal";
+
+    static final byte RECORD_START = 1;
+    static final byte RECORD_OUTCOME = 2;
+    static final byte RECORD_DELIVERED = 3;
+
+    private static final int FILE_MAGIC = 0x414C4F4A; // "ALOJ"
+    private static final int FILE_VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final short RECORD_MAGIC = (short) 0xA117;
+    private static final int RECORD_OVERHEAD = 2 + 1 + 2 + 4;
+    private static final int MAX_PAYLOAD = 0xFFFF;
+
+    static final int DEFAULT_CAPACITY = 256 * 1024;
+    // Past this, an undelivered session is abandoned; reconciliation already holds its outcome
+    static final long DEFAULT_MAX_AGE_MS = TimeUnit.DAYS.toMillis(7);
+
+    // Group commit: records written within this window share one fsync
+    private static final long COMMIT_WINDOW_MS = 20;
+    private static final int COMMIT_BATCH = 32;
+
+    /**
+     * Teslim edilmemiş bir ödeme oturumu
+     */
+    static final class Entry {
+        final String sessionId;
+        final String type;
+        final long startedAt;
+        String status;
+        String reference;
+
+        Entry(String sessionId, String type, long startedAt) {
+            this.sessionId = sessionId;
+            this.type = type;
+            this.startedAt = startedAt;
+        }
+    }
+
+    private final File file;
+    private final int capacity;
+    private final long maxAgeMs;
+    private final Map<String, Entry> live = new LinkedHashMap<>();
+    private final CRC32 crc = new CRC32();
+    // fsyncs run on the shared IO pool; close() stops the lane
+    private final PaymentScheduler.Serial committer =
+        PaymentScheduler.get().newSerial(PaymentScheduler.Pool.IO, PaymentScheduler.Priority.NORMAL);
+    private final AtomicBoolean commitScheduled = new AtomicBoolean(false);
+
+    private RandomAccessFile raf;
+    private MappedByteBuffer buffer;
+    private int uncommitted;
+    private long expiredSessions;
+    private long droppedRecords;
+    private boolean full;
+
+    PaymentJournal(File file, int capacity) {
+        this(file, capacity, DEFAULT_MAX_AGE_MS);
+    }
+
+    PaymentJournal(File file, int capacity, long maxAgeMs) {
+        this.file = file;
+        this.capacity = capacity;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Günlüğü aç ve tekrar oynat; teslim edilmemiş oturumları döndür
+     */
+    synchronized List<Entry> open() throws IOException {
+        return open(System.currentTimeMillis());
+    }
+
+    /**
+     * Süresi dolmuş oturumlar da bir kez döndürülür ki başarılı olanlar mutabakata alınabilsin;
+     * ardından canlı kümeden düşülür ve dosya sıkıştırılır
+     */
+    synchronized List<Entry> open(long nowMs) throws IOException {
+        map(file);
+        if (buffer.getInt(0) != FILE_MAGIC) {
+            initialize();
+            return pending();
+        }
+        int version = buffer.getInt(4);
+        if (version != FILE_VERSION) {
+            setAside(version);
+            initialize();
+            return pending();
+        }
+        replay();
+        List<Entry> recovered = pending();
+        long expiredBefore = expiredSessions;
+        expire(nowMs);
+        if (expiredSessions != expiredBefore) {
+            compact(nowMs);
+        }
+        return recovered;
+    }
+
+    synchronized List<Entry> pending() {
+        return new ArrayList<>(live.values());
+    }
+
+    synchronized int pendingCount() {
+        return live.size();
+    }
+
+    /**
+     * Son kayıt yer açılamadığı için yazılamadı
+     */
+    synchronized boolean isFull() {
+        return full;
+    }
+
+    synchronized long droppedRecords() {
+        return droppedRecords;
+    }
+
+    synchronized long expiredSessions() {
+        return expiredSessions;
+    }
+
+    void recordStart(String sessionId, String type) {
+        append(RECORD_START, sessionId, System.currentTimeMillis(), type, null);
+    }
+
+    void recordOutcome(String sessionId, String status, String reference) {
+        append(RECORD_OUTCOME, sessionId, System.currentTimeMillis(), status, reference);
+    }
+
+    void recordDelivered(String sessionId) {
+        append(RECORD_DELIVERED, sessionId, System.currentTimeMillis(), null, null);
+    }
+
+    /**
+     * Bekleyen yazmaları diske zorla ve kapat
+     */
+    synchronized void close() {
+        committer.shutdown();
+        if (buffer != null) {
+            buffer.force();
+        }
+        closeFile();
+    }
+
+    private synchronized void append(byte type, String sessionId, long timestamp, String a, String b) {
+        if (buffer == null || sessionId == null) {
+            return;
+        }
+        byte[] payload = encodePayload(sessionId, timestamp, a, b);
+        if (payload.length > MAX_PAYLOAD) {
+            Log.w(TAG, "Journal record too large, dropped");
+            droppedRecords++;
+            return;
+        }
+        apply(type, sessionId, timestamp, a, b);
+        try {
+            if (buffer.remaining() < payload.length + RECORD_OVERHEAD + 1) {
+                compact(timestamp);
+                if (buffer.remaining() < payload.length + RECORD_OVERHEAD + 1) {
+                    Log.e(TAG, "Journal full with " + live.size() + " undelivered sessions, record dropped");
+                    droppedRecords++;
+                    full = true;
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Journal compaction failed", e);
+            droppedRecords++;
+            full = true;
+            return;
+        }
+        full = false;
+        writeRecord(type, payload);
+        scheduleCommit();
+    }
+
+    private void writeRecord(byte type, byte[] payload) {
+        int start = buffer.position();
+        // Payload and CRC go first; the magic that makes the record visible is written last
+        buffer.position(start + 2);
+        buffer.put(type);
+        buffer.putShort((short) payload.length);
+        buffer.put(payload);
+        crc.reset();
+        crc.update(type);
+        crc.update((payload.length >> 8) & 0xFF);
+        crc.update(payload.length & 0xFF);
+        crc.update(payload, 0, payload.length);
+        buffer.putInt((int) crc.getValue());
+        int end = buffer.position();
+        buffer.putShort(start, RECORD_MAGIC);
+        buffer.position(end);
+    }
+
+    private void scheduleCommit() {
+        if (++uncommitted >= COMMIT_BATCH) {
+            uncommitted = 0;
+            committer.execute(this::commit);
+            return;
+        }
+        if (commitScheduled.compareAndSet(false, true)) {
+            committer.schedule(() -> {
+                commitScheduled.set(false);
+                commit();
+            }, COMMIT_WINDOW_MS);
+        }
+    }
+
+    private void commit() {
+        MappedByteBuffer current;
+        synchronized (this) {
+            current = buffer;
+            uncommitted = 0;
+        }
+        if (current != null) {
+            current.force();
+        }
+    }
+
+    private void initialize() {
+        buffer.putInt(0, FILE_MAGIC);
+        buffer.putInt(4, FILE_VERSION);
+        buffer.position(FILE_HEADER_SIZE);
+        zeroFrom(FILE_HEADER_SIZE);
+    }
+
+    /**
+     * Bilinmeyen sürümdeki dosyayı okumadan kenara al; üzerine yazılmaz, yeni günlük boş başlar
+     */
+    private void setAside(int version) throws IOException {
+        Log.e(TAG, "Unknown journal version " + version + ", starting a new journal");
+        closeFile();
+        File aside = new File(file.getPath() + ".v" + version);
+        if (aside.exists() && !aside.delete()) {
+            throw new IOException("Cannot delete " + aside);
+        }
+        if (!file.renameTo(aside)) {
+            throw new IOException("Cannot move aside " + file);
+        }
+        map(file);
+    }
+
+    private void replay() {
+        int pos = FILE_HEADER_SIZE;
+        int limit = buffer.capacity();
+        while (pos + RECORD_OVERHEAD <= limit) {
+            if (buffer.getShort(pos) != RECORD_MAGIC) {
+                break;
+            }
+            byte type = buffer.get(pos + 2);
+            int length = buffer.getShort(pos + 3) & 0xFFFF;
+            int payloadStart = pos + 5;
+            int recordEnd = payloadStart + length + 4;
+            if (recordEnd > limit) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.position(payloadStart);
+            buffer.get(payload);
+            crc.reset();
+            crc.update(type);
+            crc.update((length >> 8) & 0xFF);
+            crc.update(length & 0xFF);
+            crc.update(payload, 0, length);
+            if (buffer.getInt(payloadStart + length) != (int) crc.getValue()) {
+                Log.w(TAG, "Torn journal record at " + pos + ", truncating");
+                break;
+            }
+            if (!applyPayload(type, payload)) {
+                break;
+            }
+            pos = recordEnd;
+        }
+        buffer.position(pos);
+        zeroFrom(pos);
+    }
+
+    private boolean applyPayload(byte type, byte[] payload) {
+        int[] cursor = {0};
+        if (payload.length < 8) {
+            return false;
+        }
+        long timestamp = 0;
+        for (int i = 0; i < 8; i++) {
+            timestamp = (timestamp << 8) | (payload[cursor[0]++] & 0xFF);
+        }
+        String sessionId = readString(payload, cursor);
+        String a = readString(payload, cursor);
+        String b = readString(payload, cursor);
+        if (sessionId == null) {
+            return false;
+        }
+        apply(type, sessionId, timestamp, a, b);
+        return true;
+    }
+
+    private void apply(byte type, String sessionId, long timestamp, String a, String b) {
+        switch (type) {
+            case RECORD_START:
+                live.put(sessionId, new Entry(sessionId, a, timestamp));
+                break;
+            case RECORD_OUTCOME: {
+                Entry entry = live.get(sessionId);
+                if (entry != null) {
+                    entry.status = a;
+                    entry.reference = b;
+                }
+                break;
+            }
+            case RECORD_DELIVERED:
+                live.remove(sessionId);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Yalnızca canlı ve süresi dolmamış oturumları yeni bir dosyaya yaz ve atomik olarak değiştir
+     */
+    private void compact(long nowMs) throws IOException {
+        expire(nowMs);
+        // Checked before touching any file so a journal that cannot shrink stays usable as it is
+        if (FILE_HEADER_SIZE + liveSize() >= capacity) {
+            Log.w(TAG, "Journal compaction skipped, live sessions do not fit");
+            return;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        if (tmp.exists() && !tmp.delete()) {
+            throw new IOException("Cannot delete " + tmp);
+        }
+        buffer.force();
+        closeFile();
+        map(tmp);
+        buffer.putInt(0, FILE_MAGIC);
+        buffer.putInt(4, FILE_VERSION);
+        buffer.position(FILE_HEADER_SIZE);
+        for (Entry entry : live.values()) {
+            writeRecord(RECORD_START, encodePayload(entry.sessionId, entry.startedAt, entry.type, null));
+            if (entry.status != null) {
+                writeRecord(RECORD_OUTCOME,
+                    encodePayload(entry.sessionId, entry.startedAt, entry.status, entry.reference));
+            }
+        }
+        int pos = buffer.position();
+        buffer.force();
+        closeFile();
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Cannot replace " + file);
+        }
+        map(file);
+        buffer.position(pos);
+        Log.d(TAG, "Journal compacted to " + live.size() + " sessions");
+    }
+
+    private int liveSize() {
+        int size = 0;
+        for (Entry entry : live.values()) {
+            size += RECORD_OVERHEAD + encodePayload(entry.sessionId, entry.startedAt, entry.type, null).length;
+            if (entry.status != null) {
+                size += RECORD_OVERHEAD
+                    + encodePayload(entry.sessionId, entry.startedAt, entry.status, entry.reference).length;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Teslim edilmemiş eski oturumları bırak; başarılı olanlar açılışta zaten mutabakat kuyruğuna alınmıştır
+     */
+    private void expire(long nowMs) {
+        Iterator<Entry> entries = live.values().iterator();
+        while (entries.hasNext()) {
+            Entry entry = entries.next();
+            if (nowMs - entry.startedAt > maxAgeMs) {
+                Log.w(TAG, "Expiring undelivered session " + entry.sessionId + " (" + entry.status + ")");
+                entries.remove();
+                expiredSessions++;
+            }
+        }
+    }
+
+    private void map(File target) throws IOException {
+        raf = new RandomAccessFile(target, "rw");
+        if (raf.length() < capacity) {
+            raf.setLength(capacity);
+        }
+        buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void closeFile() {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Journal close error", e);
+            }
+        }
+        raf = null;
+        buffer = null;
+    }
+
+    private void zeroFrom(int pos) {
+        // Only touch non-zero bytes so clean pages are not dirtied
+        for (int i = pos; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private static byte[] encodePayload(String sessionId, long timestamp, String a, String b) {
+        byte[] id = sessionId.getBytes(StandardCharsets.UTF_8);
+        byte[] first = a != null ? a.getBytes(StandardCharsets.UTF_8) : null;
+        byte[] second = b != null ? b.getBytes(StandardCharsets.UTF_8) : null;
+        int size = 8 + stringSize(id) + stringSize(first) + stringSize(second);
+        byte[] out = new byte[size];
+        int pos = 0;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out[pos++] = (byte) (timestamp >>> shift);
+        }
+        pos = writeString(out, pos, id);
+        pos = writeString(out, pos, first);
+        writeString(out, pos, second);
+        return out;
+    }
+
+    private static int stringSize(byte[] value) {
+        return 2 + (value != null ? value.length : 0);
+    }
+
+    // A length of 0xFFFF marks a null string
+    private static int writeString(byte[] out, int pos, byte[] value) {
+        int length = value != null ? value.length : 0xFFFF;
+        out[pos++] = (byte) (length >> 8);
+        out[pos++] = (byte) length;
+        if (value != null) {
+            System.arraycopy(value, 0, out, pos, value.length);
+            pos += value.length;
+        }
+        return pos;
+    }
+
+    private static String readString(byte[] payload, int[] cursor) {
+        int pos = cursor[0];
+        if (pos + 2 > payload.length) {
+            return null;
+        }
+        int length = ((payload[pos] & 0xFF) << 8) | (payload[pos + 1] & 0xFF);
+        pos += 2;
+        if (length == 0xFFFF) {
+            cursor[0] = pos;
+            return null;
+        }
+        if (pos + length > payload.length) {
+            cursor[0] = payload.length;
+            return null;
+        }
+        String value = new String(payload, pos, length, StandardCharsets.UTF_8);
+        cursor[0] = pos + length;
+        return value;
+    }
+}
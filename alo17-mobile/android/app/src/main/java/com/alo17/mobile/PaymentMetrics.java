@@ -0,0 +1,166 @@
+package com.alo17.mobile;
+
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Ödeme akışının kritik aşamaları için düşük maliyetli gecikme ölçümü.
+ * Her aşamanın önceden ayrılmış bir histogramı vardır; kayıt tek bir nanoTime farkıdır.
+ * Veriler getMetrics ile React Native'e verilir ve periyodik olarak sıkıştırılmış ikili dosyaya yazılır.
+ *
+ * Dosya biçimi: ["ALOM":4][sürüm:2][zaman:8][aşama sayısı:1] ve her aşama için
+ * [sıra:1][adet:varint][maks:varint][dolu kova sayısı:2] ardından [kova:2][adet:varint] çiftleri.
+ */
+final class PaymentMetrics {
+    private static final String TAG = "PaymentMetrics";
+
+    static final long DEFAULT_DUMP_INTERVAL_MS = 60 * 1000L;
+
+    private static final int DUMP_MAGIC = 0x414C4F4D; // "ALOM"
+    private static final short DUMP_VERSION = 1;
+
+    enum Stage {
+        NFC_TAG_DISCOVERY("nfc_tag_discovery"),
+        NFC_APDU("nfc_apdu"),
+        NFC_CARD_READ("nfc_card_read"),
+        NFC_AUTHORIZATION("nfc_authorization"),
+        PAYTR_WEBVIEW_CREATE("paytr_webview_create"),
+        PAYTR_PAGE_LOAD("paytr_page_load"),
+        // Initial payment page load split by whether every cacheable asset came from the asset cache
+        PAYTR_PAGE_LOAD_WARM("paytr_page_load_warm"),
+        PAYTR_PAGE_LOAD_COLD("paytr_page_load_cold"),
+        PAYTR_CALLBACK("paytr_callback"),
+        CHECKOUT("checkout");
+
+        final String jsName;
+
+        Stage(String jsName) {
+            this.jsName = jsName;
+        }
+    }
+
+    private static final PaymentMetrics INSTANCE = new PaymentMetrics();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    private Runnable dumpTask;
+    private volatile boolean enabled = true;
+
+    private PaymentMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    static PaymentMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Başlangıç zamanı (System.nanoTime) ile ölçümü kaydet
+     */
+    void record(Stage stage, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        histograms[stage.ordinal()].record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    LatencyHistogram histogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /**
+     * Histogramları belirli aralıkla dosyaya yaz; çağrı ana thread'den yapılır
+     */
+    void startPeriodicDump(File file, long intervalMs, PaymentScheduler scheduler) {
+        stopPeriodicDump(scheduler);
+        dumpTask = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    scheduler.submit(PaymentScheduler.Pool.IO, PaymentScheduler.Priority.LOW,
+                        intervalMs, () -> writeDump(file));
+                } catch (RejectedExecutionException e) {
+                    Log.w(TAG, "Metrics dump skipped, IO queue full");
+                }
+                scheduler.mainHandler().postDelayed(this, intervalMs);
+            }
+        };
+        scheduler.mainHandler().postDelayed(dumpTask, intervalMs);
+    }
+
+    void stopPeriodicDump(PaymentScheduler scheduler) {
+        if (dumpTask != null) {
+            scheduler.mainHandler().removeCallbacks(dumpTask);
+            dumpTask = null;
+        }
+    }
+
+    void writeDump(File file) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(tmp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                writeTo(out);
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Cannot replace " + file);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Metrics dump failed", e);
+        }
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(DUMP_MAGIC);
+        out.writeShort(DUMP_VERSION);
+        out.writeLong(System.currentTimeMillis());
+        out.writeByte(histograms.length);
+        for (int stage = 0; stage < histograms.length; stage++) {
+            LatencyHistogram histogram = histograms[stage];
+            out.writeByte(stage);
+            writeVarint(out, histogram.count());
+            writeVarint(out, histogram.max());
+            int filled = 0;
+            for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+                if (histogram.bucketCount(i) != 0) {
+                    filled++;
+                }
+            }
+            out.writeShort(filled);
+            for (int i = 0; i < LatencyHistogram.BUCKET_COUNT && filled > 0; i++) {
+                long bucket = histogram.bucketCount(i);
+                // Counts can move between the two passes; never write more pairs than announced
+                if (bucket != 0) {
+                    out.writeShort(i);
+                    writeVarint(out, bucket);
+                    filled--;
+                }
+            }
+            while (filled-- > 0) {
+                out.writeShort(LatencyHistogram.BUCKET_COUNT - 1);
+                writeVarint(out, 0);
+            }
+        }
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
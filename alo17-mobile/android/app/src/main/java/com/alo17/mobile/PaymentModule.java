@@ -1,36 +1,148 @@
 package com.alo17.mobile;
 
 import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
 import android.content.Intent;
-import android.nfc.NfcAdapter;
+import android.content.res.Configuration;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
 import android.provider.Settings;
 import android.util.Log;
 
 import com.facebook.react.bridge.ActivityEventListener;
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+
 public class PaymentModule extends ReactContextBaseJavaModule implements ActivityEventListener {
     private static final String TAG = "PaymentModule";
-    private static final int PAYTR_REQUEST_CODE = 1001;
-    private static final int NFC_REQUEST_CODE = 1002;
+    // Journal recovery and background registrations wait until start-up has settled
+    private static final long DEFERRED_INIT_DELAY_MS = 5000;
     
     private ReactApplicationContext reactContext;
-    private Promise paytrPromise;
-    private Promise nfcPromise;
-    private NfcAdapter nfcAdapter;
+    private final PaymentScheduler scheduler;
+    private final PaymentSessionRegistry sessions;
+    private final PaymentProviderRegistry providers = new PaymentProviderRegistry();
+    private final PaymentIdempotencyCache inFlightRequests =
+        new PaymentIdempotencyCache(PaymentIdempotencyCache.DEFAULT_CAPACITY);
+    // Simulator, benchmarks and load test; a no-op outside debug builds
+    private final PaymentDevTools devTools = PaymentDevToolsFactory.get();
+    private final PayTRWebViewPool webViewPool;
+    private final PaymentEventBatcher progressEvents;
+    private final PaymentJournal journal;
+    // Created by ensureInitialized(); the queue starts a thread and loads its file
+    private volatile ReconciliationQueue reconciliation;
+    private final PaymentMetrics metrics;
+    private volatile NfcReaderSession readerSession;
+    private volatile HeadlessNfcPayment headlessPayment;
+
+    private final Object initLock = new Object();
+    private volatile boolean initialized;
+    private boolean destroyed;
+    // Cold-start cost of this module, reported through getMetrics
+    private final long constructNanos;
+    private final long processAgeAtConstructMs;
+    private volatile long deferredInitNanos = -1;
 
     public PaymentModule(ReactApplicationContext reactContext) {
         super(reactContext);
+        long constructStart = System.nanoTime();
         this.reactContext = reactContext;
-        this.nfcAdapter = NfcAdapter.getDefaultAdapter(reactContext);
+        this.scheduler = PaymentScheduler.get();
+        this.sessions = new PaymentSessionRegistry(() -> TransactionIdGenerator.get(reactContext),
+            scheduler, this::onSessionTimeout);
+        this.webViewPool = PayTRWebViewPool.get(reactContext);
+        this.progressEvents = new PaymentEventBatcher(batch -> sendEvent("PaymentProgress", batch));
+        this.journal = new PaymentJournal(new File(reactContext.getFilesDir(), "payment-journal.bin"),
+            PaymentJournal.DEFAULT_CAPACITY);
+        this.metrics = PaymentMetrics.get();
+        providers.register(new PayTRPaymentProvider());
+        providers.register(new NfcPaymentProvider());
+        PaymentProvider simulatorProvider = devTools.simulatorProvider();
+        if (simulatorProvider != null) {
+            providers.register(simulatorProvider);
+        }
+        // Only cheap listener registrations here; anything touching disk or system services is deferred
         reactContext.addActivityEventListener(this);
+        reactContext.addLifecycleEventListener(readerLifecycle);
+        reactContext.registerComponentCallbacks(memoryCallbacks);
+        PaymentEventBus.get().setListener(busListener);
+        scheduler.mainHandler().postDelayed(deferredInit, DEFERRED_INIT_DELAY_MS);
+        this.constructNanos = System.nanoTime() - constructStart;
+        this.processAgeAtConstructMs = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+            ? SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime() : -1;
+    }
+
+    private final Runnable deferredInit = () -> {
+        try {
+            scheduler.submit(PaymentScheduler.Pool.IO, PaymentScheduler.Priority.LOW,
+                PaymentScheduler.NO_DEADLINE, this::ensureInitialized);
+        } catch (RejectedExecutionException e) {
+            // The first payment call initializes synchronously instead
+            Log.w(TAG, "Deferred init not scheduled", e);
+        }
+    };
+
+    /**
+     * Günlüğü aç, yarım kalan oturumları kurtar ve arka plan kayıtlarını yap; bir kez çalışır.
+     * Günlük açılmadan yazılan kayıtlar kaybolacağından ödeme başlatan her çağrı önce bunu çağırır.
+     */
+    private void ensureInitialized() {
+        if (initialized) {
+            return;
+        }
+        synchronized (initLock) {
+            if (initialized || destroyed) {
+                return;
+            }
+            long start = System.nanoTime();
+            reconciliation = new ReconciliationQueue(
+                new File(reactContext.getFilesDir(), "reconciliation-queue.json"),
+                ReconciliationQueue.DEFAULT_FLUSH_INTERVAL_MS, ReconciliationQueue.DEFAULT_MAX_BATCH);
+            recoverJournal();
+            registerNetworkCallback();
+            File metricsFile = new File(reactContext.getFilesDir(), "payment-metrics.bin");
+            scheduler.runOnMain(() -> metrics.startPeriodicDump(metricsFile,
+                PaymentMetrics.DEFAULT_DUMP_INTERVAL_MS, scheduler));
+            deferredInitNanos = System.nanoTime() - start;
+            initialized = true;
+        }
+    }
+
+    private void recoverJournal() {
+        try {
+            List<PaymentJournal.Entry> recoveredSessions = journal.open();
+            if (!recoveredSessions.isEmpty()) {
+                Log.w(TAG, "Recovered " + recoveredSessions.size() + " undelivered payment sessions");
+            }
+            for (PaymentJournal.Entry entry : recoveredSessions) {
+                if ("success".equals(entry.status)) {
+                    reconciliation.enqueue(new ReconciliationItem(entry.reference, entry.sessionId,
+                        entry.type, entry.status, entry.startedAt));
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Payment journal unavailable", e);
+        }
     }
 
     @Override
@@ -38,69 +150,571 @@ public class PaymentModule extends ReactContextBaseJavaModule implements Activit
         return "PaymentModule";
     }
 
+    /**
+     * PayTR WebView'ini önceden hazırla (sepet ekranı açılırken çağrılır)
+     */
+    @ReactMethod
+    public void preparePayTR(ReadableMap options, Promise promise) {
+        String origin = null;
+        if (options != null && options.hasKey("paymentUrl") && !options.isNull("paymentUrl")) {
+            Uri uri = Uri.parse(options.getString("paymentUrl"));
+            if (uri.getScheme() != null && uri.getHost() != null) {
+                origin = uri.getScheme() + "://" + uri.getHost();
+            }
+        }
+        final String preconnectOrigin = origin;
+        try {
+            // Reads the asset metadata now so the first page request does not do it on a WebView thread
+            scheduler.submit(PaymentScheduler.Pool.IO, PaymentScheduler.Priority.LOW,
+                PaymentScheduler.NO_DEADLINE, PayTRAssetCache.get(reactContext)::warmUp);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Asset cache warm-up not scheduled", e);
+        }
+        scheduler.runOnMain(() -> {
+            try {
+                webViewPool.prepare(preconnectOrigin);
+                promise.resolve(true);
+            } catch (Exception e) {
+                Log.e(TAG, "PayTR prepare error", e);
+                promise.reject("PAYTR_PREPARE_ERROR", e.getMessage());
+            }
+        });
+    }
+
     /**
      * PayTR ödeme işlemi başlat
      */
     @ReactMethod
     public void startPayTRPayment(ReadableMap paymentData, Promise promise) {
+        startWith(providers.get(PayTRPaymentProvider.ID), paymentData, promise);
+    }
+
+    /**
+     * NFC ödeme işlemi başlat
+     */
+    @ReactMethod
+    public void startNFCPayment(ReadableMap paymentData, Promise promise) {
+        startWith(providers.get(NfcPaymentProvider.ID), paymentData, promise);
+    }
+
+    /**
+     * Sağlayıcı adıyla (provider) veya verilen adaylar arasından ölçümlere göre seçilerek (providers) ödeme başlat.
+     * İkisi de yoksa istek reddedilir; kart alanı isteyen NFC gibi sağlayıcılar tahminle seçilmez
+     */
+    @ReactMethod
+    public void startPayment(ReadableMap paymentData, Promise promise) {
+        PaymentProvider provider;
+        if (paymentData.hasKey("provider") && !paymentData.isNull("provider")) {
+            provider = providers.get(paymentData.getString("provider"));
+            if (provider == null) {
+                promise.reject("UNKNOWN_PROVIDER", "Ödeme sağlayıcısı bulunamadı");
+                return;
+            }
+        } else {
+            if (!paymentData.hasKey("providers") || paymentData.isNull("providers")
+                || paymentData.getArray("providers").size() == 0) {
+                promise.reject("PROVIDER_REQUIRED", "Ödeme sağlayıcısı belirtilmedi");
+                return;
+            }
+            ReadableArray ids = paymentData.getArray("providers");
+            List<String> candidates = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                candidates.add(ids.getString(i));
+            }
+            provider = providers.select(candidates, reactContext);
+            if (provider == null) {
+                promise.reject("NO_PROVIDER", "Kullanılabilir ödeme yöntemi yok");
+                return;
+            }
+        }
+        startWith(provider, paymentData, promise);
+    }
+
+    /**
+     * Ortak başlatma hattı: oturum, günlük, activity ve ilerleme olayı her sağlayıcı için aynıdır
+     */
+    private void startWith(PaymentProvider provider, ReadableMap paymentData, Promise promise) {
         try {
             Activity currentActivity = getCurrentActivity();
             if (currentActivity == null) {
                 promise.reject("NO_ACTIVITY", "Activity bulunamadı");
                 return;
             }
+            // Fail fast so the app can offer another method, e.g. NFC while PayTR's circuit is open
+            if (!provider.isAvailable(reactContext)) {
+                promise.reject(provider.errorPrefix() + "_UNAVAILABLE", provider.unavailableMessage());
+                return;
+            }
+            ensureInitialized();
+
+            long timeoutMs = getTimeout(paymentData, provider.defaultTimeoutMs());
+            // A double tap joins the session already in flight instead of opening a second activity
+            PaymentSession session = inFlightRequests.openOrAttach(
+                inFlightRequests.requestKey(provider.id(), paymentData), promise,
+                timeoutMs > 0 ? timeoutMs : provider.defaultTimeoutMs(),
+                () -> sessions.open(provider, promise, timeoutMs));
+            if (session == null) {
+                Log.i(TAG, "Duplicate " + provider.id() + " payment request joined the session in flight");
+                return;
+            }
+            Intent intent = null;
+            try {
+                intent = provider.createIntent(currentActivity, session, paymentData);
+                if (!provider.isSimulated()) {
+                    journal.recordStart(session.id, session.type.paymentMethod);
+                }
+                currentActivity.startActivityForResult(intent, session.requestCode);
+            } catch (Exception e) {
+                if (intent != null) {
+                    provider.onLaunchFailed(intent);
+                }
+                providers.recordLaunchFailure(provider);
+                sessions.remove(session);
+                if (!provider.isSimulated()) {
+                    journal.recordDelivered(session.id);
+                }
+                Log.e(TAG, provider.id() + " payment launch error", e);
+                // Through the session so duplicates attached meanwhile are rejected too
+                session.reject(provider.errorPrefix() + "_ERROR", e.getMessage());
+                return;
+            }
+            progressEvents.enqueue(session.id, PaymentProgressEvent.Type.STARTED);
 
-            this.paytrPromise = promise;
+        } catch (Exception e) {
+            Log.e(TAG, provider.id() + " payment error", e);
+            promise.reject(provider.errorPrefix() + "_ERROR", e.getMessage());
+        }
+    }
 
-            Intent intent = new Intent(currentActivity, PayTRActivity.class);
-            intent.putExtra("payment_url", paymentData.getString("paymentUrl"));
-            intent.putExtra("success_url", paymentData.getString("successUrl"));
-            intent.putExtra("fail_url", paymentData.getString("failUrl"));
-            intent.putExtra("cancel_url", paymentData.getString("cancelUrl"));
+    /**
+     * NFCPaymentActivity açmadan temassız ödeme: mevcut activity üzerinde reader mode ile tek kart okunur.
+     * Sonuç promise ile, ilerleme PaymentProgress olaylarıyla gelir
+     */
+    @ReactMethod
+    public void startHeadlessNFCPayment(ReadableMap paymentData, Promise promise) {
+        PaymentProvider provider = providers.get(NfcPaymentProvider.ID);
+        try {
+            // Reader mode is bound to a resumed activity; there is no way around that on Android
+            Activity currentActivity = getCurrentActivity();
+            if (currentActivity == null) {
+                promise.reject("NO_ACTIVITY", "Activity bulunamadı");
+                return;
+            }
+            if (!NfcSupport.isEnabled(reactContext)) {
+                promise.reject("NFC_UNAVAILABLE", "NFC kullanılamıyor");
+                return;
+            }
+            long amountMinor = Money.fromPaymentData(paymentData, Money.Currency.TRY);
+            if (amountMinor == Money.INVALID) {
+                promise.reject("INVALID_AMOUNT", "Geçersiz tutar");
+                return;
+            }
+            ensureInitialized();
+
+            long timeoutMs = getTimeout(paymentData, provider.defaultTimeoutMs());
+            PaymentSession session = inFlightRequests.openOrAttach(
+                inFlightRequests.requestKey(provider.id(), paymentData), promise,
+                timeoutMs > 0 ? timeoutMs : provider.defaultTimeoutMs(),
+                () -> {
+                    // Only one reader mode callback per activity; a second payment would steal the tap
+                    NfcReaderSession reader = readerSession;
+                    if (headlessPayment != null || (reader != null && !reader.isClosed())) {
+                        throw new IllegalStateException("Başka bir NFC işlemi sürüyor");
+                    }
+                    return sessions.open(provider, promise, timeoutMs);
+                });
+            if (session == null) {
+                Log.i(TAG, "Duplicate headless NFC payment request joined the session in flight");
+                return;
+            }
 
-            currentActivity.startActivityForResult(intent, PAYTR_REQUEST_CODE);
+            SecureCardData cardData;
+            try {
+                cardData = SecureCardData.of(paymentData.getString("cardNumber"),
+                    paymentData.getString("expiryDate"), paymentData.getString("cvv"));
+            } catch (RuntimeException e) {
+                sessions.remove(session);
+                session.reject("NFC_ERROR", e.getMessage());
+                return;
+            }
+            int transceiveTimeoutMs = paymentData.hasKey("transceiveTimeoutMs")
+                ? paymentData.getInt("transceiveTimeoutMs") : EmvCardReader.DEFAULT_TRANSCEIVE_TIMEOUT_MS;
+            boolean vibrate = paymentData.hasKey("vibrate") && paymentData.getBoolean("vibrate");
+            HeadlessNfcPayment payment = new HeadlessNfcPayment(session, NfcSupport.adapter(reactContext),
+                cardData, amountMinor, transceiveTimeoutMs, TransactionIdGenerator.get(reactContext),
+                vibrate ? HeadlessNfcPayment.vibration(reactContext) : HeadlessNfcPayment.UiHooks.NONE);
+
+            journal.recordStart(session.id, session.type.paymentMethod);
+            headlessPayment = payment;
+            scheduler.runOnMain(() -> payment.attach(currentActivity));
+            progressEvents.enqueue(session.id, PaymentProgressEvent.Type.STARTED);
 
         } catch (Exception e) {
-            Log.e(TAG, "PayTR payment error", e);
-            promise.reject("PAYTR_ERROR", e.getMessage());
+            Log.e(TAG, "Headless NFC payment error", e);
+            promise.reject("NFC_ERROR", e.getMessage());
         }
     }
 
     /**
-     * NFC ödeme işlemi başlat
+     * Satıcı modu: activity açmadan art arda kart okuyan oturumu başlat
      */
     @ReactMethod
-    public void startNFCPayment(ReadableMap paymentData, Promise promise) {
+    public void startReaderSession(ReadableMap options, Promise promise) {
         try {
             Activity currentActivity = getCurrentActivity();
             if (currentActivity == null) {
                 promise.reject("NO_ACTIVITY", "Activity bulunamadı");
                 return;
             }
+            if (!NfcSupport.isEnabled(reactContext)) {
+                promise.reject("NFC_UNAVAILABLE", "NFC kullanılamıyor");
+                return;
+            }
+            if (headlessPayment != null) {
+                promise.reject("NFC_BUSY", "Başka bir NFC işlemi sürüyor");
+                return;
+            }
+            ensureInitialized();
+
+            int presenceCheckDelayMs = NfcReaderSession.DEFAULT_PRESENCE_CHECK_DELAY_MS;
+            long debounceMs = NfcReaderSession.DEFAULT_DEBOUNCE_MS;
+            int transceiveTimeoutMs = EmvCardReader.DEFAULT_TRANSCEIVE_TIMEOUT_MS;
+            if (options != null) {
+                if (options.hasKey("presenceCheckDelayMs")) {
+                    presenceCheckDelayMs = options.getInt("presenceCheckDelayMs");
+                }
+                if (options.hasKey("debounceMs")) {
+                    debounceMs = (long) options.getDouble("debounceMs");
+                }
+                if (options.hasKey("transceiveTimeoutMs")) {
+                    transceiveTimeoutMs = options.getInt("transceiveTimeoutMs");
+                }
+            }
 
-            this.nfcPromise = promise;
+            NfcReaderSession session = new NfcReaderSession(TransactionIdGenerator.get(reactContext).next(),
+                NfcSupport.adapter(reactContext), TransactionIdGenerator.get(reactContext),
+                presenceCheckDelayMs, debounceMs, transceiveTimeoutMs, this::onReaderEvent);
+            NfcReaderSession previous = readerSession;
+            readerSession = session;
+            scheduler.runOnMain(() -> {
+                if (previous != null) {
+                    previous.close(currentActivity);
+                }
+                session.attach(currentActivity);
+            });
+            promise.resolve(session.id);
+
+        } catch (Exception e) {
+            Log.e(TAG, "Reader session error", e);
+            promise.reject("NFC_READER_ERROR", e.getMessage());
+        }
+    }
 
-            Intent intent = new Intent(currentActivity, NFCPaymentActivity.class);
-            intent.putExtra("amount", paymentData.getDouble("amount"));
-            intent.putExtra("card_number", paymentData.getString("cardNumber"));
-            intent.putExtra("expiry_date", paymentData.getString("expiryDate"));
-            intent.putExtra("cvv", paymentData.getString("cvv"));
+    /**
+     * Okuyucu oturumuna satış ekle; sıradaki başarılı okuma bu satışı tüketir
+     */
+    @ReactMethod
+    public void queueSale(ReadableMap sale, Promise promise) {
+        NfcReaderSession session = readerSession;
+        if (session == null || session.isClosed()) {
+            promise.reject("NO_READER_SESSION", "Okuyucu oturumu açık değil");
+            return;
+        }
+        try {
+            long amountMinor = Money.fromPaymentData(sale, Money.Currency.TRY);
+            if (amountMinor <= 0) {
+                promise.reject("INVALID_AMOUNT", "Geçersiz tutar");
+                return;
+            }
+            String saleId = sale.hasKey("saleId") && !sale.isNull("saleId")
+                ? sale.getString("saleId")
+                : TransactionIdGenerator.get(reactContext).next("SALE_");
+            session.enqueueSale(new NfcReaderSession.Sale(saleId, amountMinor));
+            promise.resolve(saleId);
+        } catch (Exception e) {
+            Log.e(TAG, "Queue sale error", e);
+            promise.reject("NFC_READER_ERROR", e.getMessage());
+        }
+    }
 
-            currentActivity.startActivityForResult(intent, NFC_REQUEST_CODE);
+    /**
+     * Okuyucu oturumunu kapat; bekleyen satışlar iptal edilir
+     */
+    @ReactMethod
+    public void stopReaderSession(Promise promise) {
+        NfcReaderSession session = readerSession;
+        readerSession = null;
+        if (session == null) {
+            promise.resolve(false);
+            return;
+        }
+        Activity currentActivity = getCurrentActivity();
+        scheduler.runOnMain(() -> session.close(currentActivity));
+        promise.resolve(true);
+    }
 
+    /**
+     * Uygulama yeniden başlamadan önce sonucu JS'e ulaşmamış ödemeleri listele
+     */
+    @ReactMethod
+    public void getPendingPayments(Promise promise) {
+        try {
+            ensureInitialized();
+            List<PaymentResult> pending = new ArrayList<>();
+            for (PaymentJournal.Entry entry : journal.pending()) {
+                if (sessions.findById(entry.sessionId) == null) {
+                    pending.add(PaymentResult.fromJournal(entry));
+                }
+            }
+            promise.resolve(PaymentResult.toWritableArray(pending));
         } catch (Exception e) {
-            Log.e(TAG, "NFC payment error", e);
-            promise.reject("NFC_ERROR", e.getMessage());
+            Log.e(TAG, "Pending payments error", e);
+            promise.reject("JOURNAL_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Backend ile mutabakatı yapılan ödemeyi günlükten düş
+     */
+    @ReactMethod
+    public void acknowledgePendingPayment(String sessionId, Promise promise) {
+        ensureInitialized();
+        journal.recordDelivered(sessionId);
+        promise.resolve(true);
+    }
+
+    /**
+     * Ödeme mutabakatı için backend adresini ayarla
+     */
+    @ReactMethod
+    public void configureReconciliation(ReadableMap config, Promise promise) {
+        try {
+            String endpoint = config.getString("endpoint");
+            String authToken = config.hasKey("authToken") ? config.getString("authToken") : null;
+            ensureInitialized();
+            ReconciliationQueue queue = reconciliation;
+            if (queue == null) {
+                promise.reject("RECONCILIATION_CONFIG_ERROR", "Ödeme modülü kapatıldı");
+                return;
+            }
+            queue.setTransport(new HttpReconciliationTransport(endpoint, authToken));
+            promise.resolve(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Reconciliation config error", e);
+            promise.reject("RECONCILIATION_CONFIG_ERROR", e.getMessage());
         }
     }
 
+    /**
+     * Aşama bazında gecikme yüzdelikleri (ms), zamanlayıcı kuyruk ölçümleri, PayTR devre durumu ve açılış maliyeti
+     */
+    @ReactMethod
+    public void getMetrics(Promise promise) {
+        try {
+            WritableMap stages = Arguments.createMap();
+            for (PaymentMetrics.Stage stage : PaymentMetrics.Stage.values()) {
+                LatencyHistogram histogram = metrics.histogram(stage);
+                WritableMap stageMap = Arguments.createMap();
+                stageMap.putDouble("count", histogram.count());
+                stageMap.putDouble("p50Ms", histogram.percentile(50) / 1000.0);
+                stageMap.putDouble("p90Ms", histogram.percentile(90) / 1000.0);
+                stageMap.putDouble("p99Ms", histogram.percentile(99) / 1000.0);
+                stageMap.putDouble("maxMs", histogram.max() / 1000.0);
+                stageMap.putDouble("recentP50Ms", histogram.recentPercentile(50) / 1000.0);
+                stageMap.putDouble("recentP99Ms", histogram.recentPercentile(99) / 1000.0);
+                stages.putMap(stage.jsName, stageMap);
+            }
+
+            WritableMap pools = Arguments.createMap();
+            for (PaymentScheduler.Pool pool : PaymentScheduler.Pool.values()) {
+                PaymentScheduler.Metrics poolMetrics = scheduler.metrics(pool);
+                WritableMap poolMap = Arguments.createMap();
+                poolMap.putInt("queueDepth", scheduler.queueDepth(pool));
+                poolMap.putDouble("executed", poolMetrics.executed.get());
+                poolMap.putDouble("dropped", poolMetrics.dropped.get());
+                poolMap.putDouble("rejected", poolMetrics.rejected.get());
+                poolMap.putDouble("avgWaitMs", poolMetrics.averageWaitMicros() / 1000.0);
+                poolMap.putDouble("maxWaitMs", poolMetrics.maxWaitNanos.get() / 1_000_000.0);
+                pools.putMap(pool.name().toLowerCase(Locale.ROOT), poolMap);
+            }
+
+            PayTRAssetCache assetCache = PayTRAssetCache.get(reactContext);
+            WritableMap cache = Arguments.createMap();
+            cache.putDouble("hits", assetCache.hits.get());
+            cache.putDouble("revalidated", assetCache.revalidated.get());
+            cache.putDouble("misses", assetCache.misses.get());
+            cache.putDouble("bytesFromCache", assetCache.bytesFromCache.get());
+            cache.putDouble("bytesFromNetwork", assetCache.bytesFromNetwork.get());
+            // Never loads the index here; 0 until a page load or preparePayTR has read it on the IO pool
+            cache.putDouble("sizeBytes", assetCache.sizeBytes());
+            long pageLoads = assetCache.pageLoads.get();
+            cache.putDouble("pageLoads", pageLoads);
+            if (pageLoads > 0) {
+                cache.putDouble("cacheBytesPerLoad", assetCache.pageBytesFromCache.get() / (double) pageLoads);
+                cache.putDouble("networkBytesPerLoad", assetCache.pageBytesFromNetwork.get() / (double) pageLoads);
+            }
+
+            PayTRLoadSupervisor supervisor = PayTRLoadSupervisor.get();
+            WritableMap estimates = Arguments.createMap();
+            for (PayTRLoadSupervisor.NetworkType type : PayTRLoadSupervisor.NetworkType.values()) {
+                long estimate = supervisor.estimateMs(type);
+                if (estimate >= 0) {
+                    WritableMap estimateMap = Arguments.createMap();
+                    estimateMap.putDouble("estimateMs", estimate);
+                    estimateMap.putDouble("deadlineMs", supervisor.deadlineMs(type));
+                    estimates.putMap(type.jsName, estimateMap);
+                }
+            }
+            WritableMap paytrLoad = Arguments.createMap();
+            paytrLoad.putString("circuit", supervisor.state().jsName);
+            paytrLoad.putBoolean("available", supervisor.isAvailable());
+            paytrLoad.putInt("consecutiveFailures", supervisor.consecutiveFailures());
+            paytrLoad.putMap("networks", estimates);
+
+            WritableMap providerMap = Arguments.createMap();
+            for (PaymentProvider provider : providers.all()) {
+                PaymentProviderRegistry.Stats providerStats = providers.stats(provider);
+                WritableMap statsMap = Arguments.createMap();
+                statsMap.putBoolean("available", provider.isAvailable(reactContext));
+                statsMap.putDouble("attempts", providerStats.attempts());
+                statsMap.putDouble("successRate", providerStats.successRate());
+                if (providerStats.latencyMs() >= 0) {
+                    statsMap.putDouble("latencyMs", providerStats.latencyMs());
+                }
+                providerMap.putMap(provider.id(), statsMap);
+            }
+
+            VelocityGuard velocity = VelocityGuard.get();
+            WritableMap velocityBlocked = Arguments.createMap();
+            for (VelocityGuard.Decision decision : VelocityGuard.Decision.values()) {
+                if (decision != VelocityGuard.Decision.ALLOW) {
+                    velocityBlocked.putDouble(decision.code, velocity.blocked(decision));
+                }
+            }
+            WritableMap velocityMap = Arguments.createMap();
+            velocityMap.putDouble("checks", velocity.checks());
+            velocityMap.putInt("trackedCards", velocity.trackedCards());
+            velocityMap.putMap("blocked", velocityBlocked);
+
+            WritableMap idempotency = Arguments.createMap();
+            idempotency.putInt("inFlight", inFlightRequests.inFlight());
+            idempotency.putDouble("deduplicated", inFlightRequests.deduplicated.get());
+
+            WritableMap journalMap = Arguments.createMap();
+            journalMap.putInt("pending", journal.pendingCount());
+            journalMap.putBoolean("full", journal.isFull());
+            journalMap.putDouble("droppedRecords", journal.droppedRecords());
+            journalMap.putDouble("expiredSessions", journal.expiredSessions());
+
+            // Absent until deferred init has loaded the queue
+            ReconciliationQueue queue = reconciliation;
+            WritableMap reconciliationMap = null;
+            if (queue != null) {
+                reconciliationMap = Arguments.createMap();
+                reconciliationMap.putInt("pending", queue.pendingCount());
+                reconciliationMap.putInt("deadLetters", queue.deadLetterCount());
+                reconciliationMap.putInt("overflowed", queue.overflowCount());
+                reconciliationMap.putBoolean("authPaused", queue.isAuthPaused());
+            }
+
+            // JS compares these with its own start-up timeline to get the module's share
+            WritableMap startup = Arguments.createMap();
+            startup.putDouble("moduleInitMs", constructNanos / 1_000_000.0);
+            if (deferredInitNanos >= 0) {
+                startup.putDouble("deferredInitMs", deferredInitNanos / 1_000_000.0);
+            }
+            if (processAgeAtConstructMs >= 0) {
+                startup.putDouble("processAgeAtInitMs", processAgeAtConstructMs);
+            }
+
+            WritableMap result = Arguments.createMap();
+            result.putMap("stages", stages);
+            result.putMap("scheduler", pools);
+            result.putMap("assetCache", cache);
+            result.putMap("paytrLoad", paytrLoad);
+            result.putMap("startup", startup);
+            result.putMap("providers", providerMap);
+            result.putMap("velocity", velocityMap);
+            result.putMap("idempotency", idempotency);
+            result.putMap("journal", journalMap);
+            if (reconciliationMap != null) {
+                result.putMap("reconciliation", reconciliationMap);
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Metrics error", e);
+            promise.reject("METRICS_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Hız kontrolü kurallarını değiştir; verilmeyen alanlar varsayılanda kalır, sayaçlar sıfırlanır
+     */
+    @ReactMethod
+    public void configureFraudRules(ReadableMap options, Promise promise) {
+        try {
+            VelocityGuard.get().configure(velocityConfig(options));
+            promise.resolve(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Fraud rules error", e);
+            promise.reject("FRAUD_RULES_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Sıcak yolların mikro ölçümünü çalıştır (yalnızca debug derlemelerde)
+     */
+    @ReactMethod
+    public void runBenchmarks(ReadableMap options, Promise promise) {
+        boolean updateBaseline = options != null && options.hasKey("updateBaseline")
+            && options.getBoolean("updateBaseline");
+        devTools.runBenchmarks(new File(reactContext.getFilesDir(), "payment-benchmark-baseline.json"),
+            updateBaseline, promise);
+    }
+
+    /**
+     * Yerel ağ geçidi benzetimini aç (options) veya kapat (null); yalnızca debug derlemelerde
+     */
+    @ReactMethod
+    public void configureSimulator(ReadableMap options, Promise promise) {
+        devTools.configureSimulator(options, promise);
+    }
+
+    /**
+     * Benzetim oturumlarını ödeme hattından eşzamanlı geçir; verim, gecikme ve doğruluk raporu döner
+     */
+    @ReactMethod
+    public void runLoadTest(ReadableMap options, Promise promise) {
+        devTools.runLoadTest(options, sessions, promise);
+    }
+
+    private static VelocityGuard.Config velocityConfig(ReadableMap options) {
+        VelocityGuard.Config config = new VelocityGuard.Config();
+        config.cardMaxAttempts = Math.max(1, optInt(options, "cardMaxAttempts", config.cardMaxAttempts));
+        config.deviceMaxDistinctCards = Math.max(1,
+            optInt(options, "deviceMaxDistinctCards", config.deviceMaxDistinctCards));
+        config.deviceMaxAttempts = Math.max(1, optInt(options, "deviceMaxAttempts", config.deviceMaxAttempts));
+        config.trackedCards = Math.max(1, optInt(options, "trackedCards", config.trackedCards));
+        if (options != null && options.hasKey("cardWindowMs")) {
+            config.cardWindowMs = Math.max(1000L, (long) options.getDouble("cardWindowMs"));
+        }
+        if (options != null && options.hasKey("deviceWindowMs")) {
+            config.deviceWindowMs = Math.max(1000L, (long) options.getDouble("deviceWindowMs"));
+        }
+        return config;
+    }
+
+    private static int optInt(ReadableMap options, String key, int fallback) {
+        return options != null && options.hasKey(key) ? options.getInt(key) : fallback;
+    }
+
     /**
      * NFC desteğini kontrol et
      */
     @ReactMethod
     public void isNFCSupported(Promise promise) {
         try {
-            boolean isSupported = nfcAdapter != null;
+            boolean isSupported = NfcSupport.isSupported(reactContext);
             promise.resolve(isSupported);
         } catch (Exception e) {
             Log.e(TAG, "NFC support check error", e);
@@ -114,7 +728,7 @@ public class PaymentModule extends ReactContextBaseJavaModule implements Activit
     @ReactMethod
     public void isNFCEnabled(Promise promise) {
         try {
-            boolean isEnabled = nfcAdapter != null && nfcAdapter.isEnabled();
+            boolean isEnabled = NfcSupport.isEnabled(reactContext);
             promise.resolve(isEnabled);
         } catch (Exception e) {
             Log.e(TAG, "NFC enabled check error", e);
@@ -146,98 +760,244 @@ public class PaymentModule extends ReactContextBaseJavaModule implements Activit
 
     @Override
     public void onActivityResult(Activity activity, int requestCode, int resultCode, Intent data) {
-        if (requestCode == PAYTR_REQUEST_CODE) {
-            handlePayTRResult(resultCode, data);
-        } else if (requestCode == NFC_REQUEST_CODE) {
-            handleNFCResult(resultCode, data);
-        }
-    }
-
-    @Override
-    public void onNewIntent(Intent intent) {
-        // Handle deep link intents if needed
+        deliverResult(sessions.findByRequestCode(requestCode), resultCode, data);
     }
 
     /**
-     * PayTR sonucunu işle
+     * Oturumu kapat ve sonucu promise'e ilet; oturum zaten kapandıysa yok sayılır
      */
-    private void handlePayTRResult(int resultCode, Intent data) {
-        if (paytrPromise == null) {
+    private void deliverResult(PaymentSession session, int resultCode, Intent data) {
+        if (session == null || !sessions.remove(session)) {
             return;
         }
+        closeHeadlessPayment(session);
+        metrics.record(PaymentMetrics.Stage.CHECKOUT, session.startedAt);
+
+        PaymentResult result = session.provider.parseResult(session, resultCode, data);
+        providers.recordOutcome(session.provider, result,
+            (System.nanoTime() - session.startedAt) / 1_000_000);
+        // Simulated payments move no money, so they stay out of the journal and reconciliation
+        boolean live = !session.provider.isSimulated();
+        if (live) {
+            journal.recordOutcome(session.id, result.status.wireName, result.reference);
+        }
+        // Null only after destroy; the journal is closed by then, so recovery re-enqueues it on next start
+        ReconciliationQueue queue = reconciliation;
+        if (live && result.status == PaymentResult.Status.SUCCESS && queue != null) {
+            queue.enqueue(new ReconciliationItem(result.reference, session.id,
+                session.type.paymentMethod, result.status.wireName, System.currentTimeMillis()));
+        }
 
         try {
-            WritableMap result = Arguments.createMap();
+            session.resolve(result.toWritableMap());
+        } catch (Exception e) {
+            Log.e(TAG, "Payment result handling error", e);
+            session.reject(session.provider.errorPrefix() + "_RESULT_ERROR", e.getMessage());
+        }
+        if (live) {
+            journal.recordDelivered(session.id);
+        }
+    }
 
-            if (resultCode == Activity.RESULT_OK && data != null) {
-                String status = data.getStringExtra("status");
-                result.putString("status", status);
-
-                if ("success".equals(status)) {
-                    result.putString("token", data.getStringExtra("token"));
-                    result.putDouble("amount", data.getDoubleExtra("amount", 0.0));
-                    result.putString("payment_method", "paytr");
-                } else if ("failed".equals(status)) {
-                    result.putString("error", data.getStringExtra("error"));
-                    result.putString("payment_method", "paytr");
-                } else if ("cancelled".equals(status)) {
-                    result.putString("payment_method", "paytr");
-                }
+    private final PaymentEventBus.Listener busListener = new PaymentEventBus.Listener() {
+        @Override
+        public void onProgress(String sessionId, PaymentProgressEvent.Type type) {
+            progressEvents.enqueue(sessionId, type);
+        }
 
-                paytrPromise.resolve(result);
-            } else {
-                result.putString("status", "cancelled");
-                result.putString("payment_method", "paytr");
-                paytrPromise.resolve(result);
-            }
+        @Override
+        public void onResult(String sessionId, int resultCode, Intent data) {
+            // Resolve as soon as the activity knows the outcome instead of waiting for it to finish
+            deliverResult(sessions.findById(sessionId), resultCode, data);
+        }
+    };
 
-        } catch (Exception e) {
-            Log.e(TAG, "PayTR result handling error", e);
-            paytrPromise.reject("PAYTR_RESULT_ERROR", e.getMessage());
-        } finally {
-            paytrPromise = null;
+    /**
+     * Modül kapanışı: oturumlar reddedilir, günlüğün ve mutabakat kuyruğunun ortak havuzdaki hatları kapatılır
+     */
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        NfcReaderSession session = readerSession;
+        readerSession = null;
+        if (session != null) {
+            Activity currentActivity = getCurrentActivity();
+            scheduler.runOnMain(() -> session.close(currentActivity));
+        }
+        HeadlessNfcPayment payment = headlessPayment;
+        if (payment != null) {
+            closeHeadlessPayment(payment.session);
+        }
+        synchronized (initLock) {
+            destroyed = true;
+        }
+        scheduler.mainHandler().removeCallbacks(deferredInit);
+        reactContext.removeLifecycleEventListener(readerLifecycle);
+        scheduler.runOnMain(() -> metrics.stopPeriodicDump(scheduler));
+        sessions.rejectAll("PAYMENT_ABORTED", "Ödeme oturumu sonlandırıldı");
+        reactContext.unregisterComponentCallbacks(memoryCallbacks);
+        PaymentEventBus.get().clearListener(busListener);
+        journal.close();
+        unregisterNetworkCallback();
+        // Read after destroyed is set, so ensureInitialized cannot create one behind this
+        ReconciliationQueue queue = reconciliation;
+        if (queue != null) {
+            queue.shutdown();
         }
+        scheduler.runOnMain(webViewPool::evict);
     }
 
+    // Reader mode only works while the activity is resumed
+    private final LifecycleEventListener readerLifecycle = new LifecycleEventListener() {
+        @Override
+        public void onHostResume() {
+            NfcReaderSession session = readerSession;
+            if (session != null && !session.isClosed()) {
+                session.attach(getCurrentActivity());
+            }
+            HeadlessNfcPayment payment = headlessPayment;
+            if (payment != null) {
+                payment.attach(getCurrentActivity());
+            }
+        }
+
+        @Override
+        public void onHostPause() {
+            NfcReaderSession session = readerSession;
+            if (session != null) {
+                session.detach(getCurrentActivity());
+            }
+            HeadlessNfcPayment payment = headlessPayment;
+            if (payment != null) {
+                payment.detach(getCurrentActivity());
+            }
+        }
+
+        @Override
+        public void onHostDestroy() {
+        }
+    };
+
     /**
-     * NFC sonucunu işle
+     * Okuyucu olayını JS'e ilet; okunan kartlar yetkilendirilmediği için mutabakata gönderilmez
      */
-    private void handleNFCResult(int resultCode, Intent data) {
-        if (nfcPromise == null) {
+    private void onReaderEvent(NfcReaderSession session, NfcReaderSession.Event event,
+                               NfcReaderSession.Sale sale, String transactionId, String error) {
+        WritableMap params = Arguments.createMap();
+        params.putString("reader_session_id", session.id);
+        params.putString("type", event.jsName);
+        if (sale != null) {
+            params.putString("sale_id", sale.id);
+            // Same schema as PaymentResult: kuruş only, the JS layer derives the TL amount
+            params.putDouble("amount_minor", sale.amountMinor);
+        }
+        if (transactionId != null) {
+            params.putString("transaction_id", transactionId);
+        }
+        if (error != null) {
+            params.putString("error", error);
+        }
+        params.putInt("pending_sales", session.pendingSales());
+        sendEvent("NfcReaderEvent", params);
+    }
+
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            scheduler.runOnMain(() -> webViewPool.onTrimMemory(level));
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            scheduler.runOnMain(webViewPool::evict);
+        }
+    };
+
+    private final ConnectivityManager.NetworkCallback networkCallback =
+        new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                // Registered by ensureInitialized() after the queue exists
+                reconciliation.retryNow();
+            }
+        };
+
+    private void registerNetworkCallback() {
+        ConnectivityManager connectivity =
+            (ConnectivityManager) reactContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivity == null) {
             return;
         }
+        try {
+            connectivity.registerDefaultNetworkCallback(networkCallback);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Network callback unavailable", e);
+        }
+    }
 
+    private void unregisterNetworkCallback() {
+        ConnectivityManager connectivity =
+            (ConnectivityManager) reactContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivity == null) {
+            return;
+        }
         try {
-            WritableMap result = Arguments.createMap();
+            connectivity.unregisterNetworkCallback(networkCallback);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Network callback not registered", e);
+        }
+    }
 
-            if (resultCode == Activity.RESULT_OK && data != null) {
-                String status = data.getStringExtra("status");
-                result.putString("status", status);
-
-                if ("success".equals(status)) {
-                    result.putDouble("amount", data.getDoubleExtra("amount", 0.0));
-                    result.putString("payment_method", "nfc");
-                    result.putString("transaction_id", data.getStringExtra("transaction_id"));
-                } else if ("failed".equals(status)) {
-                    result.putString("error", data.getStringExtra("error"));
-                    result.putString("payment_method", "nfc");
-                } else if ("cancelled".equals(status)) {
-                    result.putString("payment_method", "nfc");
-                }
+    @Override
+    public void onNewIntent(Intent intent) {
+        // Handle deep link intents if needed
+    }
 
-                nfcPromise.resolve(result);
-            } else {
-                result.putString("status", "cancelled");
-                result.putString("payment_method", "nfc");
-                nfcPromise.resolve(result);
-            }
+    /**
+     * Oturum zaman aşımına uğradı: açık activity'yi veya reader mode'u kapat ve promise'i reddet
+     */
+    private void onSessionTimeout(PaymentSession session) {
+        closeHeadlessPayment(session);
+        Activity currentActivity = getCurrentActivity();
+        if (currentActivity != null) {
+            currentActivity.finishActivity(session.requestCode);
+        }
+        boolean live = !session.provider.isSimulated();
+        if (live) {
+            journal.recordOutcome(session.id, "timeout", null);
+        }
+        // Not written to provider stats: an abandoned payment page says nothing about the gateway
+        session.reject("PAYMENT_TIMEOUT", "Ödeme işlemi zaman aşımına uğradı");
+        if (live) {
+            journal.recordDelivered(session.id);
+        }
+    }
 
-        } catch (Exception e) {
-            Log.e(TAG, "NFC result handling error", e);
-            nfcPromise.reject("NFC_RESULT_ERROR", e.getMessage());
-        } finally {
-            nfcPromise = null;
+    /**
+     * Oturum başsız NFC ödemesine aitse reader mode'u kapat ve kart verisini sil
+     */
+    private void closeHeadlessPayment(PaymentSession session) {
+        HeadlessNfcPayment payment = headlessPayment;
+        if (payment == null || payment.session != session) {
+            return;
+        }
+        headlessPayment = null;
+        Activity currentActivity = getCurrentActivity();
+        scheduler.runOnMain(() -> payment.close(currentActivity));
+    }
+
+    /**
+     * İsteğe bağlı timeoutMs alanını oku
+     */
+    private static long getTimeout(ReadableMap paymentData, long defaultTimeoutMs) {
+        if (paymentData.hasKey("timeoutMs") && !paymentData.isNull("timeoutMs")) {
+            return (long) paymentData.getDouble("timeoutMs");
         }
+        return defaultTimeoutMs;
     }
 
     /**
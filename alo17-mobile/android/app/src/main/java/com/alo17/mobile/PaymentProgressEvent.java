@@ -0,0 +1,41 @@
+package com.alo17.mobile;
+
+/**
+ * Ödeme akışındaki ilerleme olayı
+ */
+final class PaymentProgressEvent {
+
+    enum Type {
+        STARTED("started"),
+        CARD_DETECTED("card_detected"),
+        READING("reading"),
+        AUTHORIZING("authorizing"),
+        PAGE_STARTED("page_started"),
+        PAGE_LOADED("page_loaded"),
+        APPROVED("approved"),
+        // Local NFC read finished; issuer authorization is still outstanding
+        CARD_READ("card_read"),
+        DECLINED("declined"),
+        CANCELLED("cancelled");
+
+        final String jsName;
+
+        Type(String jsName) {
+            this.jsName = jsName;
+        }
+
+        boolean isTerminal() {
+            return this == APPROVED || this == CARD_READ || this == DECLINED || this == CANCELLED;
+        }
+    }
+
+    final String sessionId;
+    final Type type;
+    final long timestamp;
+
+    PaymentProgressEvent(String sessionId, Type type, long timestamp) {
+        this.sessionId = sessionId;
+        this.type = type;
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,56 @@
+package com.alo17.mobile;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+
+import com.facebook.react.bridge.ReadableMap;
+
+/**
+ * Ödeme sağlayıcısı SPI'ı. Sağlayıcı yalnızca kendi activity'sini başlatan Intent'i kurar ve
+ * sonucunu ayrıştırır; oturum, günlük, mutabakat ve promise yönetimi PaymentModule'daki ortak hattadır.
+ * Yeni bir ağ geçidi PaymentProviderRegistry'ye kaydedilerek eklenir.
+ */
+interface PaymentProvider {
+
+    /**
+     * Kayıt ve JS tarafındaki seçim için benzersiz ad
+     */
+    String id();
+
+    /**
+     * Günlük ve sonuç şemasında görünen ödeme yöntemi
+     */
+    PaymentSession.Type method();
+
+    /**
+     * Hata kodlarının öneki: PREFIX_ERROR, PREFIX_RESULT_ERROR, PREFIX_UNAVAILABLE
+     */
+    String errorPrefix();
+
+    long defaultTimeoutMs();
+
+    /**
+     * Sağlayıcı şu an ödeme alabilir mi; her thread'den çağrılabilir
+     */
+    boolean isAvailable(Context context);
+
+    String unavailableMessage();
+
+    /**
+     * Gerçek para hareketi yoksa true; sonuçlar günlüğe ve mutabakata yazılmaz
+     */
+    boolean isSimulated();
+
+    /**
+     * Oturum için activity Intent'ini kur; geçersiz veride IllegalArgumentException atar
+     */
+    Intent createIntent(Activity activity, PaymentSession session, ReadableMap paymentData);
+
+    /**
+     * Activity başlatılamadı; Intent ile ayrılan kaynakları bırak
+     */
+    void onLaunchFailed(Intent intent);
+
+    PaymentResult parseResult(PaymentSession session, int resultCode, Intent data);
+}
@@ -0,0 +1,148 @@
+package com.alo17.mobile;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Kayıtlı ödeme sağlayıcıları ve her birinin ölçülen başarı oranı ile gecikmesi.
+ * Oturumlar sağlayıcıyı taşıdığı için sonuç dağıtımı request code üzerinden O(1)'dir;
+ * select() çağıranın verdiği adaylar arasından kullanılabilir olanı başarı oranı, sonra gecikmeye göre seçer.
+ * Başarı oranı sağlayıcının kendisini ölçer: kart reddi başarılı bir tur sayılır, yalnızca taşıma ve
+ * ağ geçidi hataları başarısızdır.
+ */
+final class PaymentProviderRegistry {
+
+    // Success rates closer than this are treated as equal and latency decides
+    private static final double SUCCESS_RATE_TOLERANCE = 0.05;
+
+    static final class Stats {
+        private long successes;
+        private long failures;
+        // -1 until the first completed payment
+        private double latencyMs = -1;
+
+        synchronized void record(boolean success, long latencyMs) {
+            if (success) {
+                successes++;
+            } else {
+                failures++;
+            }
+            this.latencyMs = this.latencyMs < 0 ? latencyMs : this.latencyMs + (latencyMs - this.latencyMs) / 8;
+        }
+
+        // No round trip happened, so latency is left alone
+        synchronized void recordError() {
+            failures++;
+        }
+
+        synchronized long attempts() {
+            return successes + failures;
+        }
+
+        /**
+         * Laplace düzeltmeli başarı oranı; hiç deneme yokken 0.5
+         */
+        synchronized double successRate() {
+            return (successes + 1.0) / (successes + failures + 2.0);
+        }
+
+        synchronized double latencyMs() {
+            return latencyMs;
+        }
+    }
+
+    private final ConcurrentHashMap<String, PaymentProvider> providers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Stats> stats = new ConcurrentHashMap<>();
+    // Registration order, as reported by all()
+    private final List<PaymentProvider> ordered = new CopyOnWriteArrayList<>();
+
+    void register(PaymentProvider provider) {
+        if (providers.putIfAbsent(provider.id(), provider) != null) {
+            throw new IllegalStateException("Provider already registered: " + provider.id());
+        }
+        stats.put(provider.id(), new Stats());
+        ordered.add(provider);
+    }
+
+    PaymentProvider get(String id) {
+        return id != null ? providers.get(id) : null;
+    }
+
+    Collection<PaymentProvider> all() {
+        return ordered;
+    }
+
+    Stats stats(PaymentProvider provider) {
+        return stats.get(provider.id());
+    }
+
+    /**
+     * Sonuçlanan ödemeyi say; iptal kullanıcı kararı olduğundan sağlayıcıya yazılmaz,
+     * ret ise ağ geçidinin cevap verdiği bir tur olarak başarılı sayılır
+     */
+    void recordOutcome(PaymentProvider provider, PaymentResult result, long latencyMs) {
+        if (result.status == null || result.status == PaymentResult.Status.CANCELLED) {
+            return;
+        }
+        Stats providerStats = stats.get(provider.id());
+        if (providerStats != null) {
+            providerStats.record(!result.isGatewayError(), latencyMs);
+        }
+    }
+
+    /**
+     * Ödeme hiç başlatılamadı; sağlayıcının kendi hatası olarak sayılır
+     */
+    void recordLaunchFailure(PaymentProvider provider) {
+        Stats providerStats = stats.get(provider.id());
+        if (providerStats != null) {
+            providerStats.recordError();
+        }
+    }
+
+    /**
+     * Verilen adaylar arasından en iyi kullanılabilir sağlayıcı; aday yoksa null.
+     * Simüle sağlayıcılar hiçbir zaman kendiliğinden seçilmez, ancak adıyla istenebilir
+     */
+    PaymentProvider select(List<String> candidateIds, Context context) {
+        if (candidateIds == null || candidateIds.isEmpty()) {
+            return null;
+        }
+        List<PaymentProvider> candidates = new ArrayList<>(candidateIds.size());
+        for (String id : candidateIds) {
+            PaymentProvider provider = providers.get(id);
+            if (provider != null && !provider.isSimulated()) {
+                candidates.add(provider);
+            }
+        }
+
+        PaymentProvider best = null;
+        double bestRate = 0;
+        double bestLatency = 0;
+        for (PaymentProvider provider : candidates) {
+            if (!provider.isAvailable(context)) {
+                continue;
+            }
+            Stats providerStats = stats.get(provider.id());
+            double rate = providerStats.successRate();
+            double latency = providerStats.latencyMs();
+            if (best == null || rate > bestRate + SUCCESS_RATE_TOLERANCE
+                || (rate >= bestRate - SUCCESS_RATE_TOLERANCE && isFaster(latency, bestLatency))) {
+                best = provider;
+                bestRate = rate;
+                bestLatency = latency;
+            }
+        }
+        return best;
+    }
+
+    // An unmeasured provider is neither faster nor slower, so list order keeps it
+    private static boolean isFaster(double latency, double other) {
+        return latency >= 0 && other >= 0 && latency < other;
+    }
+}
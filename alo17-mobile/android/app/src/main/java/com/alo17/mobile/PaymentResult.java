@@ -0,0 +1,160 @@
+package com.alo17.mobile;
+
+import android.content.Intent;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.List;
+
+/**
+ * Ödeme sonucunun tipli modeli ve tek köprü serileştiricisi.
+ * Activity'den gelen Intent bir kez ayrıştırılır; tutar kuruş cinsinden long olarak taşınır.
+ * JS tarafına sabit şemalı anahtarlarla tek bir harita veya toplu dizi olarak gönderilir.
+ */
+final class PaymentResult {
+
+    // Intent extras written by the payment activities
+    static final String EXTRA_STATUS = "status";
+    static final String EXTRA_TOKEN = "token";
+    static final String EXTRA_TRANSACTION_ID = "transaction_id";
+    static final String EXTRA_AMOUNT_MINOR = "amount_minor";
+    static final String EXTRA_ERROR = "error";
+    static final String EXTRA_ERROR_CODE = "error_code";
+
+    // Bridge schema
+    static final String KEY_SESSION_ID = "session_id";
+    static final String KEY_STATUS = "status";
+    static final String KEY_PAYMENT_METHOD = "payment_method";
+    static final String KEY_REFERENCE = "reference";
+    static final String KEY_AMOUNT_MINOR = "amount_minor";
+    static final String KEY_ERROR = "error";
+    static final String KEY_ERROR_CODE = "error_code";
+    static final String KEY_STARTED_AT = "started_at";
+
+    static final long UNKNOWN_AMOUNT = Money.INVALID;
+
+    // The PayTR page could not be loaded at all; the app may offer NFC instead
+    static final String ERROR_PAYTR_UNAVAILABLE = "PAYTR_UNAVAILABLE";
+    // Blocked locally by VelocityGuard before any card read or network round trip
+    static final String ERROR_VELOCITY_LIMIT = "VELOCITY_LIMIT";
+
+    enum Status {
+        SUCCESS("success"),
+        // NFC card read and passed local checks only; nothing authorized it, so it is never reconciled
+        CARD_READ("card_read"),
+        FAILED("failed"),
+        CANCELLED("cancelled"),
+        TIMEOUT("timeout");
+
+        final String wireName;
+
+        Status(String wireName) {
+            this.wireName = wireName;
+        }
+
+        static Status fromWire(String value) {
+            if (value == null) {
+                return null;
+            }
+            for (Status status : values()) {
+                if (status.wireName.equals(value)) {
+                    return status;
+                }
+            }
+            return null;
+        }
+    }
+
+    final String sessionId;
+    final PaymentSession.Type method;
+    // Null while a recovered session has no recorded outcome yet
+    final Status status;
+    // PayTR token or NFC transaction id
+    final String reference;
+    final long amountMinor;
+    final String error;
+    final String errorCode;
+    final long startedAt;
+
+    PaymentResult(String sessionId, PaymentSession.Type method, Status status, String reference,
+                  long amountMinor, String error, String errorCode, long startedAt) {
+        this.sessionId = sessionId;
+        this.method = method;
+        this.status = status;
+        this.reference = reference;
+        this.amountMinor = amountMinor;
+        this.error = error;
+        this.errorCode = errorCode;
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * Activity sonucunu ayrıştır; durum yoksa iptal sayılır
+     */
+    static PaymentResult fromIntent(String sessionId, PaymentSession.Type method, Intent data) {
+        // Failures are reported with RESULT_CANCELED, so trust the status extra when present
+        Status status = data != null ? Status.fromWire(data.getStringExtra(EXTRA_STATUS)) : null;
+        if (status == null) {
+            return new PaymentResult(sessionId, method, Status.CANCELLED, null, UNKNOWN_AMOUNT, null, null, 0);
+        }
+        String reference = data.getStringExtra(method == PaymentSession.Type.PAYTR
+            ? EXTRA_TOKEN : EXTRA_TRANSACTION_ID);
+        return new PaymentResult(sessionId, method, status, reference,
+            data.getLongExtra(EXTRA_AMOUNT_MINOR, UNKNOWN_AMOUNT),
+            status == Status.FAILED ? data.getStringExtra(EXTRA_ERROR) : null,
+            status == Status.FAILED ? data.getStringExtra(EXTRA_ERROR_CODE) : null, 0);
+    }
+
+    static PaymentResult fromJournal(PaymentJournal.Entry entry) {
+        PaymentSession.Type method = PaymentSession.Type.NFC.paymentMethod.equals(entry.type)
+            ? PaymentSession.Type.NFC : PaymentSession.Type.PAYTR;
+        return new PaymentResult(entry.sessionId, method, Status.fromWire(entry.status), entry.reference,
+            UNKNOWN_AMOUNT, null, null, entry.startedAt);
+    }
+
+    /**
+     * Ağ geçidine ulaşılamadı veya sayfa yüklenemedi; kart reddi ve zaman aşımı bu sayılmaz
+     */
+    boolean isGatewayError() {
+        return status == Status.FAILED && ERROR_PAYTR_UNAVAILABLE.equals(errorCode);
+    }
+
+    WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putString(KEY_SESSION_ID, sessionId);
+        map.putString(KEY_PAYMENT_METHOD, method.paymentMethod);
+        if (status != null) {
+            map.putString(KEY_STATUS, status.wireName);
+        }
+        if (reference != null) {
+            map.putString(KEY_REFERENCE, reference);
+        }
+        // JS numbers are doubles; kuruş amounts stay exact well past any real payment
+        if (amountMinor != UNKNOWN_AMOUNT) {
+            map.putDouble(KEY_AMOUNT_MINOR, amountMinor);
+        }
+        if (error != null) {
+            map.putString(KEY_ERROR, error);
+        }
+        if (errorCode != null) {
+            map.putString(KEY_ERROR_CODE, errorCode);
+        }
+        if (startedAt != 0) {
+            map.putDouble(KEY_STARTED_AT, startedAt);
+        }
+        return map;
+    }
+
+    /**
+     * Birden çok sonucu tek köprü aktarımında gönder
+     */
+    static WritableArray toWritableArray(List<PaymentResult> results) {
+        WritableArray array = Arguments.createArray();
+        for (PaymentResult result : results) {
+            array.pushMap(result.toWritableMap());
+        }
+        return array;
+    }
+}
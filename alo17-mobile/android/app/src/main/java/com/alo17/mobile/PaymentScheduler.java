@@ -0,0 +1,432 @@
+package com.alo17.mobile;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ödeme modülünün ortak iş zamanlayıcısı.
+ * G/Ç ve CPU işleri için sınırlı, öncelikli iki havuz ve tek bir ana thread dağıtıcısı sunar.
+ * İşler bir Scope'a bağlanır; activity kapanınca Scope iptal edilir ve bekleyen işler çalışmaz.
+ * Son tarihi geçmiş işler sıradan çıktığında çalıştırılmadan atılır; atılan iş isteğe bağlı onDropped ile bildirilir.
+ * Kendi durumunu tek thread'de tutan bileşenler ayrı thread açmak yerine havuz üzerinde bir Serial hat kullanır.
+ */
+final class PaymentScheduler {
+    private static final String TAG = "PaymentScheduler";
+
+    enum Pool {
+        IO,
+        CPU
+    }
+
+    enum Priority {
+        HIGH,
+        NORMAL,
+        LOW
+    }
+
+    static final long NO_DEADLINE = 0;
+
+    private static final int IO_THREADS = 3;
+    private static final int CPU_THREADS = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Havuz başına kuyruk ve bekleme süresi ölçümleri
+     */
+    static final class Metrics {
+        final AtomicLong executed = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong totalWaitNanos = new AtomicLong();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+
+        void recordWait(long waitNanos) {
+            executed.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            long max;
+            do {
+                max = maxWaitNanos.get();
+            } while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos));
+        }
+
+        long averageWaitMicros() {
+            long count = executed.get();
+            return count == 0 ? 0 : totalWaitNanos.get() / count / 1000;
+        }
+    }
+
+    /**
+     * Bir activity veya oturuma bağlı iş grubu
+     */
+    final class Scope {
+        private final Set<Task> tasks = Collections.newSetFromMap(new ConcurrentHashMap<Task, Boolean>());
+        private final Set<Runnable> mainCallbacks = Collections.newSetFromMap(new ConcurrentHashMap<Runnable, Boolean>());
+        private volatile boolean cancelled;
+
+        Future<?> submit(Pool pool, Priority priority, long deadlineMs, Runnable work) {
+            return submit(pool, priority, deadlineMs, work, null);
+        }
+
+        /**
+         * İş hiç çalışmadan atılırsa (son tarih geçti veya scope iptal edildi) onDropped bir kez çağrılır.
+         * Atan thread'de çalışır; kısa tutulmalı, UI işi postMain ile yapılmalı
+         */
+        Future<?> submit(Pool pool, Priority priority, long deadlineMs, Runnable work, Runnable onDropped) {
+            if (cancelled) {
+                throw new RejectedExecutionException("Scope cancelled");
+            }
+            return PaymentScheduler.this.submit(this, pool, priority, deadlineMs, work, onDropped);
+        }
+
+        /**
+         * Ana thread'de çalıştır; scope iptal edilirse çalışmaz
+         */
+        void postMain(Runnable work) {
+            postMainDelayed(work, 0);
+        }
+
+        void postMainDelayed(Runnable work, long delayMs) {
+            if (cancelled) {
+                return;
+            }
+            Runnable wrapper = new Runnable() {
+                @Override
+                public void run() {
+                    mainCallbacks.remove(this);
+                    if (!cancelled) {
+                        work.run();
+                    }
+                }
+            };
+            mainCallbacks.add(wrapper);
+            mainHandler.postDelayed(wrapper, delayMs);
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Bekleyen ve çalışan tüm işleri iptal et
+         */
+        void cancel() {
+            cancelled = true;
+            for (Task task : tasks) {
+                task.cancel(true);
+            }
+            tasks.clear();
+            for (Runnable callback : mainCallbacks) {
+                mainHandler.removeCallbacks(callback);
+            }
+            mainCallbacks.clear();
+        }
+    }
+
+    /**
+     * Havuz üzerinde sıralı hat: işler gönderim sırasıyla ve her seferinde bir tane çalışır,
+     * böylece hattın durumu kilitsiz tutulabilir. Hat havuzda en fazla bir yer kaplar.
+     * Gecikmeli işlerin zamanlayıcısı ana thread dağıtıcısındadır; işin kendisi havuzda çalışır.
+     */
+    final class Serial implements Executor {
+        private final Pool pool;
+        private final Priority priority;
+        private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        private final Set<Runnable> timers = Collections.newSetFromMap(new ConcurrentHashMap<Runnable, Boolean>());
+        private boolean draining;
+        private volatile boolean shutdown;
+
+        private Serial(Pool pool, Priority priority) {
+            this.pool = pool;
+            this.priority = priority;
+        }
+
+        @Override
+        public void execute(Runnable work) {
+            synchronized (queue) {
+                if (shutdown) {
+                    throw new RejectedExecutionException("Serial lane shut down");
+                }
+                queue.add(work);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            enqueue(pool, priority, this::drainOne);
+        }
+
+        /**
+         * delayMs sonra hatta ekle; dönen belirteç cancel ile iptal edilir
+         */
+        Runnable schedule(Runnable work, long delayMs) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Serial lane shut down");
+            }
+            Runnable timer = new Runnable() {
+                @Override
+                public void run() {
+                    if (timers.remove(this) && !shutdown) {
+                        execute(work);
+                    }
+                }
+            };
+            timers.add(timer);
+            if (delayMs <= 0) {
+                timer.run();
+            } else {
+                mainHandler.postDelayed(timer, delayMs);
+            }
+            return timer;
+        }
+
+        /**
+         * Henüz hatta eklenmemiş gecikmeli işi iptal et
+         */
+        void cancel(Runnable timer) {
+            if (timer != null && timers.remove(timer)) {
+                mainHandler.removeCallbacks(timer);
+            }
+        }
+
+        /**
+         * Yeni işleri reddet ve gecikmeli işleri bırak; sıradaki işler bitirilir
+         */
+        void shutdown() {
+            shutdown = true;
+            for (Runnable timer : timers) {
+                mainHandler.removeCallbacks(timer);
+            }
+            timers.clear();
+        }
+
+        private void drainOne() {
+            Runnable next;
+            synchronized (queue) {
+                next = queue.poll();
+            }
+            try {
+                if (next != null) {
+                    next.run();
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Serial lane task failed", e);
+            } finally {
+                boolean more;
+                synchronized (queue) {
+                    more = !queue.isEmpty();
+                    draining = more;
+                }
+                // One task per turn, so urgent pool work can run between lane tasks
+                if (more) {
+                    enqueue(pool, priority, this::drainOne);
+                }
+            }
+        }
+    }
+
+    // Marks the moment the work itself starts, which FutureTask does not expose
+    private static final class Work implements Runnable {
+        final Runnable body;
+        volatile boolean started;
+
+        Work(Runnable body) {
+            this.body = body;
+        }
+
+        @Override
+        public void run() {
+            started = true;
+            body.run();
+        }
+    }
+
+    private final class Task extends FutureTask<Void> implements Comparable<Task> {
+        final Scope scope;
+        final Pool pool;
+        final Priority priority;
+        final long sequence;
+        final long enqueuedAt;
+        final long deadline;
+        final Runnable onDropped;
+        private final Work work;
+
+        Task(Scope scope, Pool pool, Priority priority, long deadlineMs, Runnable work, Runnable onDropped) {
+            this(scope, pool, priority, deadlineMs, new Work(work), onDropped);
+        }
+
+        private Task(Scope scope, Pool pool, Priority priority, long deadlineMs, Work work, Runnable onDropped) {
+            super(work, null);
+            this.work = work;
+            this.scope = scope;
+            this.onDropped = onDropped;
+            this.pool = pool;
+            this.priority = priority;
+            this.sequence = sequenceCounter.getAndIncrement();
+            this.enqueuedAt = SystemClock.elapsedRealtimeNanos();
+            this.deadline = deadlineMs > 0 ? SystemClock.elapsedRealtime() + deadlineMs : 0;
+        }
+
+        @Override
+        public void run() {
+            Metrics poolMetrics = metrics(pool);
+            if ((deadline != 0 && SystemClock.elapsedRealtime() > deadline)
+                || (scope != null && scope.cancelled)) {
+                // Stale work never runs, so fresh taps do not queue behind it
+                poolMetrics.dropped.incrementAndGet();
+                cancel(false);
+                return;
+            }
+            poolMetrics.recordWait(SystemClock.elapsedRealtimeNanos() - enqueuedAt);
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            if (scope != null) {
+                scope.tasks.remove(this);
+            }
+            // Work that never ran also never reached its own cleanup
+            if (onDropped != null && isCancelled() && !work.started) {
+                onDropped.run();
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static volatile PaymentScheduler instance;
+
+    private final AtomicLong sequenceCounter = new AtomicLong();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ThreadPoolExecutor ioPool;
+    private final ThreadPoolExecutor cpuPool;
+    private final Metrics ioMetrics = new Metrics();
+    private final Metrics cpuMetrics = new Metrics();
+
+    private PaymentScheduler() {
+        ioPool = newPool("payment-io", IO_THREADS);
+        cpuPool = newPool("payment-cpu", CPU_THREADS);
+    }
+
+    static PaymentScheduler get() {
+        PaymentScheduler current = instance;
+        if (current == null) {
+            synchronized (PaymentScheduler.class) {
+                current = instance;
+                if (current == null) {
+                    current = new PaymentScheduler();
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    Scope newScope() {
+        return new Scope();
+    }
+
+    /**
+     * Modül bileşenleri için sıralı hat (günlük, mutabakat kuyruğu); sahibi kapanırken shutdown çağırır
+     */
+    Serial newSerial(Pool pool, Priority priority) {
+        return new Serial(pool, priority);
+    }
+
+    /**
+     * Scope'suz iş gönder (modül seviyesindeki arka plan işleri için)
+     */
+    Future<?> submit(Pool pool, Priority priority, long deadlineMs, Runnable work) {
+        return submit(null, pool, priority, deadlineMs, work, null);
+    }
+
+    /**
+     * Modülün tek ana thread dağıtıcısı
+     */
+    Handler mainHandler() {
+        return mainHandler;
+    }
+
+    /**
+     * Ana thread'de çalıştır
+     */
+    void runOnMain(Runnable work) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            work.run();
+        } else {
+            mainHandler.post(work);
+        }
+    }
+
+    Metrics metrics(Pool pool) {
+        return pool == Pool.IO ? ioMetrics : cpuMetrics;
+    }
+
+    int queueDepth(Pool pool) {
+        return executor(pool).getQueue().size();
+    }
+
+    private Future<?> submit(Scope scope, Pool pool, Priority priority, long deadlineMs, Runnable work,
+                             Runnable onDropped) {
+        ThreadPoolExecutor executor = executor(pool);
+        if (executor.getQueue().size() >= QUEUE_CAPACITY && priority != Priority.HIGH) {
+            metrics(pool).rejected.incrementAndGet();
+            throw new RejectedExecutionException(pool + " queue full");
+        }
+        Task task = new Task(scope, pool, priority, deadlineMs, work, onDropped);
+        if (scope != null) {
+            scope.tasks.add(task);
+        }
+        executor.execute(task);
+        return task;
+    }
+
+    // Lane turns skip the capacity check: each lane has at most one turn queued
+    private void enqueue(Pool pool, Priority priority, Runnable work) {
+        executor(pool).execute(new Task(null, pool, priority, NO_DEADLINE, work, null));
+    }
+
+    private ThreadPoolExecutor executor(Pool pool) {
+        return pool == Pool.IO ? ioPool : cpuPool;
+    }
+
+    private static ThreadPoolExecutor newPool(String name, int threads) {
+        ThreadFactory factory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        // The priority queue is unbounded, so the pool always runs at its core size
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(), factory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
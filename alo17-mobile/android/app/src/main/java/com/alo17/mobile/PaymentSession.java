@@ -0,0 +1,111 @@
+package com.alo17.mobile;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tek bir ödeme oturumu: kendi request code'u, promise'i ve zaman aşımı vardır.
+ * Promise yalnızca bir kez sonuçlanır; ikinci resolve/reject çağrıları yok sayılır.
+ * Aynı isteğin tekrarları oturuma eklenir ve aynı sonucu alır.
+ */
+final class PaymentSession {
+
+    enum Type {
+        PAYTR("paytr"),
+        NFC("nfc");
+
+        final String paymentMethod;
+
+        Type(String paymentMethod) {
+            this.paymentMethod = paymentMethod;
+        }
+    }
+
+    final String id;
+    final PaymentProvider provider;
+    final Type type;
+    final int requestCode;
+    final long startedAt;
+
+    private final Promise promise;
+    private final AtomicBoolean settled = new AtomicBoolean(false);
+    // Promises of duplicate requests; guarded by this
+    private List<Promise> followers;
+    Runnable timeoutTask;
+
+    PaymentSession(String id, PaymentProvider provider, int requestCode, Promise promise) {
+        this.id = id;
+        this.provider = provider;
+        this.type = provider.method();
+        this.requestCode = requestCode;
+        this.promise = promise;
+        this.startedAt = System.nanoTime();
+    }
+
+    boolean isSettled() {
+        return settled.get();
+    }
+
+    /**
+     * Tekrarlanan isteğin promise'ini bu oturumun sonucuna bağla; oturum sonuçlandıysa false döner
+     */
+    synchronized boolean attach(Promise follower) {
+        if (settled.get()) {
+            return false;
+        }
+        if (followers == null) {
+            followers = new ArrayList<>(2);
+        }
+        followers.add(follower);
+        return true;
+    }
+
+    synchronized int followerCount() {
+        return followers == null ? 0 : followers.size();
+    }
+
+    /**
+     * Promise'i sonuçlandır; daha önce sonuçlanmışsa false döner
+     */
+    boolean resolve(Object value) {
+        if (!settled.compareAndSet(false, true)) {
+            return false;
+        }
+        List<Promise> attached = drainFollowers();
+        // A native map is consumed when it crosses the bridge, so every follower needs its own copy
+        Object[] copies = new Object[attached.size()];
+        for (int i = 0; i < copies.length; i++) {
+            copies[i] = value instanceof WritableMap ? ((WritableMap) value).copy() : value;
+        }
+        promise.resolve(value);
+        for (int i = 0; i < copies.length; i++) {
+            attached.get(i).resolve(copies[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Promise'i hata ile sonuçlandır; daha önce sonuçlanmışsa false döner
+     */
+    boolean reject(String code, String message) {
+        if (!settled.compareAndSet(false, true)) {
+            return false;
+        }
+        promise.reject(code, message);
+        for (Promise follower : drainFollowers()) {
+            follower.reject(code, message);
+        }
+        return true;
+    }
+
+    private synchronized List<Promise> drainFollowers() {
+        List<Promise> attached = followers != null ? followers : Collections.<Promise>emptyList();
+        followers = null;
+        return attached;
+    }
+}
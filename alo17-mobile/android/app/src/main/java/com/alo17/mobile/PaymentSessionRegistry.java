@@ -0,0 +1,109 @@
+package com.alo17.mobile;
+
+import android.os.Handler;
+import android.util.Log;
+
+import com.facebook.react.bridge.Promise;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Aynı anda devam eden ödeme oturumlarının kaydı.
+ * Her oturum benzersiz bir request code alır; onActivityResult bu kod ile oturumu bulur.
+ */
+final class PaymentSessionRegistry {
+    private static final String TAG = "PaymentSessionRegistry";
+
+    // startActivityForResult only accepts the lower 16 bits
+    private static final int REQUEST_CODE_BASE = 0x1000;
+    private static final int REQUEST_CODE_SPAN = 0x1000;
+
+    interface TimeoutListener {
+        void onSessionTimeout(PaymentSession session);
+    }
+
+    private final ConcurrentHashMap<String, PaymentSession> sessionsById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, PaymentSession> sessionsByRequestCode = new ConcurrentHashMap<>();
+    private final AtomicInteger requestCodeSequence = new AtomicInteger();
+    private final Handler timeoutHandler;
+    private final TimeoutListener timeoutListener;
+    // Resolved on first use; loading the generator reads SharedPreferences
+    private final Supplier<TransactionIdGenerator> ids;
+
+    PaymentSessionRegistry(Supplier<TransactionIdGenerator> ids, PaymentScheduler scheduler,
+                           TimeoutListener timeoutListener) {
+        this.ids = ids;
+        this.timeoutHandler = scheduler.mainHandler();
+        this.timeoutListener = timeoutListener;
+    }
+
+    /**
+     * Yeni oturum aç ve zaman aşımını planla
+     */
+    PaymentSession open(PaymentProvider provider, Promise promise, long timeoutMs) {
+        String id = ids.get().next();
+        PaymentSession session;
+        int attempts = 0;
+        do {
+            if (++attempts > REQUEST_CODE_SPAN) {
+                throw new IllegalStateException("Too many payment sessions in flight");
+            }
+            int requestCode = REQUEST_CODE_BASE
+                + Math.floorMod(requestCodeSequence.getAndIncrement(), REQUEST_CODE_SPAN);
+            session = new PaymentSession(id, provider, requestCode, promise);
+        } while (sessionsByRequestCode.putIfAbsent(session.requestCode, session) != null);
+
+        sessionsById.put(id, session);
+
+        if (timeoutMs > 0) {
+            final PaymentSession timed = session;
+            session.timeoutTask = () -> {
+                if (remove(timed)) {
+                    Log.w(TAG, "Payment session timed out: " + timed.id);
+                    timeoutListener.onSessionTimeout(timed);
+                }
+            };
+            timeoutHandler.postDelayed(session.timeoutTask, timeoutMs);
+        }
+        return session;
+    }
+
+    PaymentSession findByRequestCode(int requestCode) {
+        return sessionsByRequestCode.get(requestCode);
+    }
+
+    PaymentSession findById(String id) {
+        return sessionsById.get(id);
+    }
+
+    int size() {
+        return sessionsById.size();
+    }
+
+    /**
+     * Oturumu kayıttan çıkar; yalnızca ilk çağıran true alır
+     */
+    boolean remove(PaymentSession session) {
+        if (!sessionsById.remove(session.id, session)) {
+            return false;
+        }
+        sessionsByRequestCode.remove(session.requestCode, session);
+        if (session.timeoutTask != null) {
+            timeoutHandler.removeCallbacks(session.timeoutTask);
+        }
+        return true;
+    }
+
+    /**
+     * Tüm açık oturumları hata ile kapat
+     */
+    void rejectAll(String code, String message) {
+        for (PaymentSession session : sessionsById.values()) {
+            if (remove(session)) {
+                session.reject(code, message);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.alo17.mobile;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Backend'e onaylatılacak tek bir ödeme sonucu.
+ * Tekilleştirme anahtarı işlem referansıdır (PayTR token veya NFC transaction_id).
+ */
+final class ReconciliationItem {
+
+    final String reference;
+    final String sessionId;
+    final String paymentMethod;
+    final String status;
+    final long createdAt;
+
+    ReconciliationItem(String reference, String sessionId, String paymentMethod, String status,
+                       long createdAt) {
+        this.reference = reference;
+        this.sessionId = sessionId;
+        this.paymentMethod = paymentMethod;
+        this.status = status;
+        this.createdAt = createdAt;
+    }
+
+    JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("reference", reference);
+        json.put("session_id", sessionId);
+        json.put("payment_method", paymentMethod);
+        json.put("status", status);
+        json.put("created_at", createdAt);
+        return json;
+    }
+
+    static ReconciliationItem fromJson(JSONObject json) throws JSONException {
+        return new ReconciliationItem(
+            json.getString("reference"),
+            json.optString("session_id", null),
+            json.optString("payment_method", null),
+            json.optString("status", null),
+            json.optLong("created_at"));
+    }
+}
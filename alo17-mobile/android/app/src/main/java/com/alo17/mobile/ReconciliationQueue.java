@@ -0,0 +1,368 @@
+package com.alo17.mobile;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Ödeme sonuçlarını backend'e partiler halinde onaylatan çevrimdışı öncelikli kuyruk.
+ * Kayıtlar işlem referansına göre tekilleştirilir ve diske yazılır; gönderim
+ * belirli aralıkla veya parti dolduğunda yapılır, hata durumunda jitter'lı üstel geri çekilme uygulanır.
+ * Reddedilen parti kayıt kayıt yeniden gönderilir; tek başına reddedilen kayıt silinmez, ölü mektup
+ * dosyasına taşınır. Yetki hatasında gönderim yeni taşıma katmanı ayarlanana kadar durur.
+ * Kuyruk dolduğunda en eski kayıt da silinmez, ölü mektuplara taşınır.
+ * Yeni kayıtlar günlük dosyasına satır olarak eklenir; tüm liste yalnızca kayıt çıkınca yeniden yazılır.
+ * Tüm durum ortak zamanlayıcının tek bir sıralı hattında değiştirilir.
+ */
+final class ReconciliationQueue {
+    private static final String TAG = "ReconciliationQueue";
+
+    static final long DEFAULT_FLUSH_INTERVAL_MS = 5000;
+    static final int DEFAULT_MAX_BATCH = 20;
+
+    private static final long BASE_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 5 * 60 * 1000L;
+    private static final int MAX_QUEUE = 1000;
+    private static final int RECENT_CONFIRMED = 500;
+
+    private final File storeFile;
+    // Items added since the last full write, one JSON object per line
+    private final File appendFile;
+    private final File deadLetterFile;
+    private final long flushIntervalMs;
+    private final int maxBatch;
+    private final long baseBackoffMs;
+    // Every state change runs on this lane of the shared IO pool
+    private final PaymentScheduler.Serial worker;
+    private final Map<String, ReconciliationItem> pending = new LinkedHashMap<>();
+    // Items the backend rejected on their own; kept for support instead of being deleted
+    private final Map<String, ReconciliationItem> deadLetters = new LinkedHashMap<>();
+    private final Random jitter = new Random();
+    // References confirmed recently, so a late duplicate is not sent twice
+    private final Map<String, Boolean> recentlyConfirmed = new LinkedHashMap<String, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > RECENT_CONFIRMED;
+        }
+    };
+
+    private ReconciliationTransport transport;
+    private Runnable scheduledFlush;
+    private long scheduledFlushAt;
+    private int failures;
+    private long retryNotBefore;
+    // Sends are paused after 401/403 until setTransport brings a new token
+    private boolean authPaused;
+    // Items still to be sent one by one after a rejected batch
+    private int isolateRemaining;
+
+    // Read from other threads for metrics
+    private volatile int pendingCount;
+    private volatile int deadLetterCount;
+    private volatile int overflowCount;
+    private volatile boolean authPausedFlag;
+
+    ReconciliationQueue(File storeFile, long flushIntervalMs, int maxBatch) {
+        this(storeFile, flushIntervalMs, maxBatch, BASE_BACKOFF_MS);
+    }
+
+    ReconciliationQueue(File storeFile, long flushIntervalMs, int maxBatch, long baseBackoffMs) {
+        this.storeFile = storeFile;
+        this.appendFile = new File(storeFile.getPath() + ".log");
+        this.deadLetterFile = new File(storeFile.getParentFile(), "dead-" + storeFile.getName());
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxBatch = maxBatch;
+        this.baseBackoffMs = baseBackoffMs;
+        this.worker = PaymentScheduler.get().newSerial(PaymentScheduler.Pool.IO, PaymentScheduler.Priority.LOW);
+        worker.execute(this::load);
+    }
+
+    /**
+     * Taşıma katmanını ayarla; ayarlanana kadar kayıtlar diskte bekler
+     */
+    void setTransport(ReconciliationTransport transport) {
+        worker.execute(() -> {
+            this.transport = transport;
+            failures = 0;
+            retryNotBefore = 0;
+            setAuthPaused(false);
+            scheduleFlush(0);
+        });
+    }
+
+    /**
+     * Sonucu kuyruğa ekle; aynı referans zaten bekliyorsa yok sayılır
+     */
+    void enqueue(ReconciliationItem item) {
+        if (item.reference == null) {
+            return;
+        }
+        worker.execute(() -> {
+            if (pending.containsKey(item.reference) || recentlyConfirmed.containsKey(item.reference)) {
+                return;
+            }
+            if (pending.size() >= MAX_QUEUE) {
+                ReconciliationItem oldest = pending.values().iterator().next();
+                Log.w(TAG, "Reconciliation queue full, moving oldest entry to dead letters: " + oldest.reference);
+                overflowCount++;
+                moveToDeadLetters(oldest);
+            }
+            pending.put(item.reference, item);
+            pendingCount = pending.size();
+            append(item);
+            scheduleFlush(pending.size() >= maxBatch ? 0 : flushIntervalMs);
+        });
+    }
+
+    /**
+     * Ağ geri geldiğinde beklemeden tekrar dene
+     */
+    void retryNow() {
+        worker.execute(() -> {
+            retryNotBefore = 0;
+            scheduleFlush(0);
+        });
+    }
+
+    /**
+     * Modül kapanırken çağrılır; sıradaki yazmalar biter, bekleyen gönderimler bir sonraki açılışa kalır
+     */
+    void shutdown() {
+        worker.shutdown();
+    }
+
+    int pendingCount() {
+        return pendingCount;
+    }
+
+    int deadLetterCount() {
+        return deadLetterCount;
+    }
+
+    /**
+     * Kuyruk dolu olduğu için ölü mektuplara taşınan kayıt sayısı (bu süreçte)
+     */
+    int overflowCount() {
+        return overflowCount;
+    }
+
+    boolean isAuthPaused() {
+        return authPausedFlag;
+    }
+
+    private void scheduleFlush(long delayMs) {
+        if (pending.isEmpty() || transport == null || authPaused) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long delay = Math.max(delayMs, retryNotBefore - now);
+        if (scheduledFlush != null) {
+            if (scheduledFlushAt <= now + delay) {
+                return;
+            }
+            worker.cancel(scheduledFlush);
+        }
+        scheduledFlushAt = now + delay;
+        scheduledFlush = worker.schedule(this::flush, delay);
+    }
+
+    private void flush() {
+        // This run is the scheduled flush; clear it so rescheduling from here is not mistaken for a pending one
+        scheduledFlush = null;
+        if (pending.isEmpty() || transport == null || authPaused) {
+            return;
+        }
+        int batchLimit = isolateRemaining > 0 ? 1 : maxBatch;
+        List<ReconciliationItem> batch = new ArrayList<>(Math.min(batchLimit, pending.size()));
+        for (ReconciliationItem item : pending.values()) {
+            batch.add(item);
+            if (batch.size() == batchLimit) {
+                break;
+            }
+        }
+
+        try {
+            transport.send(batch);
+            for (ReconciliationItem item : batch) {
+                recentlyConfirmed.put(item.reference, Boolean.TRUE);
+            }
+            removeAll(batch);
+            failures = 0;
+            retryNotBefore = 0;
+            if (isolateRemaining > 0) {
+                isolateRemaining--;
+            }
+        } catch (ReconciliationTransport.AuthFailure e) {
+            Log.e(TAG, "Reconciliation auth rejected, pausing until a new token is configured", e);
+            setAuthPaused(true);
+            return;
+        } catch (ReconciliationTransport.PermanentFailure e) {
+            if (batch.size() > 1) {
+                // One bad item must not take the rest of the batch with it
+                Log.w(TAG, "Reconciliation batch rejected, retrying " + batch.size() + " items one by one", e);
+                isolateRemaining = batch.size();
+                scheduleFlush(0);
+                return;
+            }
+            Log.e(TAG, "Reconciliation item rejected, moving to dead letters: " + batch.get(0).reference, e);
+            moveToDeadLetters(batch.get(0));
+            if (isolateRemaining > 0) {
+                isolateRemaining--;
+            }
+        } catch (IOException e) {
+            failures++;
+            long backoff = backoffMs(failures);
+            retryNotBefore = System.currentTimeMillis() + backoff;
+            Log.w(TAG, "Reconciliation failed (" + failures + "), retrying in " + backoff + "ms");
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Reconciliation transport error", e);
+            failures++;
+            retryNotBefore = System.currentTimeMillis() + backoffMs(failures);
+        }
+        scheduleFlush(pending.size() >= maxBatch || isolateRemaining > 0 ? 0 : flushIntervalMs);
+    }
+
+    private void removeAll(List<ReconciliationItem> batch) {
+        for (ReconciliationItem item : batch) {
+            pending.remove(item.reference);
+        }
+        persist();
+    }
+
+    private void moveToDeadLetters(ReconciliationItem item) {
+        if (deadLetters.size() >= MAX_QUEUE) {
+            Iterator<String> oldest = deadLetters.keySet().iterator();
+            Log.w(TAG, "Dead letter list full, dropping oldest entry");
+            oldest.next();
+            oldest.remove();
+        }
+        deadLetters.put(item.reference, item);
+        write(deadLetterFile, deadLetters);
+        deadLetterCount = deadLetters.size();
+        pending.remove(item.reference);
+        persist();
+    }
+
+    private void setAuthPaused(boolean paused) {
+        authPaused = paused;
+        authPausedFlag = paused;
+    }
+
+    // Half a base interval plus a uniform jitter up to min(max, base * 2^n)
+    private long backoffMs(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MS, baseBackoffMs << Math.min(attempt, 20));
+        return baseBackoffMs / 2 + (long) (jitter.nextDouble() * ceiling);
+    }
+
+    private void load() {
+        read(storeFile, pending);
+        readAppended();
+        read(deadLetterFile, deadLetters);
+        pendingCount = pending.size();
+        deadLetterCount = deadLetters.size();
+        Log.d(TAG, "Loaded " + pending.size() + " pending confirmations, " + deadLetters.size() + " dead letters");
+    }
+
+    private static void read(File file, Map<String, ReconciliationItem> into) {
+        if (!file.exists()) {
+            return;
+        }
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] data = new byte[(int) file.length()];
+            int read = 0;
+            while (read < data.length) {
+                int n = in.read(data, read, data.length - read);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+            JSONArray items = new JSONArray(new String(data, 0, read, StandardCharsets.UTF_8));
+            for (int i = 0; i < items.length(); i++) {
+                ReconciliationItem item = ReconciliationItem.fromJson(items.getJSONObject(i));
+                into.put(item.reference, item);
+            }
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Reconciliation store unreadable, starting empty: " + file.getName(), e);
+        }
+    }
+
+    // A torn last line from a crash mid-append is skipped; everything before it is kept
+    private void readAppended() {
+        if (!appendFile.exists()) {
+            return;
+        }
+        try (BufferedReader in = new BufferedReader(
+            new InputStreamReader(new FileInputStream(appendFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                try {
+                    ReconciliationItem item = ReconciliationItem.fromJson(new JSONObject(line));
+                    if (!pending.containsKey(item.reference)) {
+                        pending.put(item.reference, item);
+                    }
+                } catch (JSONException e) {
+                    Log.w(TAG, "Skipping unreadable reconciliation log line");
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Reconciliation log unreadable", e);
+        }
+    }
+
+    private void append(ReconciliationItem item) {
+        try (FileOutputStream out = new FileOutputStream(appendFile, true)) {
+            out.write((item.toJson().toString() + "\n").getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Reconciliation log append failed, rewriting the store", e);
+            persist();
+        }
+    }
+
+    // The full list already holds the logged items, so the log is dropped once it is written.
+    // A crash between the two replays confirmed items; the backend dedups by reference.
+    private void persist() {
+        if (write(storeFile, pending) && appendFile.exists() && !appendFile.delete()) {
+            Log.w(TAG, "Cannot delete " + appendFile.getName());
+        }
+        pendingCount = pending.size();
+    }
+
+    private static boolean write(File file, Map<String, ReconciliationItem> items) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            JSONArray array = new JSONArray();
+            for (ReconciliationItem item : items.values()) {
+                array.put(item.toJson());
+            }
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                out.write(array.toString().getBytes(StandardCharsets.UTF_8));
+                out.getFD().sync();
+            }
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Cannot replace " + file);
+            }
+            return true;
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Reconciliation store write failed: " + file.getName(), e);
+            return false;
+        }
+    }
+}
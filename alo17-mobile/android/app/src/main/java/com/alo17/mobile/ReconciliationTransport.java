@@ -0,0 +1,26 @@
+package com.alo17.mobile;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Mutabakat partisini backend'e ileten taşıma katmanı.
+ * IOException tekrar denenir. AuthFailure gönderimi yeni kimlik bilgisi gelene kadar durdurur.
+ * PermanentFailure alan parti tek tek yeniden denenir; tek başına reddedilen kayıt ölü mektup listesine taşınır.
+ */
+interface ReconciliationTransport {
+
+    void send(List<ReconciliationItem> batch) throws IOException;
+
+    final class PermanentFailure extends IOException {
+        PermanentFailure(String message) {
+            super(message);
+        }
+    }
+
+    final class AuthFailure extends IOException {
+        AuthFailure(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.alo17.mobile;
+
+import android.os.SystemClock;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Elle girilen kart bilgisinin (PAN, son kullanma, CVV) yığın dışı tutucusu.
+ * Veri tek bir doğrudan ByteBuffer'da ASCII olarak durur; doğrulayıcı ona kopyasız
+ * CharSequence görünümleriyle erişir. Activity'ye Intent ile yalnızca bir süreç içi tutamaç (long)
+ * gider, Parcel kopyası oluşmaz. wipe() tamponu sıfırlar; görünümler bundan sonra boş görünür.
+ */
+final class SecureCardData {
+
+    static final String EXTRA_HANDLE = "card_handle";
+    static final long NO_HANDLE = 0;
+
+    private static final int PAN_CAPACITY = 32;
+    private static final int EXPIRY_CAPACITY = 8;
+    private static final int CVV_CAPACITY = 8;
+    private static final int PAN_OFFSET = 0;
+    private static final int EXPIRY_OFFSET = PAN_OFFSET + PAN_CAPACITY;
+    private static final int CVV_OFFSET = EXPIRY_OFFSET + EXPIRY_CAPACITY;
+    private static final int CAPACITY = CVV_OFFSET + CVV_CAPACITY;
+
+    // A handle never claimed by an activity is wiped after this long
+    private static final long UNCLAIMED_TTL_MS = 2 * 60 * 1000L;
+
+    private static final Map<Long, SecureCardData> HANDLES = new ConcurrentHashMap<>();
+    private static final AtomicLong NEXT_HANDLE = new AtomicLong(SystemClock.elapsedRealtime() << 16);
+
+    final CharSequence pan = new View(PAN_OFFSET, 0);
+    final CharSequence expiry = new View(EXPIRY_OFFSET, 1);
+    final CharSequence cvv = new View(CVV_OFFSET, 2);
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(CAPACITY);
+    // Lengths of pan, expiry and cvv; all zero once wiped
+    private final int[] lengths = new int[3];
+    private final long createdAt = SystemClock.elapsedRealtime();
+    private volatile boolean wiped;
+    private volatile boolean claimed;
+
+    private SecureCardData() {
+    }
+
+    /**
+     * Köprüden gelen alanları tampona kopyala; PAN'daki boşluk ve tireler atılır
+     */
+    static SecureCardData of(CharSequence pan, CharSequence expiry, CharSequence cvv) {
+        SecureCardData data = new SecureCardData();
+        data.lengths[0] = data.copy(pan, PAN_OFFSET, PAN_CAPACITY, true);
+        data.lengths[1] = data.copy(expiry, EXPIRY_OFFSET, EXPIRY_CAPACITY, false);
+        data.lengths[2] = data.copy(cvv, CVV_OFFSET, CVV_CAPACITY, false);
+        return data;
+    }
+
+    /**
+     * Süreç içi tutamaç al; Intent'e yalnızca bu değer konur
+     */
+    static long register(SecureCardData data) {
+        sweepUnclaimed();
+        long handle = NEXT_HANDLE.incrementAndGet();
+        HANDLES.put(handle, data);
+        return handle;
+    }
+
+    /**
+     * Tutamaca karşılık gelen veriyi döndür; süreç yeniden başladıysa veya silindiyse null
+     */
+    static SecureCardData lookup(long handle) {
+        SecureCardData data = HANDLES.get(handle);
+        if (data == null || data.wiped) {
+            return null;
+        }
+        data.claimed = true;
+        return data;
+    }
+
+    /**
+     * Tutamacı bırak ve veriyi sil
+     */
+    static void release(long handle) {
+        SecureCardData data = HANDLES.remove(handle);
+        if (data != null) {
+            data.wipe();
+        }
+    }
+
+    /**
+     * Tamponu sıfırla; tekrar çağrılabilir
+     */
+    void wipe() {
+        lengths[0] = 0;
+        lengths[1] = 0;
+        lengths[2] = 0;
+        wiped = true;
+        for (int i = 0; i < CAPACITY; i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    boolean isWiped() {
+        return wiped;
+    }
+
+    /**
+     * Tamponun tamamı sıfır mı; yalnızca silmenin doğrulanması için
+     */
+    boolean isZeroed() {
+        for (int i = 0; i < CAPACITY; i++) {
+            if (buffer.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int copy(CharSequence source, int offset, int capacity, boolean skipSeparators) {
+        if (source == null) {
+            return 0;
+        }
+        int length = 0;
+        for (int i = 0, n = source.length(); i < n; i++) {
+            char c = source.charAt(i);
+            if (skipSeparators && (c == ' ' || c == '-')) {
+                continue;
+            }
+            if (length == capacity) {
+                wipe();
+                throw new IllegalArgumentException("Kart alanı çok uzun");
+            }
+            // Anything outside ASCII becomes '?' so the validator rejects it instead of misreading it
+            buffer.put(offset + length++, c < 0x80 ? (byte) c : (byte) '?');
+        }
+        return length;
+    }
+
+    private static void sweepUnclaimed() {
+        long now = SystemClock.elapsedRealtime();
+        Iterator<SecureCardData> it = HANDLES.values().iterator();
+        while (it.hasNext()) {
+            SecureCardData data = it.next();
+            if (!data.claimed && now - data.createdAt > UNCLAIMED_TTL_MS) {
+                data.wipe();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Tampon üzerinde kopyasız okuma görünümü; toString içeriği asla döndürmez
+     */
+    private final class View implements CharSequence {
+        private final int offset;
+        private final int field;
+        private final int start;
+        private final int end;
+
+        View(int offset, int field) {
+            this(offset, field, 0, -1);
+        }
+
+        private View(int offset, int field, int start, int end) {
+            this.offset = offset;
+            this.field = field;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            int available = lengths[field];
+            int stop = end < 0 ? available : Math.min(end, available);
+            return Math.max(0, stop - start);
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length()) {
+                throw new IndexOutOfBoundsException();
+            }
+            return (char) (buffer.get(offset + start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            if (from < 0 || to < from || to > length()) {
+                throw new IndexOutOfBoundsException();
+            }
+            return new View(offset, field, start + from, start + to);
+        }
+
+        // Keeps card data out of logs and accidental string concatenation
+        @Override
+        public String toString() {
+            return "***";
+        }
+    }
+}
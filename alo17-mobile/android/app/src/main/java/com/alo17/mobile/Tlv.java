@@ -0,0 +1,191 @@
+package com.alo17.mobile;
+
+import java.nio.ByteBuffer;
+
+/**
+ * EMV BER-TLV okuma yardımcıları.
+ * Veriyi kopyalamaz; sonuçlar kaynak dizideki değer ofseti ve uzunluğu olarak döner.
+ * Bozuk veri istisna fırlatmaz, NOT_FOUND döner.
+ */
+final class Tlv {
+
+    static final long NOT_FOUND = -1L;
+
+    static final int TAG_AID = 0x4F;
+    static final int TAG_PAN = 0x5A;
+    static final int TAG_TRACK2 = 0x57;
+    static final int TAG_EXPIRY = 0x5F24;
+    static final int TAG_AIP = 0x82;
+    static final int TAG_AFL = 0x94;
+    static final int TAG_PDOL = 0x9F38;
+    static final int TAG_RESPONSE_FORMAT_1 = 0x80;
+
+    // Guards against stack exhaustion on hostile nesting
+    private static final int MAX_DEPTH = 8;
+
+    // Internal only; public entry points report it as NOT_FOUND
+    private static final long MALFORMED = -2L;
+
+    private Tlv() {
+    }
+
+    /**
+     * Etiketi belge sırasıyla ara; constructed etiketin içine, o etiketi geçmeden önce iner.
+     * İlk eşleşmede durur, böylece sonuç TlvIndex'in "ilk değer geçerlidir" kuralıyla aynıdır.
+     */
+    static long find(byte[] buf, int offset, int end, int tag) {
+        if (buf == null || offset < 0 || end > buf.length || offset > end) {
+            return NOT_FOUND;
+        }
+        return found(find(buf, null, offset, end, tag, 0));
+    }
+
+    /**
+     * ByteBuffer'ın position..limit aralığında etiketi ara.
+     * Dönen ofset buffer'ın mutlak indeksidir.
+     */
+    static long find(ByteBuffer buf, int tag) {
+        if (buf.hasArray()) {
+            int base = buf.arrayOffset();
+            long ref = found(find(buf.array(), null, base + buf.position(), base + buf.limit(), tag, 0));
+            return ref == NOT_FOUND ? NOT_FOUND : ref(valueOffset(ref) - base, valueLength(ref));
+        }
+        // Direct and read-only buffers are read with absolute gets so nothing is copied on-heap
+        return found(find(null, buf, buf.position(), buf.limit(), tag, 0));
+    }
+
+    static int valueOffset(long ref) {
+        return (int) (ref >>> 32);
+    }
+
+    static int valueLength(long ref) {
+        return (int) ref;
+    }
+
+    /**
+     * Değerin kopyasını döndür; bulunamadıysa null
+     */
+    static byte[] copyValue(byte[] buf, long ref) {
+        if (ref == NOT_FOUND) {
+            return null;
+        }
+        byte[] value = new byte[valueLength(ref)];
+        System.arraycopy(buf, valueOffset(ref), value, 0, value.length);
+        return value;
+    }
+
+    static boolean isConstructed(int firstTagByte) {
+        return (firstTagByte & 0x20) != 0;
+    }
+
+    /**
+     * Etiketin bittiği indeksi döndür; veri yetersizse -1
+     */
+    static int tagEnd(byte[] buf, int offset, int end) {
+        return tagEnd(buf, null, offset, end);
+    }
+
+    static int readTag(byte[] buf, int start, int end) {
+        return readTag(buf, null, start, end);
+    }
+
+    static long ref(int valueOffset, int valueLength) {
+        return ((long) valueOffset << 32) | (valueLength & 0xFFFFFFFFL);
+    }
+
+    /**
+     * offset'teki TLV öğesinin değer başlangıcı ve uzunluğunu döndür; bozuksa NOT_FOUND
+     */
+    static long header(byte[] buf, int offset, int end) {
+        return header(buf, null, offset, end);
+    }
+
+    // One parser serves both sources: exactly one of array and buffer is non-null
+    private static int at(byte[] array, ByteBuffer buffer, int i) {
+        return array != null ? array[i] : buffer.get(i);
+    }
+
+    private static int tagEnd(byte[] array, ByteBuffer buffer, int offset, int end) {
+        if (offset >= end) {
+            return -1;
+        }
+        int i = offset;
+        if ((at(array, buffer, i) & 0x1F) == 0x1F) {
+            do {
+                if (++i >= end || i - offset > 3) {
+                    return -1;
+                }
+            } while ((at(array, buffer, i) & 0x80) != 0);
+        }
+        return i + 1;
+    }
+
+    private static int readTag(byte[] array, ByteBuffer buffer, int start, int end) {
+        int tag = 0;
+        for (int i = start; i < end; i++) {
+            tag = (tag << 8) | (at(array, buffer, i) & 0xFF);
+        }
+        return tag;
+    }
+
+    private static long header(byte[] array, ByteBuffer buffer, int offset, int end) {
+        int tagEnd = tagEnd(array, buffer, offset, end);
+        if (tagEnd < 0 || tagEnd >= end) {
+            return NOT_FOUND;
+        }
+        int first = at(array, buffer, tagEnd) & 0xFF;
+        int valueStart = tagEnd + 1;
+        int length;
+        if (first < 0x80) {
+            length = first;
+        } else {
+            int count = first & 0x7F;
+            // Indefinite lengths and anything above 3 length bytes are not valid in EMV
+            if (count == 0 || count > 3 || valueStart + count > end) {
+                return NOT_FOUND;
+            }
+            length = 0;
+            for (int k = 0; k < count; k++) {
+                length = (length << 8) | (at(array, buffer, valueStart++) & 0xFF);
+            }
+        }
+        if (length > end - valueStart) {
+            return NOT_FOUND;
+        }
+        return ref(valueStart, length);
+    }
+
+    private static long found(long result) {
+        return result == MALFORMED ? NOT_FOUND : result;
+    }
+
+    private static long find(byte[] array, ByteBuffer buffer, int offset, int end, int tag, int depth) {
+        int i = offset;
+        while (i < end) {
+            // 0x00 and 0xFF are padding between objects
+            int b = at(array, buffer, i);
+            if (b == 0x00 || b == (byte) 0xFF) {
+                i++;
+                continue;
+            }
+            long header = header(array, buffer, i, end);
+            if (header == NOT_FOUND) {
+                return MALFORMED;
+            }
+            int valueStart = valueOffset(header);
+            int valueEnd = valueStart + valueLength(header);
+            if (readTag(array, buffer, i, tagEnd(array, buffer, i, end)) == tag) {
+                return header;
+            }
+            if (isConstructed(b) && depth < MAX_DEPTH) {
+                long nested = find(array, buffer, valueStart, valueEnd, tag, depth + 1);
+                // Like TlvIndex, corruption inside a template ends the whole search
+                if (nested != NOT_FOUND) {
+                    return nested;
+                }
+            }
+            i = valueEnd;
+        }
+        return NOT_FOUND;
+    }
+}
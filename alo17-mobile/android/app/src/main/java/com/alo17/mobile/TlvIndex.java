@@ -0,0 +1,154 @@
+package com.alo17.mobile;
+
+/**
+ * Birden fazla APDU yanıtındaki TLV etiketlerini int anahtarlı açık adresli tabloda tutar.
+ * Yanıtlar geldikçe add() ile eklenir; değerler kopyalanmaz, kaynak diziye referans tutulur.
+ * Aynı etiket birden fazla kez gelirse ilk değer geçerlidir.
+ */
+final class TlvIndex {
+
+    private static final int MAX_DEPTH = 8;
+
+    private int[] keys;
+    private int[] offsets;
+    private int[] lengths;
+    private byte[][] buffers;
+    private int size;
+
+    TlvIndex() {
+        this(32);
+    }
+
+    TlvIndex(int expectedTags) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedTags * 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Yanıtı indeksle; veri bozuksa o noktaya kadar eklenenler kalır ve false döner
+     */
+    boolean add(byte[] buf, int offset, int end) {
+        if (buf == null || offset < 0 || end > buf.length || offset > end) {
+            return false;
+        }
+        return add(buf, offset, end, 0);
+    }
+
+    boolean add(byte[] buf) {
+        return add(buf, 0, buf.length);
+    }
+
+    /**
+     * Etiketin slotunu döndür; yoksa -1
+     */
+    int lookup(int tag) {
+        int mask = keys.length - 1;
+        int i = hash(tag) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == tag) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    boolean contains(int tag) {
+        return lookup(tag) >= 0;
+    }
+
+    byte[] buffer(int slot) {
+        return buffers[slot];
+    }
+
+    int offset(int slot) {
+        return offsets[slot];
+    }
+
+    int length(int slot) {
+        return lengths[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Tabloyu boşalt ve kaynak dizilere olan referansları bırak
+     */
+    void clear() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 0;
+            buffers[i] = null;
+        }
+        size = 0;
+    }
+
+    private boolean add(byte[] buf, int offset, int end, int depth) {
+        int i = offset;
+        while (i < end) {
+            if (buf[i] == 0x00 || buf[i] == (byte) 0xFF) {
+                i++;
+                continue;
+            }
+            long header = Tlv.header(buf, i, end);
+            if (header == Tlv.NOT_FOUND) {
+                return false;
+            }
+            int valueStart = Tlv.valueOffset(header);
+            int valueLength = Tlv.valueLength(header);
+            put(Tlv.readTag(buf, i, Tlv.tagEnd(buf, i, end)), buf, valueStart, valueLength);
+            if (Tlv.isConstructed(buf[i]) && depth < MAX_DEPTH
+                && !add(buf, valueStart, valueStart + valueLength, depth + 1)) {
+                return false;
+            }
+            i = valueStart + valueLength;
+        }
+        return true;
+    }
+
+    private void put(int tag, byte[] buf, int offset, int length) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int i = hash(tag) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == tag) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = tag;
+        buffers[i] = buf;
+        offsets[i] = offset;
+        lengths[i] = length;
+        size++;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldOffsets = offsets;
+        int[] oldLengths = lengths;
+        byte[][] oldBuffers = buffers;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldBuffers[i], oldOffsets[i], oldLengths[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        offsets = new int[capacity];
+        lengths = new int[capacity];
+        buffers = new byte[capacity][];
+    }
+
+    private static int hash(int tag) {
+        int h = tag * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
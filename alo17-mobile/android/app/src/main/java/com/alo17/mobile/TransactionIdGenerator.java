@@ -0,0 +1,138 @@
+package com.alo17.mobile;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Çakışmasız, sıralanabilir işlem kimliği üreticisi (ULID benzeri, 128 bit).
+ * Üst 64 bit: 42 bit milisaniye zaman damgası + 22 bit sayaç; saat geri gitse bile monoton artar.
+ * Alt 64 bit: üst 32 bit kuruluma özel düğüm kimliği, alt 32 bit süreç başına rastgele değer.
+ * Sayaç her süreçte sıfırdan başlar; saat geri alınıp uygulama yeniden başlatılsa bile süreç değeri
+ * sayesinde aynı (ms, sayaç) çiftinin önceki süreçteki kimliği tekrarlama olasılığı 2^-32'dir.
+ * Crockford base32 ile 26 karaktere kodlanır, metin olarak sıralama zaman sırasını korur.
+ */
+final class TransactionIdGenerator {
+
+    static final int ENCODED_LENGTH = 26;
+
+    private static final String PREFS_NAME = "alo17_payment";
+    private static final String PREF_NODE_ID = "node_id";
+
+    private static final int SEQUENCE_BITS = 22;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long PROCESS_MASK = 0xFFFFFFFFL;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    interface Clock {
+        long nowMs();
+    }
+
+    private static volatile TransactionIdGenerator instance;
+
+    private final long node;
+    private final Clock clock;
+    private final AtomicLong state = new AtomicLong();
+
+    TransactionIdGenerator(long installNode, int processSalt) {
+        this(installNode, processSalt, System::currentTimeMillis);
+    }
+
+    TransactionIdGenerator(long installNode, int processSalt, Clock clock) {
+        this.node = (installNode & ~PROCESS_MASK) | (processSalt & PROCESS_MASK);
+        this.clock = clock;
+    }
+
+    static TransactionIdGenerator get(Context context) {
+        TransactionIdGenerator current = instance;
+        if (current == null) {
+            synchronized (TransactionIdGenerator.class) {
+                current = instance;
+                if (current == null) {
+                    current = new TransactionIdGenerator(loadNode(context.getApplicationContext()),
+                        new SecureRandom().nextInt());
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Sıradaki kimliğin üst 64 bitini üret.
+     * Aynı milisaniyede sayaç artar; sayaç taşarsa zaman damgası bir ms ileri alınır.
+     */
+    long nextHigh() {
+        while (true) {
+            long current = state.get();
+            long now = clock.nowMs();
+            long next = now > (current >>> SEQUENCE_BITS)
+                ? now << SEQUENCE_BITS
+                : current + 1;
+            if (state.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    long node() {
+        return node;
+    }
+
+    /**
+     * Kimliği verilen diziye bellek ayırmadan yaz
+     */
+    void nextInto(char[] out, int offset) {
+        encode(nextHigh(), node, out, offset);
+    }
+
+    String next() {
+        char[] out = new char[ENCODED_LENGTH];
+        nextInto(out, 0);
+        return new String(out);
+    }
+
+    /**
+     * Önekli kimlik üret (ör. "NFC_01HF...")
+     */
+    String next(String prefix) {
+        char[] out = new char[prefix.length() + ENCODED_LENGTH];
+        prefix.getChars(0, prefix.length(), out, 0);
+        nextInto(out, prefix.length());
+        return new String(out);
+    }
+
+    static long timestampOf(long high) {
+        return high >>> SEQUENCE_BITS;
+    }
+
+    static long sequenceOf(long high) {
+        return high & SEQUENCE_MASK;
+    }
+
+    // 128 bits as 26 base32 digits, most significant first: the top digit holds 3 bits
+    static void encode(long high, long low, char[] out, int offset) {
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            out[offset + i] = ALPHABET[(int) (low & 0x1F)];
+            // Shift the 128-bit value right by 5
+            low = (low >>> 5) | (high << 59);
+            high >>>= 5;
+        }
+    }
+
+    private static long loadNode(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        long node = prefs.getLong(PREF_NODE_ID, 0L);
+        if (node == 0L) {
+            SecureRandom random = new SecureRandom();
+            while (node == 0L) {
+                node = random.nextLong();
+            }
+            prefs.edit().putLong(PREF_NODE_ID, node).apply();
+        }
+        return node;
+    }
+}
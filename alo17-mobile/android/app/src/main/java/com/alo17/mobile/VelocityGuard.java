@@ -0,0 +1,198 @@
+package com.alo17.mobile;
+
+import android.os.SystemClock;
+
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Yetkilendirmeden önce yerel hız (velocity) kontrolü.
+ * Kart başına ve cihaz başına kayan pencere sayaçları tutulur; her pencere zaman kovalı
+ * ilkel bir halka tampondur. Kartlar PAN yerine sürece özel tuzlu özetle, sınırlı bir LRU'da izlenir;
+ * farklı kart sayısı kartların son görülme zamanından cihaz penceresine göre hesaplanır.
+ * Kontrol ve kayıt tek kilit altında mikrosaniyeler içinde biter; ağ turu gerektirmez.
+ */
+final class VelocityGuard {
+    enum Decision {
+        ALLOW("allow"),
+        CARD_VELOCITY("card_velocity"),
+        DEVICE_DISTINCT_CARDS("device_distinct_cards"),
+        DEVICE_VELOCITY("device_velocity");
+
+        final String code;
+
+        Decision(String code) {
+            this.code = code;
+        }
+    }
+
+    static final class Config {
+        // Same card tapped again and again
+        int cardMaxAttempts = 5;
+        long cardWindowMs = 60 * 1000L;
+        // Many different cards tried on one device
+        int deviceMaxDistinctCards = 5;
+        int deviceMaxAttempts = 20;
+        long deviceWindowMs = 10 * 60 * 1000L;
+        int trackedCards = 256;
+    }
+
+    /**
+     * Zaman kovalı kayan pencere sayacı; kova sayısı ikinin kuvveti, kova genişliği pencere / kova sayısı
+     */
+    static final class Window {
+        private static final int BUCKETS = 16;
+
+        private final long bucketMs;
+        private final int[] counts = new int[BUCKETS];
+        private final long[] epochs = new long[BUCKETS];
+
+        Window(long windowMs) {
+            bucketMs = Math.max(1, windowMs / BUCKETS);
+            for (int i = 0; i < BUCKETS; i++) {
+                epochs[i] = Long.MIN_VALUE / 2;
+            }
+        }
+
+        void add(long nowMs) {
+            long epoch = nowMs / bucketMs;
+            int i = (int) (epoch & (BUCKETS - 1));
+            if (epochs[i] != epoch) {
+                epochs[i] = epoch;
+                counts[i] = 0;
+            }
+            counts[i]++;
+        }
+
+        int sum(long nowMs) {
+            long epoch = nowMs / bucketMs;
+            int total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (epoch - epochs[i] < BUCKETS) {
+                    total += counts[i];
+                }
+            }
+            return total;
+        }
+    }
+
+    private static final class Card {
+        final Window attempts;
+        long lastSeen = Long.MIN_VALUE / 2;
+
+        Card(long windowMs) {
+            attempts = new Window(windowMs);
+        }
+    }
+
+    private static final VelocityGuard INSTANCE = new VelocityGuard(new Config());
+
+    // Keyed so card hashes are useless outside this process
+    private final long salt = new SecureRandom().nextLong();
+    private final long[] blocked = new long[Decision.values().length];
+
+    private Config config;
+    private LinkedHashMap<Long, Card> cards;
+    private Window deviceAttempts;
+    private long checks;
+
+    VelocityGuard(Config config) {
+        configure(config);
+    }
+
+    static VelocityGuard get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Kuralları değiştir; mevcut sayaçlar sıfırlanır
+     */
+    synchronized void configure(Config config) {
+        this.config = config;
+        final int capacity = config.trackedCards;
+        this.cards = new LinkedHashMap<Long, Card>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Card> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.deviceAttempts = new Window(config.deviceWindowMs);
+    }
+
+    /**
+     * Kartı kontrol et ve denemeyi kaydet
+     */
+    Decision check(CharSequence pan) {
+        return check(cardKey(pan), SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Reddedilen denemeler de sayılır ki ısrarlı deneme engeli uzatsın
+     */
+    synchronized Decision check(long cardKey, long nowMs) {
+        checks++;
+        Card card = cards.get(cardKey);
+        if (card == null) {
+            card = new Card(config.cardWindowMs);
+            cards.put(cardKey, card);
+        }
+        // Judged against the device window, so a card seen earlier in it is not new again
+        boolean newToDevice = nowMs - card.lastSeen >= config.deviceWindowMs;
+
+        Decision decision = Decision.ALLOW;
+        if (card.attempts.sum(nowMs) + 1 > config.cardMaxAttempts) {
+            decision = Decision.CARD_VELOCITY;
+        } else if (newToDevice && distinctCards(nowMs) + 1 > config.deviceMaxDistinctCards) {
+            decision = Decision.DEVICE_DISTINCT_CARDS;
+        } else if (deviceAttempts.sum(nowMs) + 1 > config.deviceMaxAttempts) {
+            decision = Decision.DEVICE_VELOCITY;
+        }
+
+        card.attempts.add(nowMs);
+        card.lastSeen = nowMs;
+        deviceAttempts.add(nowMs);
+        if (decision != Decision.ALLOW) {
+            blocked[decision.ordinal()]++;
+        }
+        return decision;
+    }
+
+    // Bounded by trackedCards; a few hundred comparisons at most
+    private int distinctCards(long nowMs) {
+        int distinct = 0;
+        for (Card card : cards.values()) {
+            if (nowMs - card.lastSeen < config.deviceWindowMs) {
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * PAN rakamlarının tuzlu FNV-1a özeti; ayraçlar yok sayılır ki girilen ve okutulan kart aynı anahtarı alsın
+     */
+    long cardKey(CharSequence pan) {
+        long hash = 0xCBF29CE484222325L ^ salt;
+        for (int i = 0, n = pan.length(); i < n; i++) {
+            char c = pan.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hash ^= c;
+                hash *= 0x100000001B3L;
+            }
+        }
+        return hash;
+    }
+
+    synchronized long checks() {
+        return checks;
+    }
+
+    synchronized long blocked(Decision decision) {
+        return blocked[decision.ordinal()];
+    }
+
+    synchronized int trackedCards() {
+        return cards.size();
+    }
+}
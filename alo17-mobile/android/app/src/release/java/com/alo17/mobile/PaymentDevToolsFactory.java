@@ -0,0 +1,49 @@
+package com.alo17.mobile;
+
+import android.net.Uri;
+import android.webkit.WebResourceResponse;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.io.File;
+
+/**
+ * Release derlemesinde geliştirme araçları yoktur; çağrılar reddedilir
+ */
+final class PaymentDevToolsFactory {
+
+    private static final PaymentDevTools NONE = new PaymentDevTools() {
+        @Override
+        public PaymentProvider simulatorProvider() {
+            return null;
+        }
+
+        @Override
+        public WebResourceResponse interceptRequest(Uri url) {
+            return null;
+        }
+
+        @Override
+        public void runBenchmarks(File baselineFile, boolean updateBaseline, Promise promise) {
+            promise.reject("BENCHMARK_UNAVAILABLE", "Ölçüm yalnızca debug derlemelerde çalışır");
+        }
+
+        @Override
+        public void configureSimulator(ReadableMap options, Promise promise) {
+            promise.reject("SIMULATOR_UNAVAILABLE", "Simülatör yalnızca debug derlemelerde çalışır");
+        }
+
+        @Override
+        public void runLoadTest(ReadableMap options, PaymentSessionRegistry sessions, Promise promise) {
+            promise.reject("LOAD_TEST_UNAVAILABLE", "Yük testi yalnızca debug derlemelerde çalışır");
+        }
+    };
+
+    private PaymentDevToolsFactory() {
+    }
+
+    static PaymentDevTools get() {
+        return NONE;
+    }
+}
@@ -0,0 +1,164 @@
+package com.alo17.mobile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Yeni doğrulayıcı, eski validateLuhn/validateCardData ile aynı kararı vermeli; bilinçli farklar ayrıca sabitlenir
+ */
+public class CardValidatorTest {
+
+    private static final int YEAR = 2026;
+    private static final int MONTH = 10;
+
+    // Verbatim from NFCPaymentActivity before the validator replaced it
+    private static boolean legacyValidateCardData(String cardNumber, String expiryDate, String cvv) {
+        if (cardNumber == null || cardNumber.length() < 13 || cardNumber.length() > 19) {
+            return false;
+        }
+        if (expiryDate == null || expiryDate.length() != 5) {
+            return false;
+        }
+        if (cvv == null || cvv.length() < 3 || cvv.length() > 4) {
+            return false;
+        }
+        return legacyValidateLuhn(cardNumber);
+    }
+
+    private static boolean legacyValidateLuhn(String cardNumber) {
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = cardNumber.length() - 1; i >= 0; i--) {
+            int n = Integer.parseInt(cardNumber.substring(i, i + 1));
+            if (alternate) {
+                n *= 2;
+                if (n > 9) {
+                    n = (n % 10) + 1;
+                }
+            }
+            sum += n;
+            alternate = !alternate;
+        }
+        return (sum % 10 == 0);
+    }
+
+    private static String digitsOnly(String number) {
+        return number.replace(" ", "").replace("-", "");
+    }
+
+    private static String withCheckDigit(String body) {
+        for (char check = '0'; check <= '9'; check++) {
+            if (legacyValidateLuhn(body + check)) {
+                return body + check;
+            }
+        }
+        throw new AssertionError(body);
+    }
+
+    // Valid and off-by-one numbers of every length from 12 to 20 digits, plus separated spellings
+    private static List<String> panCorpus(String prefix) {
+        List<String> corpus = new ArrayList<>();
+        for (int length = 12; length <= 20; length++) {
+            StringBuilder body = new StringBuilder(prefix);
+            for (int i = 0; body.length() < length - 1; i++) {
+                body.append((char) ('0' + (i * 7 + length) % 10));
+            }
+            String valid = withCheckDigit(body.toString());
+            char last = valid.charAt(valid.length() - 1);
+            String invalid = valid.substring(0, valid.length() - 1) + (char) ('0' + (last - '0' + 1) % 10);
+            corpus.add(valid);
+            corpus.add(invalid);
+            corpus.add(valid.substring(0, 4) + " " + valid.substring(4, 8) + " " + valid.substring(8));
+            corpus.add(valid.substring(0, 4) + "-" + valid.substring(4));
+        }
+        return corpus;
+    }
+
+    @Test
+    public void luhnMatchesTheLegacyCheckOnEveryLength() {
+        String[] prefixes = {"4", "51", "2221", "34", "9792", "6011", "3528", "50", "8", "1"};
+        int compared = 0;
+        for (String prefix : prefixes) {
+            for (String pan : panCorpus(prefix)) {
+                String digits = digitsOnly(pan);
+                if (digits.length() > CardValidator.MAX_LENGTH) {
+                    assertFalse(pan, CardValidator.isLuhnValid(pan));
+                    continue;
+                }
+                boolean legacy = legacyValidateLuhn(digits);
+                assertEquals(pan, legacy, CardValidator.isLuhnValid(pan));
+                char[] chars = pan.toCharArray();
+                assertEquals(pan, legacy, CardValidator.isLuhnValid(chars, 0, chars.length));
+                compared++;
+            }
+        }
+        assertTrue(compared > 300);
+    }
+
+    @Test
+    public void fullValidationMatchesTheLegacyCheckWhereTheRulesOverlap() {
+        // No scheme owns these prefixes, so the 13-19 digit and 3-4 digit CVV rules are the legacy ones
+        String[] expiries = {"10/26", "11/26", "12/30", "01/99"};
+        String[] cvvs = {"12", "123", "1234", "12345"};
+        int compared = 0;
+        for (String prefix : new String[] {"8", "1", "7"}) {
+            for (String pan : panCorpus(prefix)) {
+                String digits = digitsOnly(pan);
+                for (String expiry : expiries) {
+                    for (String cvv : cvvs) {
+                        boolean legacy = legacyValidateCardData(digits, expiry, cvv);
+                        boolean current = CardValidator.validate(pan, expiry, cvv, YEAR, MONTH) == CardValidator.VALID;
+                        assertEquals(pan + " " + expiry + " " + cvv, legacy, current);
+                        compared++;
+                    }
+                }
+            }
+        }
+        assertTrue(compared > 1000);
+    }
+
+    @Test
+    public void separatorsAreAcceptedWhereTheLegacyParserThrew() {
+        String pan = "4111 1111-1111 1111";
+        try {
+            legacyValidateCardData(pan, "12/30", "123");
+            throw new AssertionError("legacy check accepted separators");
+        } catch (NumberFormatException expected) {
+            // The old activity reported this as a generic NFC error
+        }
+        assertTrue(legacyValidateCardData(digitsOnly(pan), "12/30", "123"));
+        assertEquals(CardValidator.VALID, CardValidator.validate(pan, "12/30", "123", YEAR, MONTH));
+    }
+
+    @Test
+    public void monthBoundaryIsEnforcedUnlikeTheLengthOnlyLegacyCheck() {
+        String pan = "4111111111111111";
+        assertEquals(CardValidator.VALID, CardValidator.validate(pan, "10/26", "123", YEAR, MONTH));
+        assertEquals(CardValidator.ERROR_EXPIRED, CardValidator.validate(pan, "09/26", "123", YEAR, MONTH));
+        assertEquals(CardValidator.ERROR_EXPIRED, CardValidator.validate(pan, "12/25", "123", YEAR, MONTH));
+        assertEquals(CardValidator.VALID, CardValidator.validate(pan, "01/27", "123", 2026, 12));
+        assertEquals(CardValidator.ERROR_EXPIRY_FORMAT, CardValidator.validate(pan, "13/26", "123", YEAR, MONTH));
+        assertEquals(CardValidator.ERROR_EXPIRY_FORMAT, CardValidator.validate(pan, "00/27", "123", YEAR, MONTH));
+        // The legacy check only looked at the length
+        assertTrue(legacyValidateCardData(pan, "09/26", "123"));
+        assertTrue(legacyValidateCardData(pan, "13/26", "123"));
+    }
+
+    @Test
+    public void schemeRulesAreStricterThanTheLegacyLengthRange() {
+        String visa17 = withCheckDigit("4111111111111111");
+        assertTrue(legacyValidateCardData(visa17, "12/30", "123"));
+        assertEquals(CardValidator.ERROR_NUMBER_LENGTH, CardValidator.validate(visa17, "12/30", "123", YEAR, MONTH));
+
+        String amex = withCheckDigit("37828224631000");
+        assertTrue(legacyValidateCardData(amex, "12/30", "123"));
+        assertEquals(CardValidator.ERROR_CVV, CardValidator.validate(amex, "12/30", "123", YEAR, MONTH));
+        assertEquals(CardValidator.VALID, CardValidator.validate(amex, "12/30", "1234", YEAR, MONTH));
+    }
+}
@@ -0,0 +1,156 @@
+package com.alo17.mobile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Son tarih tahmini ve devre kesici geçişleri elle ilerletilen saatle doğrulanır
+ */
+public class PayTRLoadSupervisorTest {
+
+    private static final PayTRLoadSupervisor.NetworkType WIFI = PayTRLoadSupervisor.NetworkType.WIFI;
+    private static final PayTRLoadSupervisor.NetworkType CELLULAR = PayTRLoadSupervisor.NetworkType.CELLULAR;
+
+    private long now = 1_000_000;
+    private final PayTRLoadSupervisor supervisor = new PayTRLoadSupervisor(() -> now);
+
+    private void failTimes(int count) {
+        for (int i = 0; i < count; i++) {
+            supervisor.recordFailure(WIFI, 100, false);
+        }
+    }
+
+    private void openCircuit() {
+        failTimes(5);
+        assertEquals(PayTRLoadSupervisor.State.OPEN, supervisor.state());
+    }
+
+    @Test
+    public void deadlineStartsFromTheInitialEstimate() {
+        assertEquals(-1, supervisor.estimateMs(WIFI));
+        assertEquals(15000, supervisor.deadlineMs(WIFI));
+    }
+
+    @Test
+    public void ewmaTracksMeanAndDeviation() {
+        supervisor.recordSuccess(WIFI, 2000);
+        assertEquals(2000, supervisor.estimateMs(WIFI));
+        // 2000 + 4 * 1000 is below the floor
+        assertEquals(8000, supervisor.deadlineMs(WIFI));
+
+        supervisor.recordSuccess(WIFI, 10000);
+        // mean += 8000 / 8, deviation += (8000 - 1000) / 4
+        assertEquals(3000, supervisor.estimateMs(WIFI));
+        assertEquals(3000 + 4 * 2750, supervisor.deadlineMs(WIFI));
+    }
+
+    @Test
+    public void deadlineIsClampedToTheCeiling() {
+        supervisor.recordSuccess(CELLULAR, 60000);
+        assertEquals(45000, supervisor.deadlineMs(CELLULAR));
+        // Each network type keeps its own estimate
+        assertEquals(-1, supervisor.estimateMs(WIFI));
+    }
+
+    @Test
+    public void onlyTimeoutsFeedTheEstimate() {
+        supervisor.recordFailure(WIFI, 500, false);
+        assertEquals(-1, supervisor.estimateMs(WIFI));
+        supervisor.recordFailure(WIFI, 20000, true);
+        assertEquals(20000, supervisor.estimateMs(WIFI));
+    }
+
+    @Test
+    public void circuitOpensAfterConsecutiveFailures() {
+        failTimes(4);
+        assertEquals(PayTRLoadSupervisor.State.CLOSED, supervisor.state());
+        assertTrue(supervisor.allowRequest());
+
+        failTimes(1);
+        assertEquals(PayTRLoadSupervisor.State.OPEN, supervisor.state());
+        assertFalse(supervisor.allowRequest());
+        assertFalse(supervisor.isAvailable());
+    }
+
+    @Test
+    public void successResetsTheFailureCount() {
+        failTimes(4);
+        supervisor.recordSuccess(WIFI, 1000);
+        failTimes(4);
+        assertEquals(PayTRLoadSupervisor.State.CLOSED, supervisor.state());
+        assertEquals(4, supervisor.consecutiveFailures());
+    }
+
+    @Test
+    public void cooldownAllowsASingleProbe() {
+        openCircuit();
+        now += 29_999;
+        assertFalse(supervisor.isAvailable());
+        assertFalse(supervisor.allowRequest());
+
+        now += 1;
+        assertTrue(supervisor.isAvailable());
+        assertTrue(supervisor.allowRequest());
+        assertEquals(PayTRLoadSupervisor.State.HALF_OPEN, supervisor.state());
+        assertFalse(supervisor.allowRequest());
+
+        supervisor.recordSuccess(WIFI, 1000);
+        assertEquals(PayTRLoadSupervisor.State.CLOSED, supervisor.state());
+        assertTrue(supervisor.allowRequest());
+    }
+
+    @Test
+    public void failedProbeDoublesTheCooldownUpToTheCap() {
+        openCircuit();
+        long[] expected = {60_000, 120_000, 240_000, 300_000, 300_000};
+        now += 30_000;
+        for (long cooldown : expected) {
+            assertTrue(supervisor.allowRequest());
+            supervisor.recordFailure(WIFI, 100, false);
+            assertEquals(PayTRLoadSupervisor.State.OPEN, supervisor.state());
+            now += cooldown - 1;
+            assertFalse("cooldown " + cooldown, supervisor.allowRequest());
+            now += 1;
+        }
+    }
+
+    @Test
+    public void successResetsTheCooldown() {
+        openCircuit();
+        now += 30_000;
+        supervisor.allowRequest();
+        supervisor.recordFailure(WIFI, 100, false);
+        now += 60_000;
+        supervisor.allowRequest();
+        supervisor.recordSuccess(WIFI, 1000);
+
+        openCircuit();
+        now += 30_000;
+        assertTrue(supervisor.allowRequest());
+    }
+
+    @Test
+    public void abandonedProbeDoesNotBlockForever() {
+        openCircuit();
+        now += 30_000;
+        assertTrue(supervisor.allowRequest());
+        now += 45_000;
+        assertFalse(supervisor.allowRequest());
+        now += 1;
+        assertTrue(supervisor.isAvailable());
+        assertTrue(supervisor.allowRequest());
+    }
+
+    @Test
+    public void retryDelayBacksOffWithBoundedJitter() {
+        for (int i = 0; i < 100; i++) {
+            long first = supervisor.retryDelayMs(1);
+            long third = supervisor.retryDelayMs(3);
+            assertTrue(first + "ms", first >= 1000 && first <= 1500);
+            assertTrue(third + "ms", third >= 4000 && third <= 6000);
+        }
+    }
+}
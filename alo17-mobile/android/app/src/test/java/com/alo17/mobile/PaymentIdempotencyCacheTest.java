@@ -0,0 +1,313 @@
+package com.alo17.mobile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Eşzamanlı tekrar istekleri tek oturum açmalı, diğerleri ona bağlanmalı
+ */
+public class PaymentIdempotencyCacheTest {
+
+    private static final long TTL_MS = 60_000;
+    private static final int THREADS = 32;
+    private static final int ROUNDS = 200;
+
+    private static final String LAUNCH_ERROR = "No activity found to handle the payment intent";
+
+    /**
+     * Gerçek Intent kuran, başlatma hatalarını sayan en küçük sağlayıcı
+     */
+    private static final class FakeProvider implements PaymentProvider {
+        final AtomicInteger intentsCreated = new AtomicInteger();
+        final AtomicInteger launchFailures = new AtomicInteger();
+
+        @Override
+        public String id() {
+            return "test";
+        }
+
+        @Override
+        public PaymentSession.Type method() {
+            return PaymentSession.Type.PAYTR;
+        }
+
+        @Override
+        public String errorPrefix() {
+            return "TEST";
+        }
+
+        @Override
+        public long defaultTimeoutMs() {
+            return TTL_MS;
+        }
+
+        @Override
+        public boolean isAvailable(Context context) {
+            return true;
+        }
+
+        @Override
+        public String unavailableMessage() {
+            return "Test sağlayıcısı kullanılamıyor";
+        }
+
+        @Override
+        public boolean isSimulated() {
+            return true;
+        }
+
+        @Override
+        public Intent createIntent(Activity activity, PaymentSession session, ReadableMap paymentData) {
+            intentsCreated.incrementAndGet();
+            return new Intent();
+        }
+
+        @Override
+        public void onLaunchFailed(Intent intent) {
+            launchFailures.incrementAndGet();
+        }
+
+        @Override
+        public PaymentResult parseResult(PaymentSession session, int resultCode, Intent data) {
+            return PaymentResult.fromIntent(session.id, method(), data);
+        }
+    }
+
+    /**
+     * Her sonucu sayar; bir promise en fazla bir kez sonuçlanmalı
+     */
+    private static final class RecordingPromise implements Promise {
+        final AtomicInteger resolves = new AtomicInteger();
+        final AtomicInteger rejects = new AtomicInteger();
+        volatile String code;
+        volatile String message;
+
+        int settlements() {
+            return resolves.get() + rejects.get();
+        }
+
+        @Override
+        public void resolve(Object value) {
+            resolves.incrementAndGet();
+        }
+
+        @Override
+        public void reject(String code, String message) {
+            this.code = code;
+            this.message = message;
+            rejects.incrementAndGet();
+        }
+
+        @Override
+        public void reject(String code, Throwable throwable) {
+            reject(code, throwable.getMessage());
+        }
+
+        @Override
+        public void reject(String code, String message, Throwable throwable) {
+            reject(code, message);
+        }
+
+        @Override
+        public void reject(Throwable throwable) {
+            reject(null, throwable.getMessage());
+        }
+
+        @Override
+        public void reject(Throwable throwable, WritableMap userInfo) {
+            reject(null, throwable.getMessage());
+        }
+
+        @Override
+        public void reject(String code, WritableMap userInfo) {
+            reject(code, (String) null);
+        }
+
+        @Override
+        public void reject(String code, Throwable throwable, WritableMap userInfo) {
+            reject(code, throwable.getMessage());
+        }
+
+        @Override
+        public void reject(String code, String message, WritableMap userInfo) {
+            reject(code, message);
+        }
+
+        @Override
+        public void reject(String code, String message, Throwable throwable, WritableMap userInfo) {
+            reject(code, message);
+        }
+
+        @Override
+        @Deprecated
+        public void reject(String message) {
+            reject(null, message);
+        }
+    }
+
+    private interface Launcher {
+        void launch(Intent intent);
+    }
+
+    private final FakeProvider provider = new FakeProvider();
+    private final AtomicInteger requestCodes = new AtomicInteger();
+
+    private static Promise promise() {
+        return new RecordingPromise();
+    }
+
+    private PaymentSession newSession() {
+        return newSession(promise());
+    }
+
+    private PaymentSession newSession(Promise promise) {
+        int code = requestCodes.incrementAndGet();
+        return new PaymentSession("session-" + code, provider, code, promise);
+    }
+
+    // PaymentModule.startWith from the cache lookup to the launch; the activity start is the launcher
+    private PaymentSession start(PaymentIdempotencyCache cache, String key, Promise promise, Launcher launcher) {
+        PaymentSession session = cache.openOrAttach(key, promise, TTL_MS, 0, () -> newSession(promise));
+        if (session == null) {
+            return null;
+        }
+        Intent intent = null;
+        try {
+            intent = provider.createIntent(null, session, null);
+            launcher.launch(intent);
+        } catch (RuntimeException e) {
+            if (intent != null) {
+                provider.onLaunchFailed(intent);
+            }
+            session.reject(provider.errorPrefix() + "_ERROR", e.getMessage());
+        }
+        return session;
+    }
+
+    @Test
+    public void concurrentDuplicatesOpenExactlyOneSession() throws Exception {
+        PaymentIdempotencyCache cache = new PaymentIdempotencyCache(PaymentIdempotencyCache.DEFAULT_CAPACITY);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                String key = "test:key:" + round;
+                AtomicInteger opens = new AtomicInteger();
+                CyclicBarrier start = new CyclicBarrier(THREADS);
+                List<Future<PaymentSession>> calls = new ArrayList<>(THREADS);
+                for (int i = 0; i < THREADS; i++) {
+                    calls.add(pool.submit(() -> {
+                        start.await();
+                        return cache.openOrAttach(key, promise(), TTL_MS, 0, () -> {
+                            opens.incrementAndGet();
+                            return newSession();
+                        });
+                    }));
+                }
+
+                PaymentSession opened = null;
+                int openedCount = 0;
+                for (Future<PaymentSession> call : calls) {
+                    PaymentSession session = call.get(10, TimeUnit.SECONDS);
+                    if (session != null) {
+                        opened = session;
+                        openedCount++;
+                    }
+                }
+                assertEquals("round " + round, 1, opens.get());
+                assertEquals("round " + round, 1, openedCount);
+                assertEquals("round " + round, THREADS - 1, opened.followerCount());
+                // Settle it so the bounded cache never has to evict a live entry
+                opened.resolve(null);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals((long) ROUNDS * (THREADS - 1), cache.deduplicated.get());
+    }
+
+    @Test
+    public void settledSessionReleasesItsKey() {
+        PaymentIdempotencyCache cache = new PaymentIdempotencyCache(PaymentIdempotencyCache.DEFAULT_CAPACITY);
+        PaymentSession first = cache.openOrAttach("k", promise(), TTL_MS, 0, this::newSession);
+        assertNotNull(first);
+        assertNull(cache.openOrAttach("k", promise(), TTL_MS, 0, this::newSession));
+
+        first.resolve(null);
+        PaymentSession second = cache.openOrAttach("k", promise(), TTL_MS, 0, this::newSession);
+        assertNotNull(second);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void expiredEntryOpensNewSession() {
+        PaymentIdempotencyCache cache = new PaymentIdempotencyCache(PaymentIdempotencyCache.DEFAULT_CAPACITY);
+        PaymentSession first = cache.openOrAttach("k", promise(), TTL_MS, 0, this::newSession);
+        PaymentSession second = cache.openOrAttach("k", promise(), TTL_MS, TTL_MS,
+            this::newSession);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void launchFailureRejectsTheLeaderAndAnAttachedFollowerOnce() {
+        PaymentIdempotencyCache cache = new PaymentIdempotencyCache(PaymentIdempotencyCache.DEFAULT_CAPACITY);
+        RecordingPromise leader = new RecordingPromise();
+        RecordingPromise follower = new RecordingPromise();
+        PaymentSession[] followerSession = new PaymentSession[1];
+
+        // The duplicate tap lands while the leader is starting the activity, which then fails
+        PaymentSession session = start(cache, "k", leader, intent -> {
+            followerSession[0] = start(cache, "k", follower, ignored -> fail("follower must not launch"));
+            throw new IllegalStateException(LAUNCH_ERROR);
+        });
+
+        assertNotNull(session);
+        assertNull(followerSession[0]);
+        assertEquals(1, cache.deduplicated.get());
+        assertEquals(1, provider.intentsCreated.get());
+        assertEquals(1, provider.launchFailures.get());
+        for (RecordingPromise promise : new RecordingPromise[] {leader, follower}) {
+            assertEquals(0, promise.resolves.get());
+            assertEquals(1, promise.rejects.get());
+            assertEquals("TEST_ERROR", promise.code);
+            assertEquals(LAUNCH_ERROR, promise.message);
+        }
+
+        // A late timeout or result for the same session settles nothing twice
+        assertFalse(session.reject("PAYMENT_TIMEOUT", "late"));
+        assertFalse(session.resolve(null));
+        assertEquals(1, leader.settlements());
+        assertEquals(1, follower.settlements());
+
+        // The failed session frees its key, so a retry launches again
+        RecordingPromise retry = new RecordingPromise();
+        PaymentSession second = start(cache, "k", retry, intent -> { });
+        assertNotNull(second);
+        assertNotSame(session, second);
+        assertEquals(0, retry.settlements());
+    }
+}
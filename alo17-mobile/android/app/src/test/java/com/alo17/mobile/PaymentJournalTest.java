@@ -0,0 +1,169 @@
+package com.alo17.mobile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Yarım kalmış kayıtlar tekrar oynatmada elenmeli, sonrası sıfırlanmalı ve yazma oradan sürmeli
+ */
+public class PaymentJournalTest {
+
+    private static final int CAPACITY = 4096;
+    private static final int HEADER = 8;
+    private static final int FIRST = HEADER + recordSize("s1", "paytr");
+    private static final int SECOND_END = FIRST + recordSize("s2", "paytr");
+
+    private final File file;
+
+    public PaymentJournalTest() throws IOException {
+        file = new File(Files.createTempDirectory("journal").toFile(), "payment-journal.bin");
+    }
+
+    // [magic:2][type:1][length:2][payload][crc32:4]; payload = timestamp + three length-prefixed strings
+    private static int recordSize(String sessionId, String type) {
+        int payload = 8 + 2 + utf8(sessionId) + 2 + utf8(type) + 2;
+        return 2 + 1 + 2 + payload + 4;
+    }
+
+    private static int utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private PaymentJournal openJournal() throws IOException {
+        PaymentJournal journal = new PaymentJournal(file, CAPACITY);
+        journal.open();
+        return journal;
+    }
+
+    private void writeTwoStarts() throws IOException {
+        PaymentJournal journal = openJournal();
+        journal.recordStart("s1", "paytr");
+        journal.recordStart("s2", "paytr");
+        journal.close();
+    }
+
+    private List<PaymentJournal.Entry> reopen() throws IOException {
+        PaymentJournal journal = new PaymentJournal(file, CAPACITY);
+        try {
+            return journal.open();
+        } finally {
+            journal.close();
+        }
+    }
+
+    private void poke(int pos, int value) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(pos);
+            raf.write(value);
+        }
+    }
+
+    private int peek(int pos) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(pos);
+            return raf.read();
+        }
+    }
+
+    private static void assertSessions(List<PaymentJournal.Entry> entries, String... ids) {
+        assertEquals(ids.length, entries.size());
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], entries.get(i).sessionId);
+        }
+    }
+
+    @Test
+    public void tailCutMidPayloadKeepsEarlierRecords() throws IOException {
+        writeTwoStarts();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(FIRST + 9);
+        }
+        assertSessions(reopen(), "s1");
+    }
+
+    @Test
+    public void recordWithoutMagicIsNotReplayed() throws IOException {
+        writeTwoStarts();
+        // The writer publishes a record by writing its magic last
+        poke(FIRST, 0);
+        poke(FIRST + 1, 0);
+        assertSessions(reopen(), "s1");
+    }
+
+    @Test
+    public void crcMismatchStopsReplay() throws IOException {
+        writeTwoStarts();
+        int payloadByte = FIRST + 5 + 10;
+        poke(payloadByte, peek(payloadByte) ^ 0x01);
+        assertSessions(reopen(), "s1");
+    }
+
+    @Test
+    public void tornTailIsZeroedAndOverwritten() throws IOException {
+        writeTwoStarts();
+        poke(SECOND_END - 1, peek(SECOND_END - 1) ^ 0xFF);
+
+        PaymentJournal journal = openJournal();
+        for (int i = FIRST; i < SECOND_END; i++) {
+            assertEquals("byte " + i, 0, peek(i));
+        }
+        journal.recordStart("s3", "paytr");
+        journal.close();
+        assertSessions(reopen(), "s1", "s3");
+    }
+
+    @Test
+    public void replayAfterCompactionKeepsLiveSessions() throws IOException {
+        PaymentJournal journal = openJournal();
+        journal.recordStart("live", "nfc");
+        journal.recordOutcome("live", "success", "ref-1");
+        // Enough delivered sessions to overflow the file several times
+        for (int i = 0; i < 500; i++) {
+            String id = "done-" + i;
+            journal.recordStart(id, "paytr");
+            journal.recordDelivered(id);
+        }
+        assertFalse(journal.isFull());
+        journal.close();
+
+        List<PaymentJournal.Entry> recovered = reopen();
+        assertSessions(recovered, "live");
+        assertEquals("success", recovered.get(0).status);
+        assertEquals("ref-1", recovered.get(0).reference);
+    }
+
+    @Test
+    public void staleSessionsAreReturnedOnceAndExpiredOnOpen() throws IOException {
+        writeTwoStarts();
+        long later = System.currentTimeMillis() + PaymentJournal.DEFAULT_MAX_AGE_MS + 1;
+
+        PaymentJournal journal = new PaymentJournal(file, CAPACITY);
+        assertSessions(journal.open(later), "s1", "s2");
+        assertEquals(0, journal.pendingCount());
+        assertEquals(2, journal.expiredSessions());
+        journal.close();
+
+        assertSessions(reopen());
+    }
+
+    @Test
+    public void unknownVersionIsSetAside() throws IOException {
+        writeTwoStarts();
+        poke(7, 99);
+
+        assertSessions(reopen());
+        File aside = new File(file.getPath() + ".v99");
+        assertTrue(aside.exists());
+        assertEquals(CAPACITY, aside.length());
+    }
+}
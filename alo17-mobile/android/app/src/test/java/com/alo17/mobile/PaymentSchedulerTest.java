@@ -0,0 +1,89 @@
+package com.alo17.mobile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sıralı hat işleri sırayla ve tek tek çalıştırmalı, kapandıktan sonra yeni iş almamalı
+ */
+public class PaymentSchedulerTest {
+
+    private final PaymentScheduler scheduler = PaymentScheduler.get();
+
+    @Test
+    public void serialLaneRunsInOrderOneAtATime() throws Exception {
+        PaymentScheduler.Serial lane = scheduler.newSerial(PaymentScheduler.Pool.IO, PaymentScheduler.Priority.LOW);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(200);
+        for (int i = 0; i < 200; i++) {
+            int n = i;
+            lane.execute(() -> {
+                if (running.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                order.add(n);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertFalse(overlapped.get());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void failingTaskDoesNotStallTheLane() throws Exception {
+        PaymentScheduler.Serial lane = scheduler.newSerial(PaymentScheduler.Pool.IO, PaymentScheduler.Priority.LOW);
+        CountDownLatch done = new CountDownLatch(1);
+        lane.execute(() -> {
+            throw new IllegalStateException("boom");
+        });
+        lane.execute(done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancelledTimerNeverRuns() throws Exception {
+        PaymentScheduler.Serial lane = scheduler.newSerial(PaymentScheduler.Pool.IO, PaymentScheduler.Priority.LOW);
+        AtomicBoolean ran = new AtomicBoolean();
+        CountDownLatch later = new CountDownLatch(1);
+        Runnable timer = lane.schedule(() -> ran.set(true), 50);
+        lane.schedule(later::countDown, 150);
+        lane.cancel(timer);
+        assertTrue(later.await(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void shutdownDropsTimersAndRejectsWork() throws Exception {
+        PaymentScheduler.Serial lane = scheduler.newSerial(PaymentScheduler.Pool.IO, PaymentScheduler.Priority.LOW);
+        AtomicBoolean ran = new AtomicBoolean();
+        lane.schedule(() -> ran.set(true), 50);
+        lane.shutdown();
+        try {
+            lane.execute(() -> { });
+            fail("expected RejectedExecutionException");
+        } catch (RejectedExecutionException expected) {
+            // The owner is closing; callers already handle rejection from the pools
+        }
+        Thread.sleep(200);
+        assertFalse(ran.get());
+    }
+}
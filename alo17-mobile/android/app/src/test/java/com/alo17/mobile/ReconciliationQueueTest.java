@@ -0,0 +1,230 @@
+package com.alo17.mobile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sahte taşıma katmanıyla tekrar deneme, tekilleştirme, yetki duraklatma ve kısmi ret davranışı
+ */
+public class ReconciliationQueueTest {
+
+    private static final long FLUSH_INTERVAL_MS = 20;
+    private static final int MAX_BATCH = 5;
+    private static final long BASE_BACKOFF_MS = 40;
+
+    private final File store;
+    private final List<ReconciliationQueue> opened = new ArrayList<>();
+
+    public ReconciliationQueueTest() throws IOException {
+        store = new File(Files.createTempDirectory("reconciliation").toFile(), "reconciliation-queue.json");
+    }
+
+    /**
+     * Gönderilen partileri kaydeder; sıradaki yanıtlar betikten, reddedilecek referanslar listeden gelir
+     */
+    private static final class FakeTransport implements ReconciliationTransport {
+        final BlockingQueue<List<String>> sent = new LinkedBlockingQueue<>();
+        final Deque<IOException> script = new ArrayDeque<>();
+        final List<String> rejected = new ArrayList<>();
+        final List<Long> sentAt = new ArrayList<>();
+
+        @Override
+        public synchronized void send(List<ReconciliationItem> batch) throws IOException {
+            List<String> references = new ArrayList<>();
+            for (ReconciliationItem item : batch) {
+                references.add(item.reference);
+            }
+            sentAt.add(System.nanoTime());
+            sent.add(references);
+            IOException next = script.poll();
+            if (next != null) {
+                throw next;
+            }
+            for (String reference : references) {
+                if (rejected.contains(reference)) {
+                    throw new PermanentFailure("rejected " + reference);
+                }
+            }
+        }
+
+        List<String> nextBatch() throws InterruptedException {
+            List<String> batch = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull("no batch sent", batch);
+            return batch;
+        }
+
+        void assertNothingSent(long waitMs) throws InterruptedException {
+            assertNull(sent.poll(waitMs, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+    private static void await(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.holds()) {
+            assertTrue("condition not met in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private ReconciliationQueue open() {
+        ReconciliationQueue queue = new ReconciliationQueue(store, FLUSH_INTERVAL_MS, MAX_BATCH, BASE_BACKOFF_MS);
+        opened.add(queue);
+        return queue;
+    }
+
+    private static ReconciliationItem item(String reference) {
+        return new ReconciliationItem(reference, "session-" + reference, "paytr", "success", 1_700_000_000_000L);
+    }
+
+    @After
+    public void shutDown() {
+        for (ReconciliationQueue queue : opened) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    public void transientFailuresAreRetriedWithBackoff() throws Exception {
+        ReconciliationQueue queue = open();
+        FakeTransport transport = new FakeTransport();
+        transport.script.add(new IOException("offline"));
+        transport.script.add(new IOException("offline"));
+        queue.enqueue(item("r1"));
+        queue.setTransport(transport);
+
+        assertEquals(Arrays.asList("r1"), transport.nextBatch());
+        assertEquals(Arrays.asList("r1"), transport.nextBatch());
+        assertEquals(Arrays.asList("r1"), transport.nextBatch());
+        await(() -> queue.pendingCount() == 0);
+
+        // Each retry waits at least half the base interval
+        synchronized (transport) {
+            for (int i = 1; i < transport.sentAt.size(); i++) {
+                long gapMs = TimeUnit.NANOSECONDS.toMillis(transport.sentAt.get(i) - transport.sentAt.get(i - 1));
+                assertTrue(gapMs + "ms", gapMs >= BASE_BACKOFF_MS / 2);
+            }
+        }
+        transport.assertNothingSent(100);
+    }
+
+    @Test
+    public void duplicatesAreSentOnce() throws Exception {
+        ReconciliationQueue queue = open();
+        FakeTransport transport = new FakeTransport();
+        queue.enqueue(item("r1"));
+        queue.enqueue(item("r1"));
+        queue.enqueue(item("r2"));
+        queue.setTransport(transport);
+
+        assertEquals(Arrays.asList("r1", "r2"), transport.nextBatch());
+        await(() -> queue.pendingCount() == 0);
+
+        // A late duplicate of a confirmed reference is ignored as well
+        queue.enqueue(item("r1"));
+        transport.assertNothingSent(150);
+        assertEquals(0, queue.pendingCount());
+    }
+
+    @Test
+    public void authFailurePausesUntilANewTransport() throws Exception {
+        ReconciliationQueue queue = open();
+        FakeTransport expired = new FakeTransport();
+        expired.script.add(new ReconciliationTransport.AuthFailure("401"));
+        queue.enqueue(item("r1"));
+        queue.setTransport(expired);
+
+        expired.nextBatch();
+        await(queue::isAuthPaused);
+        queue.enqueue(item("r2"));
+        queue.retryNow();
+        expired.assertNothingSent(150);
+        assertEquals(2, queue.pendingCount());
+
+        FakeTransport renewed = new FakeTransport();
+        queue.setTransport(renewed);
+        assertEquals(Arrays.asList("r1", "r2"), renewed.nextBatch());
+        await(() -> queue.pendingCount() == 0);
+        assertFalse(queue.isAuthPaused());
+    }
+
+    @Test
+    public void rejectedBatchIsIsolatedAndOnlyTheBadItemIsDeadLettered() throws Exception {
+        ReconciliationQueue queue = open();
+        FakeTransport transport = new FakeTransport();
+        transport.rejected.add("bad");
+        queue.enqueue(item("r1"));
+        queue.enqueue(item("bad"));
+        queue.enqueue(item("r2"));
+        queue.setTransport(transport);
+
+        assertEquals(Arrays.asList("r1", "bad", "r2"), transport.nextBatch());
+        assertEquals(Arrays.asList("r1"), transport.nextBatch());
+        assertEquals(Arrays.asList("bad"), transport.nextBatch());
+        assertEquals(Arrays.asList("r2"), transport.nextBatch());
+        await(() -> queue.pendingCount() == 0);
+        assertEquals(1, queue.deadLetterCount());
+        transport.assertNothingSent(100);
+    }
+
+    @Test
+    public void fullQueueMovesTheOldestItemToDeadLetters() throws Exception {
+        ReconciliationQueue queue = open();
+        for (int i = 0; i <= 1000; i++) {
+            queue.enqueue(item("r" + i));
+        }
+        await(() -> queue.overflowCount() == 1);
+        assertEquals(1000, queue.pendingCount());
+        assertEquals(1, queue.deadLetterCount());
+
+        FakeTransport transport = new FakeTransport();
+        queue.setTransport(transport);
+        // The overflowed item is kept for support, never resent
+        assertEquals(Arrays.asList("r1", "r2", "r3", "r4", "r5"), transport.nextBatch());
+    }
+
+    @Test
+    public void appendedItemsSurviveARestart() throws Exception {
+        ReconciliationQueue first = open();
+        first.enqueue(item("r1"));
+        first.enqueue(item("r2"));
+        await(() -> first.pendingCount() == 2);
+        first.shutdown();
+
+        ReconciliationQueue second = open();
+        await(() -> second.pendingCount() == 2);
+        FakeTransport transport = new FakeTransport();
+        second.setTransport(transport);
+        assertEquals(Arrays.asList("r1", "r2"), transport.nextBatch());
+        await(() -> second.pendingCount() == 0);
+        second.shutdown();
+
+        // The confirmed items are gone from both the list and the log
+        ReconciliationQueue third = open();
+        FakeTransport idle = new FakeTransport();
+        third.setTransport(idle);
+        idle.assertNothingSent(150);
+        assertEquals(0, third.pendingCount());
+    }
+}
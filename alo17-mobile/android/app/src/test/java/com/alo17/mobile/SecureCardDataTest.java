@@ -0,0 +1,92 @@
+package com.alo17.mobile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Kart verisi yalnızca yığın dışı tamponda durmalı, silindikten sonra hiçbir görünümden okunamamalı
+ */
+public class SecureCardDataTest {
+
+    private static final String PAN = "4111 1111-1111 1111";
+
+    private static SecureCardData card() {
+        return SecureCardData.of(new StringBuilder(PAN), "12/30", "123");
+    }
+
+    @Test
+    public void viewsReadTheBufferWithoutSeparators() {
+        SecureCardData data = card();
+        assertEquals(16, data.pan.length());
+        assertEquals('4', data.pan.charAt(0));
+        assertEquals('1', data.pan.charAt(15));
+        assertEquals(5, data.expiry.length());
+        assertEquals(3, data.cvv.length());
+        assertEquals(CardValidator.VALID, CardValidator.validate(data.pan, data.expiry, data.cvv, 2026, 1));
+    }
+
+    @Test
+    public void viewsNeverRenderTheirContent() {
+        SecureCardData data = card();
+        assertEquals("***", data.pan.toString());
+        assertEquals("***", String.valueOf(data.cvv));
+        assertEquals("***", data.pan.subSequence(0, 6).toString());
+        assertEquals("pan=***", "pan=" + data.pan);
+    }
+
+    @Test
+    public void wipeZeroesTheBufferAndEmptiesEveryView() {
+        SecureCardData data = card();
+        CharSequence prefix = data.pan.subSequence(0, 6);
+        assertFalse(data.isZeroed());
+
+        data.wipe();
+        assertTrue(data.isWiped());
+        assertTrue(data.isZeroed());
+        // Views share the buffer, so no earlier view keeps a readable copy
+        assertEquals(0, data.pan.length());
+        assertEquals(0, data.expiry.length());
+        assertEquals(0, data.cvv.length());
+        assertEquals(0, prefix.length());
+        assertEquals(CardValidator.ERROR_NUMBER_LENGTH,
+            CardValidator.validate(data.pan, data.expiry, data.cvv, 2026, 1));
+    }
+
+    @Test
+    public void releaseWipesAndForgetsTheHandle() {
+        SecureCardData data = card();
+        long handle = SecureCardData.register(data);
+        assertSame(data, SecureCardData.lookup(handle));
+
+        SecureCardData.release(handle);
+        assertTrue(data.isZeroed());
+        assertNull(SecureCardData.lookup(handle));
+        // A second release, e.g. from onDestroy after the read, is harmless
+        SecureCardData.release(handle);
+    }
+
+    @Test
+    public void oversizedFieldIsWipedBeforeFailing() {
+        try {
+            SecureCardData.of("4111111111111111", "12/30", "1234567890");
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // The buffer is unreachable afterwards; the message carries no card data
+            assertFalse(expected.getMessage().contains("1234"));
+        }
+    }
+
+    @Test
+    public void nonAsciiInputIsRejectedNotMisread() {
+        SecureCardData data = SecureCardData.of("4111 1111 1111 111١", "12/30", "123");
+        assertEquals('?', data.pan.charAt(15));
+        assertEquals(CardValidator.ERROR_NUMBER_FORMAT, CardValidator.validate(data.pan, data.expiry, data.cvv,
+            2026, 1));
+    }
+}
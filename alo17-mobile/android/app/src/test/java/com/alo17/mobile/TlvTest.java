@@ -0,0 +1,174 @@
+package com.alo17.mobile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Bozuk veri istisna fırlatmamalı; byte[], ByteBuffer ve TlvIndex aynı sonucu vermeli
+ */
+public class TlvTest {
+
+    // 6F FCI template > A5 proprietary > 5F24 expiry, 9F38 PDOL; then a primitive 5A at the outer level
+    private static final byte[] FCI = bytes(
+        0x6F, 0x11,
+        0x84, 0x02, 0xA0, 0x00,
+        0xA5, 0x0B,
+        0x5F, 0x24, 0x03, 0x30, 0x12, 0x31,
+        0x9F, 0x38, 0x02, 0x9F, 0x02,
+        0x00, 0xFF,
+        0x5A, 0x02, 0x41, 0x11);
+
+    private static byte[] bytes(int... values) {
+        byte[] out = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            out[i] = (byte) values[i];
+        }
+        return out;
+    }
+
+    private static byte[] value(byte[] buf, int tag) {
+        return Tlv.copyValue(buf, Tlv.find(buf, 0, buf.length, tag));
+    }
+
+    @Test
+    public void findsNestedAndMultiByteTags() {
+        assertArrayEquals(bytes(0x30, 0x12, 0x31), value(FCI, Tlv.TAG_EXPIRY));
+        assertArrayEquals(bytes(0x9F, 0x02), value(FCI, Tlv.TAG_PDOL));
+        assertArrayEquals(bytes(0xA0, 0x00), value(FCI, 0x84));
+        // Padding between objects is skipped
+        assertArrayEquals(bytes(0x41, 0x11), value(FCI, Tlv.TAG_PAN));
+        assertEquals(Tlv.NOT_FOUND, Tlv.find(FCI, 0, FCI.length, Tlv.TAG_AFL));
+    }
+
+    @Test
+    public void firstMatchInDocumentOrderWins() {
+        // The nested 5A comes before the outer one, so the search returns it
+        byte[] buf = bytes(0x70, 0x03, 0x5A, 0x01, 0x01, 0x5A, 0x01, 0x02);
+        assertArrayEquals(bytes(0x01), value(buf, Tlv.TAG_PAN));
+
+        TlvIndex index = new TlvIndex();
+        assertTrue(index.add(buf));
+        int slot = index.lookup(Tlv.TAG_PAN);
+        assertEquals(Tlv.valueOffset(Tlv.find(buf, 0, buf.length, Tlv.TAG_PAN)), index.offset(slot));
+    }
+
+    @Test
+    public void tagWithTooManyContinuationBytesIsRejected() {
+        byte[] threeBytes = bytes(0x9F, 0x81, 0x01, 0x01, 0x07);
+        assertArrayEquals(bytes(0x07), value(threeBytes, 0x9F8101));
+        byte[] fourBytes = bytes(0x9F, 0x81, 0x81, 0x81, 0x01, 0x01, 0x07);
+        assertEquals(-1, Tlv.tagEnd(fourBytes, 0, fourBytes.length));
+        assertEquals(Tlv.NOT_FOUND, Tlv.find(fourBytes, 0, fourBytes.length, 0x9F818181));
+    }
+
+    @Test
+    public void malformedLengthsAreNotFound() {
+        // Value runs past the end
+        assertEquals(Tlv.NOT_FOUND, Tlv.header(bytes(0x5A, 0x05, 0x01, 0x02), 0, 4));
+        // Tag with no length byte
+        assertEquals(Tlv.NOT_FOUND, Tlv.header(bytes(0x5F, 0x24), 0, 2));
+        // Long form announces more length bytes than remain
+        assertEquals(Tlv.NOT_FOUND, Tlv.header(bytes(0x5A, 0x82, 0x01), 0, 3));
+        // Truncated multi-byte tag
+        assertEquals(Tlv.NOT_FOUND, Tlv.header(bytes(0x9F), 0, 1));
+    }
+
+    @Test
+    public void indefiniteAndOversizedLengthsAreNotFound() {
+        byte[] indefinite = bytes(0x70, 0x80, 0x5A, 0x01, 0x01, 0x00, 0x00);
+        assertEquals(Tlv.NOT_FOUND, Tlv.find(indefinite, 0, indefinite.length, Tlv.TAG_PAN));
+        byte[] fourLengthBytes = bytes(0x5A, 0x84, 0x00, 0x00, 0x00, 0x01, 0x01);
+        assertEquals(Tlv.NOT_FOUND, Tlv.find(fourLengthBytes, 0, fourLengthBytes.length, Tlv.TAG_PAN));
+        byte[] longForm = bytes(0x5A, 0x81, 0x01, 0x09);
+        assertArrayEquals(bytes(0x09), value(longForm, Tlv.TAG_PAN));
+    }
+
+    @Test
+    public void corruptionInsideATemplateEndsTheSearch() {
+        // Matches TlvIndex, which stops indexing at the first malformed object
+        byte[] buf = bytes(0x70, 0x02, 0x5A, 0x05, 0x94, 0x01, 0x01);
+        assertEquals(Tlv.NOT_FOUND, Tlv.find(buf, 0, buf.length, Tlv.TAG_AFL));
+        TlvIndex index = new TlvIndex();
+        assertFalse(index.add(buf));
+        assertFalse(index.contains(Tlv.TAG_AFL));
+    }
+
+    @Test
+    public void hostileNestingStopsAtTheDepthLimit() {
+        byte[] deep = nested(20);
+        assertEquals(Tlv.NOT_FOUND, Tlv.find(deep, 0, deep.length, Tlv.TAG_PAN));
+        TlvIndex index = new TlvIndex();
+        assertTrue(index.add(deep));
+        assertFalse(index.contains(Tlv.TAG_PAN));
+
+        byte[] shallow = nested(8);
+        assertArrayEquals(bytes(0x01), value(shallow, Tlv.TAG_PAN));
+    }
+
+    // levels nested 70 templates around a one-byte 5A
+    private static byte[] nested(int levels) {
+        byte[] buf = new byte[levels * 2 + 3];
+        for (int i = 0; i < levels; i++) {
+            buf[i * 2] = 0x70;
+            buf[i * 2 + 1] = (byte) (buf.length - i * 2 - 2);
+        }
+        buf[levels * 2] = 0x5A;
+        buf[levels * 2 + 1] = 0x01;
+        buf[levels * 2 + 2] = 0x01;
+        return buf;
+    }
+
+    @Test
+    public void byteBufferViewsMatchTheArrayPath() {
+        byte[] framed = new byte[FCI.length + 4];
+        System.arraycopy(FCI, 0, framed, 2, FCI.length);
+        ByteBuffer heap = ByteBuffer.wrap(framed, 2, FCI.length).slice();
+        ByteBuffer direct = ByteBuffer.allocateDirect(FCI.length);
+        direct.put(FCI).flip();
+        ByteBuffer readOnly = ByteBuffer.wrap(FCI).asReadOnlyBuffer();
+
+        int[] tags = {Tlv.TAG_EXPIRY, Tlv.TAG_PDOL, Tlv.TAG_PAN, 0x84, 0xA5, 0x6F, Tlv.TAG_AFL};
+        for (int tag : tags) {
+            long expected = Tlv.find(FCI, 0, FCI.length, tag);
+            assertEquals(Integer.toHexString(tag), expected, Tlv.find(heap, tag));
+            assertEquals(Integer.toHexString(tag), expected, Tlv.find(direct, tag));
+            assertEquals(Integer.toHexString(tag), expected, Tlv.find(readOnly, tag));
+        }
+    }
+
+    @Test
+    public void randomInputNeverThrowsAndAgreesWithTheIndex() {
+        Random random = new Random(0x5A5F24L);
+        int[] alphabet = {0x00, 0xFF, 0x5A, 0x5F, 0x24, 0x9F, 0x38, 0x70, 0x6F, 0xA5, 0x81, 0x82, 0x80, 0x84, 0x01, 0x02};
+        for (int round = 0; round < 20000; round++) {
+            byte[] buf = new byte[random.nextInt(48)];
+            for (int i = 0; i < buf.length; i++) {
+                buf[i] = (byte) (random.nextInt(4) == 0 ? random.nextInt(256) : alphabet[random.nextInt(alphabet.length)]);
+            }
+            TlvIndex index = new TlvIndex();
+            index.add(buf);
+            ByteBuffer direct = ByteBuffer.allocateDirect(buf.length);
+            direct.put(buf).flip();
+
+            int[] probes = {Tlv.TAG_PAN, Tlv.TAG_EXPIRY, Tlv.TAG_PDOL, 0x70, 0x6F, 0xA5, 0x9F38, 0x5F5A, 0x24};
+            for (int tag : probes) {
+                long ref = Tlv.find(buf, 0, buf.length, tag);
+                int slot = index.lookup(tag);
+                String context = "round " + round + " tag " + Integer.toHexString(tag);
+                assertEquals(context, slot >= 0, ref != Tlv.NOT_FOUND);
+                if (slot >= 0) {
+                    assertEquals(context, index.offset(slot), Tlv.valueOffset(ref));
+                    assertEquals(context, index.length(slot), Tlv.valueLength(ref));
+                }
+                assertEquals(context, ref, Tlv.find(direct, tag));
+            }
+        }
+    }
+}
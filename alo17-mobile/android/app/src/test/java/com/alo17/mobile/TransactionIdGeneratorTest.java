@@ -0,0 +1,149 @@
+package com.alo17.mobile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Eşzamanlı üretilen kimlikler benzersiz, iş parçacığı başına artan ve doğru kodlanmış olmalı
+ */
+public class TransactionIdGeneratorTest {
+
+    private static final String CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 20_000;
+
+    private static BigInteger decode(String id) {
+        BigInteger value = BigInteger.ZERO;
+        for (int i = 0; i < id.length(); i++) {
+            int digit = CROCKFORD.indexOf(id.charAt(i));
+            assertTrue(id, digit >= 0);
+            value = value.shiftLeft(5).or(BigInteger.valueOf(digit));
+        }
+        return value;
+    }
+
+    private static BigInteger unsigned128(long high, long low) {
+        BigInteger hi = new BigInteger(Long.toUnsignedString(high));
+        return hi.shiftLeft(64).or(new BigInteger(Long.toUnsignedString(low)));
+    }
+
+    private static String encode(long high, long low) {
+        char[] out = new char[TransactionIdGenerator.ENCODED_LENGTH];
+        TransactionIdGenerator.encode(high, low, out, 0);
+        return new String(out);
+    }
+
+    @Test
+    public void concurrentIdsAreUniqueAndIncreasePerThread() throws Exception {
+        TransactionIdGenerator generator = new TransactionIdGenerator(0x1234_5678_0000_0000L, 42);
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    String previous = "";
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        String id = generator.next();
+                        if (id.length() != TransactionIdGenerator.ENCODED_LENGTH || id.compareTo(previous) <= 0) {
+                            failure.compareAndSet(null, previous + " -> " + id);
+                        }
+                        if (!seen.add(id)) {
+                            failure.compareAndSet(null, "duplicate " + id);
+                        }
+                        previous = id;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        assertNull(failure.get());
+        assertEquals(THREADS * IDS_PER_THREAD, seen.size());
+    }
+
+    @Test
+    public void encodingIsCrockfordBase32OfThe128BitValue() {
+        assertEquals("00000000000000000000000000", encode(0, 0));
+        assertEquals("00000000000000000000000001", encode(0, 1));
+        // 128 bits fill 25 digits plus 3 bits of the first
+        assertEquals("7ZZZZZZZZZZZZZZZZZZZZZZZZZ", encode(-1L, -1L));
+
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            long high = random.nextLong();
+            long low = random.nextLong();
+            String id = encode(high, low);
+            assertEquals(26, id.length());
+            assertEquals(id, unsigned128(high, low), decode(id));
+        }
+    }
+
+    @Test
+    public void encodingCarriesTheTimestampSequenceAndNode() {
+        long node = 0xCAFE_BABE_0000_0000L;
+        TransactionIdGenerator generator = new TransactionIdGenerator(node, 0x0102_0304, () -> 1_700_000_000_000L);
+        String id = generator.next("NFC_");
+        assertTrue(id.startsWith("NFC_"));
+
+        BigInteger value = decode(id.substring(4));
+        long high = value.shiftRight(64).longValue();
+        assertEquals(1_700_000_000_000L, TransactionIdGenerator.timestampOf(high));
+        assertEquals(0, TransactionIdGenerator.sequenceOf(high));
+        assertEquals(0xCAFE_BABE_0102_0304L, value.longValue());
+    }
+
+    @Test
+    public void sequenceRolloverWithinOneMillisecondAdvancesTheTimestamp() {
+        long now = 1_700_000_000_000L;
+        TransactionIdGenerator generator = new TransactionIdGenerator(1L << 32, 1, () -> now);
+        long previous = generator.nextHigh();
+        assertEquals(now, TransactionIdGenerator.timestampOf(previous));
+        int perMillisecond = 1 << 22;
+        for (int i = 1; i < perMillisecond; i++) {
+            long high = generator.nextHigh();
+            assertTrue(high > previous);
+            previous = high;
+        }
+        assertEquals(perMillisecond - 1, TransactionIdGenerator.sequenceOf(previous));
+
+        // The clock has not moved, so the counter borrows the next millisecond
+        long rolled = generator.nextHigh();
+        assertEquals(now + 1, TransactionIdGenerator.timestampOf(rolled));
+        assertEquals(0, TransactionIdGenerator.sequenceOf(rolled));
+        long after = generator.nextHigh();
+        assertEquals(now + 1, TransactionIdGenerator.timestampOf(after));
+        assertEquals(1, TransactionIdGenerator.sequenceOf(after));
+    }
+
+    @Test
+    public void clockGoingBackwardsKeepsIdsIncreasing() {
+        long[] now = {1_700_000_000_000L};
+        TransactionIdGenerator generator = new TransactionIdGenerator(1L << 32, 1, () -> now[0]);
+        String first = generator.next();
+        now[0] -= 60_000;
+        String second = generator.next();
+        assertTrue(second.compareTo(first) > 0);
+    }
+}
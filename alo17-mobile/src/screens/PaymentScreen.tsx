@@ -54,6 +54,9 @@ const PaymentScreen: React.FC<PaymentScreenProps> = ({ route }) => {
 
   useEffect(() => {
     checkNfcStatus();
+    if (Platform.OS === 'android') {
+      AndroidPaymentModule.preparePayTR();
+    }
   }, []);
 
   // NFC durumunu kontrol et
@@ -192,6 +195,9 @@ const PaymentScreen: React.FC<PaymentScreenProps> = ({ route }) => {
             token: result.transactionId || 'NFC_PAYMENT',
             amount: paymentAmount 
           });
+        } else if (result.status === 'card_read') {
+          // The card was only read on the device; no payment has been authorized yet
+          Alert.alert('NFC Kart Okundu', 'Kart okundu ancak ödeme henüz onaylanmadı');
         } else if (result.status === 'cancelled') {
           Alert.alert('NFC Ödeme İptal', 'NFC ödeme işlemi iptal edildi');
         } else {
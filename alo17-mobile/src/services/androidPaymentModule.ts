@@ -1,7 +1,10 @@
-import { NativeModules, Platform } from 'react-native';
+import { DeviceEventEmitter, NativeModules, Platform } from 'react-native';
 
 const { PaymentModule } = NativeModules;
 
+// Amounts cross the bridge in kuruş; a single rounding here avoids 19.99 * 100 = 1998.99…
+const toMinorUnits = (amount: number): number => Math.round(amount * 100);
+
 export interface PaymentData {
   amount: number;
   currency?: string;
@@ -14,26 +17,266 @@ export interface PaymentData {
   expiryDate?: string;
   cvv?: string;
   useNFC?: boolean;
+  // Repeated calls with the same key while a payment is in flight share its result
+  idempotencyKey?: string;
 }
 
 export interface PaymentResult {
-  status: 'success' | 'failed' | 'cancelled';
+  // 'card_read': NFC card read and checked locally only; no issuer authorization, not reconciled
+  status: 'success' | 'card_read' | 'failed' | 'cancelled';
   token?: string;
   amount?: number;
+  amountMinor?: number;
   error?: string;
+  // 'PAYTR_UNAVAILABLE' when the PayTR page could not be loaded; NFC can be offered instead
+  errorCode?: string;
   paymentMethod?: 'paytr' | 'nfc';
   transactionId?: string;
+  sessionId?: string;
+}
+
+export interface PendingPayment {
+  sessionId: string;
+  paymentMethod: 'paytr' | 'nfc';
+  startedAt: number;
+  status?: string;
+  reference?: string;
+}
+
+export type PaymentProgressType =
+  | 'started'
+  | 'card_detected'
+  | 'reading'
+  | 'authorizing'
+  | 'page_started'
+  | 'page_loaded'
+  | 'approved'
+  | 'card_read'
+  | 'declined'
+  | 'cancelled';
+
+export interface PaymentProgressEvent {
+  sessionId: string;
+  type: PaymentProgressType;
+  terminal: boolean;
+  timestamp: number;
+}
+
+export interface StageLatency {
+  count: number;
+  p50Ms: number;
+  p90Ms: number;
+  p99Ms: number;
+  maxMs: number;
+  recentP50Ms: number;
+  recentP99Ms: number;
+}
+
+export interface SchedulerPoolMetrics {
+  queueDepth: number;
+  executed: number;
+  dropped: number;
+  rejected: number;
+  avgWaitMs: number;
+  maxWaitMs: number;
+}
+
+export interface AssetCacheMetrics {
+  hits: number;
+  revalidated: number;
+  misses: number;
+  bytesFromCache: number;
+  bytesFromNetwork: number;
+  // 0 until the cache index has been read, by preparePayTR or the first payment page
+  sizeBytes: number;
+  // Initial payment page loads; compare stages paytr_page_load_warm and paytr_page_load_cold for the time saved
+  pageLoads: number;
+  // Cacheable asset bytes per initial page load; absent before the first load
+  cacheBytesPerLoad?: number;
+  networkBytesPerLoad?: number;
+}
+
+export interface PayTRLoadMetrics {
+  circuit: 'closed' | 'open' | 'half_open';
+  available: boolean;
+  consecutiveFailures: number;
+  networks: Partial<Record<'wifi' | 'cellular' | 'ethernet' | 'other', {
+    estimateMs: number;
+    deadlineMs: number;
+  }>>;
+}
+
+export interface ProviderMetrics {
+  available: boolean;
+  attempts: number;
+  // Laplace-smoothed; 0.5 before any completed payment. Declines count as completed round trips;
+  // only gateway errors and launch failures lower it
+  successRate: number;
+  latencyMs?: number;
+}
+
+export interface ProviderPaymentRequest {
+  // Explicit provider id, e.g. 'paytr' or 'nfc'
+  provider?: string;
+  // Candidates to route between by measured success rate and latency. One of provider or providers
+  // is required; simulated providers are only used when named explicitly in provider
+  providers?: string[];
+  // TL as a number or decimal string ("149.90"); amountMinor (kuruş) wins when both are given
+  amount?: number | string;
+  amountMinor?: number;
+  timeoutMs?: number;
+  [field: string]: unknown;
+}
+
+export interface StartupMetrics {
+  // Time spent in the native module constructor on the start-up path
+  moduleInitMs: number;
+  // Journal recovery and registrations moved off start-up; absent until they have run
+  deferredInitMs?: number;
+  // Process age when the module was constructed (Android 7+)
+  processAgeAtInitMs?: number;
+}
+
+export interface VelocityMetrics {
+  checks: number;
+  trackedCards: number;
+  blocked: Record<'card_velocity' | 'device_distinct_cards' | 'device_velocity', number>;
+}
+
+// Local pre-authorization limits; omitted fields keep their defaults
+export interface FraudRules {
+  cardMaxAttempts?: number;
+  cardWindowMs?: number;
+  deviceMaxDistinctCards?: number;
+  deviceMaxAttempts?: number;
+  deviceWindowMs?: number;
+  trackedCards?: number;
+}
+
+export interface PaymentMetrics {
+  stages: Record<string, StageLatency>;
+  scheduler: Record<'io' | 'cpu', SchedulerPoolMetrics>;
+  assetCache: AssetCacheMetrics;
+  paytrLoad: PayTRLoadMetrics;
+  startup: StartupMetrics;
+  providers: Record<string, ProviderMetrics>;
+  velocity: VelocityMetrics;
+  idempotency: {
+    inFlight: number;
+    // Duplicate start calls that joined a payment already in flight
+    deduplicated: number;
+  };
+  journal: {
+    // Sessions started but not yet delivered to JS
+    pending: number;
+    // The last record could not be written even after compaction
+    full: boolean;
+    droppedRecords: number;
+    // Undelivered sessions dropped at compaction for being older than a week
+    expiredSessions: number;
+  };
+  // Absent until the module's deferred initialization has loaded the queue
+  reconciliation?: {
+    pending: number;
+    // Rejected by the backend or pushed out of a full queue; kept on disk, never resent
+    deadLetters: number;
+    // Oldest confirmations moved to dead letters because the queue was full (this process)
+    overflowed: number;
+    // Sending stopped after 401/403 until configureReconciliation supplies a new token
+    authPaused: boolean;
+  };
+}
+
+export interface SimulatorOptions {
+  minLatencyMs?: number;
+  maxLatencyMs?: number;
+  errorRate?: number;
+  declineRate?: number;
+  declineCodes?: string[];
+  seed?: number;
+}
+
+export interface LoadTestOptions extends SimulatorOptions {
+  sessions?: number;
+  concurrency?: number;
+  workers?: number;
+  // 'nfc' reads a simulated card through the EMV reader for every session
+  mode?: 'paytr' | 'nfc';
+}
+
+export interface LoadTestReport {
+  sessions: number;
+  concurrency: number;
+  elapsedMs: number;
+  throughputPerSec: number;
+  p50Ms: number;
+  p99Ms: number;
+  p999Ms: number;
+  maxMs: number;
+  approved: number;
+  declined: number;
+  rejected: number;
+  openFailures: number;
+  mismatched: number;
+  unsettled: number;
+  settledTwice: number;
+  correct: boolean;
+}
+
+export interface BenchmarkResult {
+  name: string;
+  nsPerOp: number;
+  baselineNsPerOp?: number;
+  changePercent?: number;
+  regression: boolean;
+}
+
+export interface ReaderSessionOptions {
+  presenceCheckDelayMs?: number;
+  debounceMs?: number;
+  transceiveTimeoutMs?: number;
+}
+
+export type ReaderEventType = 'tap' | 'card_read' | 'declined' | 'duplicate' | 'no_sale';
+
+export interface ReaderEvent {
+  readerSessionId: string;
+  type: ReaderEventType;
+  saleId?: string;
+  amount?: number;
+  amountMinor?: number;
+  transactionId?: string;
+  error?: string;
+  pendingSales: number;
 }
 
 export class AndroidPaymentModule {
+  // PayTR payments in flight by idempotency key, so a double tap neither fetches a second token nor
+  // creates a second merchant_oid
+  private static payTRInFlight = new Map<string, Promise<PaymentResult>>();
+
   /**
-   * PayTR ödeme işlemi başlat
+   * PayTR ödeme işlemi başlat; aynı anahtarla devam eden ödeme varsa onun sonucunu paylaşır
    */
   static async startPayTRPayment(paymentData: PaymentData): Promise<PaymentResult> {
     if (Platform.OS !== 'android') {
       throw new Error('PayTR ödeme sadece Android\'de desteklenir');
     }
 
+    // Built from stable fields; the token and payment URL differ on every call
+    const idempotencyKey = paymentData.idempotencyKey
+      ?? `${toMinorUnits(paymentData.amount)}|${paymentData.userEmail}|${paymentData.description ?? ''}`;
+    const inFlight = this.payTRInFlight.get(idempotencyKey);
+    if (inFlight) {
+      return inFlight;
+    }
+    const payment = this.runPayTRPayment(paymentData, idempotencyKey)
+      .finally(() => this.payTRInFlight.delete(idempotencyKey));
+    this.payTRInFlight.set(idempotencyKey, payment);
+    return payment;
+  }
+
+  private static async runPayTRPayment(paymentData: PaymentData, idempotencyKey: string): Promise<PaymentResult> {
     try {
       // PayTR token al
       const token = await this.getPayTRToken(paymentData);
@@ -44,6 +287,9 @@ export class AndroidPaymentModule {
       // Android Activity'yi başlat
       const result = await PaymentModule.startPayTRPayment({
         paymentUrl,
+        amountMinor: toMinorUnits(paymentData.amount),
+        // Native dedup still catches calls that bypass this class
+        idempotencyKey,
         successUrl: 'alo17://payment/success',
         failUrl: 'alo17://payment/failed',
         cancelUrl: 'alo17://payment/cancelled',
@@ -55,11 +301,28 @@ export class AndroidPaymentModule {
       return {
         status: 'failed',
         error: error.message || 'PayTR ödeme başlatılamadı',
+        errorCode: error.code,
         paymentMethod: 'paytr',
       };
     }
   }
 
+  /**
+   * PayTR ödeme sayfasını önceden hazırla (WebView ısıtma ve ön bağlantı)
+   */
+  static async preparePayTR(): Promise<void> {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+
+    try {
+      const config = require('../config/paytr').PAYTR_CONFIG.getConfig();
+      await PaymentModule.preparePayTR({ paymentUrl: config.paymentUrl });
+    } catch (error) {
+      console.warn('PayTR prepare error:', error);
+    }
+  }
+
   /**
    * NFC ödeme işlemi başlat
    */
@@ -75,10 +338,11 @@ export class AndroidPaymentModule {
     try {
       // Android NFC Activity'yi başlat
       const result = await PaymentModule.startNFCPayment({
-        amount: paymentData.amount,
+        amountMinor: toMinorUnits(paymentData.amount),
         cardNumber: paymentData.cardNumber,
         expiryDate: paymentData.expiryDate,
         cvv: paymentData.cvv,
+        ...(paymentData.idempotencyKey ? { idempotencyKey: paymentData.idempotencyKey } : {}),
       });
 
       return this.parsePaymentResult(result);
@@ -92,6 +356,65 @@ export class AndroidPaymentModule {
     }
   }
 
+  /**
+   * Ayrı ekran açmadan NFC ödeme: kart mevcut ekranda okunur.
+   * İlerleme onPaymentProgress ile izlenir; vibrate geri bildirimi isteğe bağlıdır
+   */
+  static async startHeadlessNFCPayment(
+    paymentData: PaymentData,
+    options: { vibrate?: boolean; timeoutMs?: number } = {},
+  ): Promise<PaymentResult> {
+    if (Platform.OS !== 'android') {
+      throw new Error('NFC ödeme sadece Android\'de desteklenir');
+    }
+
+    if (!paymentData.cardNumber || !paymentData.expiryDate || !paymentData.cvv) {
+      throw new Error('NFC ödeme için kart bilgileri gerekli');
+    }
+
+    try {
+      const result = await PaymentModule.startHeadlessNFCPayment({
+        amountMinor: toMinorUnits(paymentData.amount),
+        cardNumber: paymentData.cardNumber,
+        expiryDate: paymentData.expiryDate,
+        cvv: paymentData.cvv,
+        ...(paymentData.idempotencyKey ? { idempotencyKey: paymentData.idempotencyKey } : {}),
+        ...options,
+      });
+
+      return this.parsePaymentResult(result);
+    } catch (error) {
+      console.error('Headless NFC payment error:', error);
+      return {
+        status: 'failed',
+        error: error.message || 'NFC ödeme başlatılamadı',
+        errorCode: error.code,
+        paymentMethod: 'nfc',
+      };
+    }
+  }
+
+  /**
+   * Sağlayıcı adıyla veya adaylar arasından native ölçümlere göre seçilerek ödeme başlat
+   */
+  static async startProviderPayment(request: ProviderPaymentRequest): Promise<PaymentResult> {
+    if (Platform.OS !== 'android') {
+      throw new Error('Native ödeme sadece Android\'de desteklenir');
+    }
+
+    try {
+      const result = await PaymentModule.startPayment(request);
+      return this.parsePaymentResult(result);
+    } catch (error) {
+      console.error('Provider payment error:', error);
+      return {
+        status: 'failed',
+        error: error.message || 'Ödeme başlatılamadı',
+        errorCode: error.code,
+      };
+    }
+  }
+
   /**
    * PayTR token al
    */
@@ -103,7 +426,7 @@ export class AndroidPaymentModule {
       user_ip: await this.getUserIP(),
       merchant_oid: this.generateOrderId(),
       email: paymentData.userEmail,
-      payment_amount: paymentData.amount * 100, // PayTR kuruş cinsinden bekler
+      payment_amount: toMinorUnits(paymentData.amount), // PayTR kuruş cinsinden bekler
       currency: paymentData.currency || 'TL',
       test_mode: config.testMode ? '1' : '0',
       no_installment: '0',
@@ -202,28 +525,250 @@ export class AndroidPaymentModule {
    * Ödeme sonucunu parse et
    */
   private static parsePaymentResult(result: any): PaymentResult {
-    if (result.status === 'success') {
+    // Native results use one schema: the reference is the PayTR token or the NFC transaction id
+    if (result.status === 'success' || result.status === 'card_read') {
+      const paymentMethod = result.payment_method || 'paytr';
+      const amountMinor = typeof result.amount_minor === 'number' ? result.amount_minor : undefined;
       return {
-        status: 'success',
-        token: result.token,
-        amount: result.amount,
-        paymentMethod: result.payment_method || 'paytr',
-        transactionId: result.transaction_id,
+        status: result.status,
+        token: paymentMethod === 'paytr' ? result.reference : undefined,
+        amount: amountMinor !== undefined ? amountMinor / 100 : undefined,
+        amountMinor,
+        paymentMethod,
+        transactionId: paymentMethod === 'nfc' ? result.reference : undefined,
+        sessionId: result.session_id,
       };
     } else if (result.status === 'cancelled') {
       return {
         status: 'cancelled',
         paymentMethod: result.payment_method || 'paytr',
+        sessionId: result.session_id,
       };
     } else {
       return {
         status: 'failed',
         error: result.error || 'Ödeme başarısız',
+        errorCode: result.error_code,
         paymentMethod: result.payment_method || 'paytr',
+        sessionId: result.session_id,
       };
     }
   }
 
+  /**
+   * Ödeme ilerleme olaylarını dinle; aboneliği kaldıran fonksiyon döner
+   */
+  static onPaymentProgress(listener: (events: PaymentProgressEvent[]) => void): () => void {
+    if (Platform.OS !== 'android') {
+      return () => {};
+    }
+
+    const subscription = DeviceEventEmitter.addListener('PaymentProgress', (batch: any) => {
+      listener(
+        (batch.events || []).map((event: any) => ({
+          sessionId: event.session_id,
+          type: event.type,
+          terminal: event.terminal,
+          timestamp: event.timestamp,
+        }))
+      );
+    });
+    return () => subscription.remove();
+  }
+
+  /**
+   * Satıcı modu: art arda kart okuyan NFC oturumunu başlat
+   */
+  static async startReaderSession(options: ReaderSessionOptions = {}): Promise<string | null> {
+    if (Platform.OS !== 'android') {
+      return null;
+    }
+
+    try {
+      return await PaymentModule.startReaderSession(options);
+    } catch (error) {
+      console.error('NFC reader session error:', error);
+      throw error;
+    }
+  }
+
+  /**
+   * Okuyucu oturumuna satış ekle; satış kimliği döner
+   */
+  static async queueSale(amount: number, saleId?: string): Promise<string> {
+    return PaymentModule.queueSale({ amountMinor: toMinorUnits(amount), saleId });
+  }
+
+  /**
+   * Okuyucu oturumunu kapat
+   */
+  static async stopReaderSession(): Promise<void> {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+
+    try {
+      await PaymentModule.stopReaderSession();
+    } catch (error) {
+      console.error('NFC reader stop error:', error);
+    }
+  }
+
+  /**
+   * Okuyucu olaylarını dinle; aboneliği kaldıran fonksiyon döner
+   */
+  static onReaderEvent(listener: (event: ReaderEvent) => void): () => void {
+    if (Platform.OS !== 'android') {
+      return () => {};
+    }
+
+    const subscription = DeviceEventEmitter.addListener('NfcReaderEvent', (event: any) => {
+      const amountMinor = typeof event.amount_minor === 'number' ? event.amount_minor : undefined;
+      listener({
+        readerSessionId: event.reader_session_id,
+        type: event.type,
+        saleId: event.sale_id,
+        amount: amountMinor !== undefined ? amountMinor / 100 : undefined,
+        amountMinor,
+        transactionId: event.transaction_id,
+        error: event.error,
+        pendingSales: event.pending_sales,
+      });
+    });
+    return () => subscription.remove();
+  }
+
+  /**
+   * Ödeme mutabakatı için backend adresini ayarla
+   */
+  static async configureReconciliation(endpoint: string, authToken?: string): Promise<void> {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+
+    try {
+      await PaymentModule.configureReconciliation({ endpoint, authToken });
+    } catch (error) {
+      console.error('Reconciliation config error:', error);
+    }
+  }
+
+  /**
+   * Ödeme aşamalarının gecikme ölçümlerini getir
+   */
+  static async getMetrics(): Promise<PaymentMetrics | null> {
+    if (Platform.OS !== 'android') {
+      return null;
+    }
+
+    try {
+      return await PaymentModule.getMetrics();
+    } catch (error) {
+      console.error('Payment metrics error:', error);
+      return null;
+    }
+  }
+
+  /**
+   * Native ödeme kodunun mikro ölçümünü çalıştır (yalnızca debug derlemelerde)
+   */
+  static async runBenchmarks(updateBaseline = false): Promise<BenchmarkResult[]> {
+    if (Platform.OS !== 'android') {
+      return [];
+    }
+
+    try {
+      return await PaymentModule.runBenchmarks({ updateBaseline });
+    } catch (error) {
+      console.error('Payment benchmark error:', error);
+      return [];
+    }
+  }
+
+  /**
+   * NFC ödemesinde kart okumadan önce uygulanan hız kurallarını değiştir; sayaçlar sıfırlanır.
+   * Engellenen denemeler errorCode 'VELOCITY_LIMIT' ile başarısız döner
+   */
+  static async configureFraudRules(rules: FraudRules): Promise<boolean> {
+    if (Platform.OS !== 'android') {
+      return false;
+    }
+
+    try {
+      return await PaymentModule.configureFraudRules(rules);
+    } catch (error) {
+      console.error('Fraud rules error:', error);
+      return false;
+    }
+  }
+
+  /**
+   * Yerel ağ geçidi simülatörünü aç veya kapat (yalnızca debug derlemelerde);
+   * açıkken startProviderPayment({ provider: 'simulator', ... }) PayTR ekranını simülatörle çalıştırır
+   */
+  static async configureSimulator(options: SimulatorOptions | null): Promise<boolean> {
+    if (Platform.OS !== 'android') {
+      return false;
+    }
+
+    try {
+      return await PaymentModule.configureSimulator(options);
+    } catch (error) {
+      console.error('Payment simulator error:', error);
+      return false;
+    }
+  }
+
+  /**
+   * Simüle oturumları native ödeme hattından eşzamanlı geçir (yalnızca debug derlemelerde)
+   */
+  static async runLoadTest(options: LoadTestOptions = {}): Promise<LoadTestReport | null> {
+    if (Platform.OS !== 'android') {
+      return null;
+    }
+
+    try {
+      return await PaymentModule.runLoadTest(options);
+    } catch (error) {
+      console.error('Payment load test error:', error);
+      return null;
+    }
+  }
+
+  /**
+   * Uygulama kapanmadan önce sonucu alınamamış ödemeleri getir
+   */
+  static async getPendingPayments(): Promise<PendingPayment[]> {
+    if (Platform.OS !== 'android') {
+      return [];
+    }
+
+    try {
+      const pending = await PaymentModule.getPendingPayments();
+      return pending.map((item: any) => ({
+        sessionId: item.session_id,
+        paymentMethod: item.payment_method,
+        startedAt: item.started_at,
+        status: item.status || undefined,
+        reference: item.reference || undefined,
+      }));
+    } catch (error) {
+      console.error('Pending payments error:', error);
+      return [];
+    }
+  }
+
+  /**
+   * Mutabakatı tamamlanan ödemeyi onayla
+   */
+  static async acknowledgePendingPayment(sessionId: string): Promise<void> {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+
+    await PaymentModule.acknowledgePendingPayment(sessionId);
+  }
+
   /**
    * NFC desteğini kontrol et
    */